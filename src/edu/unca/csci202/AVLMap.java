@@ -0,0 +1,1498 @@
+package edu.unca.csci202;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * AVL tree keyed map, a drop-in NavigableMap with the value stored in the tree node so an
+ * entry costs one allocation. put, get, putIfAbsent, computeIfAbsent and merge each make a
+ * single descent: the search remembers where a missing key would attach.
+ *
+ * The rebalancing (insertFix, deleteFix, leftRotate, rightRotate, transplant) is the same
+ * algorithm as AVLTree's, step for step, so a fix to one belongs in the other. It is not
+ * shared because AVLTree's Node is keyed by a Comparable element and carries the subtree
+ * size and duplicate count its rank queries need: reusing it here would either wrap every
+ * key and value in a holder, the indirection this class removes, or add a value slot to
+ * every AVLTree node.
+ *
+ * Iterators are fail-fast. The sub map, head map, tail map and descending views are live
+ * and their size() is O(n) in the view, as for TreeMap.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class AVLMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+	/**
+	 * AVLMap Node class, an entry of the map and a node of the tree.
+	 * @param <K> key type
+	 * @param <V> value type
+	 */
+	static final class Node<K, V> implements Map.Entry<K, V> {
+		private final K key;
+		private V value;
+		private int height;
+		private Node<K, V> parent;
+		private Node<K, V> left;
+		private Node<K, V> right;
+
+		/* constructors */
+		Node(K key, V value, Node<K, V> parent) {
+			this.key = key;
+			this.value = value;
+			this.height = 1; // a lone node is a leaf.
+			this.parent = parent;
+		}
+
+		/* class methods */
+
+		@Override
+		public K getKey() {
+			return this.key;
+		}
+
+		@Override
+		public V getValue() {
+			return this.value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			V old = this.value;
+			this.value = value;
+			return old;
+		}
+
+		/**
+		 * Update the value of this Node's height data field.
+		 */
+		void updateHeight() {
+			this.height = 1 + Math.max(heightOf(this.left), heightOf(this.right));
+		}
+
+		/**
+		 * Return the balance factor of this node, right height minus left height.
+		 * @return the balance factor of this node.
+		 */
+		int balanceFactor() {
+			return heightOf(this.right) - heightOf(this.left);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return Objects.equals(this.key, e.getKey()) && Objects.equals(this.value, e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hashCode(this.key) ^ Objects.hashCode(this.value);
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+	/* instance variables */
+	private final Comparator<? super K> comparator; // null for the keys' natural ordering.
+	private Node<K, V> root;
+	private int size;
+	private int modCount; // structural modifications, checked by iterators.
+	private NavigableMap<K, V> descendingMap; // views, created on first use.
+	private KeySet<K> navigableKeySet;
+	private EntrySet entrySet;
+
+	/* constructors */
+	/**
+	 * Empty map ordered by the keys' natural ordering.
+	 */
+	public AVLMap() {
+		this.comparator = null;
+	}
+
+	/**
+	 * Empty map ordered by comparator.
+	 * @param comparator key order, null for the keys' natural ordering.
+	 */
+	public AVLMap(Comparator<? super K> comparator) {
+		this.comparator = comparator;
+	}
+
+	/**
+	 * Map holding the mappings of m, ordered by the keys' natural ordering.
+	 * @param m mappings to copy.
+	 */
+	public AVLMap(Map<? extends K, ? extends V> m) {
+		this.comparator = null;
+		this.putAll(m);
+	}
+
+	/**
+	 * Compare two keys with the comparator, or their natural ordering.
+	 * @param a first key.
+	 * @param b second key.
+	 * @return negative, zero or positive as a is less than, equal to or greater than b.
+	 */
+	@SuppressWarnings("unchecked")
+	final int compare(Object a, Object b) {
+		if(this.comparator == null) {
+			return ((Comparable<? super K>) a).compareTo((K) b);
+		}
+		return this.comparator.compare((K) a, (K) b);
+	}
+
+	/**
+	 * Returns the height of the subtree rooted at node, 0 for a null node.
+	 * @param node subtree root.
+	 * @return the height of node's subtree.
+	 */
+	static int heightOf(Node<?, ?> node) {
+		if(node == null) {
+			return 0;
+		}
+		return node.height;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public void clear() {
+		this.modCount++;
+		this.size = 0;
+		this.root = null;
+	}
+
+	/**
+	 * Get height of tree in number of nodes.
+	 * @return height of tree in number of nodes.
+	 */
+	public int height() {
+		return heightOf(this.root);
+	}
+
+	@Override
+	public Comparator<? super K> comparator() {
+		return this.comparator;
+	}
+
+	/**
+	 * Returns the node for key, or null if key is not in the map.
+	 * @param key key to look up.
+	 * @return the node holding key.
+	 */
+	final Node<K, V> getNode(Object key) {
+		if(key == null && this.comparator == null) {
+			throw new NullPointerException();
+		}
+		Node<K, V> node = this.root;
+		while(node != null) {
+			int cmp = this.compare(key, node.key);
+			if(cmp < 0) {
+				node = node.left; // key < node.
+			} else if(cmp > 0) {
+				node = node.right; // key > node.
+			} else {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public V get(Object key) {
+		Node<K, V> node = this.getNode(key);
+		return (node == null) ? null : node.value;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return this.getNode(key) != null;
+	}
+
+	@Override
+	public V put(K key, V value) {
+		Node<K, V> node = this.root;
+		Node<K, V> parent = null; // trailing parent node.
+		int cmp = 0;
+		if(node == null) {
+			this.compare(key, key); // type and null check on the first key.
+		}
+		while(node != null) {
+			parent = node;
+			cmp = this.compare(key, node.key);
+			if(cmp < 0) {
+				node = node.left;
+			} else if(cmp > 0) {
+				node = node.right;
+			} else {
+				return node.setValue(value); // key present, replace in place.
+			}
+		}
+		this.attach(key, value, parent, cmp);
+		return null;
+	}
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		Node<K, V> node = this.root;
+		Node<K, V> parent = null;
+		int cmp = 0;
+		if(node == null) {
+			this.compare(key, key);
+		}
+		while(node != null) {
+			parent = node;
+			cmp = this.compare(key, node.key);
+			if(cmp < 0) {
+				node = node.left;
+			} else if(cmp > 0) {
+				node = node.right;
+			} else {
+				if(node.value == null) {
+					node.value = value; // a null value counts as absent.
+					return null;
+				}
+				return node.value;
+			}
+		}
+		this.attach(key, value, parent, cmp);
+		return null;
+	}
+
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		Objects.requireNonNull(mappingFunction);
+		Node<K, V> node = this.root;
+		Node<K, V> parent = null;
+		int cmp = 0;
+		if(node == null) {
+			this.compare(key, key);
+		}
+		while(node != null) {
+			parent = node;
+			cmp = this.compare(key, node.key);
+			if(cmp < 0) {
+				node = node.left;
+			} else if(cmp > 0) {
+				node = node.right;
+			} else if(node.value != null) {
+				return node.value;
+			} else {
+				break; // mapped to null, compute into this node.
+			}
+		}
+		int expectedModCount = this.modCount;
+		V value = mappingFunction.apply(key);
+		if(this.modCount != expectedModCount) {
+			throw new ConcurrentModificationException(); // the function changed the map, parent is stale.
+		}
+		if(value == null) {
+			return null;
+		}
+		if(node != null) {
+			node.value = value;
+		} else {
+			this.attach(key, value, parent, cmp);
+		}
+		return value;
+	}
+
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		Objects.requireNonNull(value);
+		Objects.requireNonNull(remappingFunction);
+		Node<K, V> node = this.root;
+		Node<K, V> parent = null;
+		int cmp = 0;
+		if(node == null) {
+			this.compare(key, key);
+		}
+		while(node != null) {
+			parent = node;
+			cmp = this.compare(key, node.key);
+			if(cmp < 0) {
+				node = node.left;
+			} else if(cmp > 0) {
+				node = node.right;
+			} else {
+				V merged = value;
+				if(node.value != null) {
+					int expectedModCount = this.modCount;
+					merged = remappingFunction.apply(node.value, value);
+					if(this.modCount != expectedModCount) {
+						throw new ConcurrentModificationException();
+					}
+				}
+				if(merged == null) {
+					this.deleteNode(node);
+				} else {
+					node.value = merged;
+				}
+				return merged;
+			}
+		}
+		this.attach(key, value, parent, cmp);
+		return value;
+	}
+
+	@Override
+	public V remove(Object key) {
+		Node<K, V> node = this.getNode(key);
+		if(node == null) {
+			return null;
+		}
+		V old = node.value;
+		this.deleteNode(node);
+		return old;
+	}
+
+	/**
+	 * Link a new node under parent, where the descent for key ended, and rebalance.
+	 * @param key new key.
+	 * @param value its value.
+	 * @param parent last node on the search path, null if the tree is empty.
+	 * @param cmp comparison of key with parent's key.
+	 */
+	private void attach(K key, V value, Node<K, V> parent, int cmp) {
+		Node<K, V> node = new Node<K, V>(key, value, parent);
+		if(parent == null) { // tree was empty.
+			this.root = node;
+		} else if(cmp < 0) {
+			parent.left = node;
+		} else {
+			parent.right = node;
+		}
+		this.size++;
+		this.modCount++;
+		this.insertFix(parent);
+	}
+
+	/**
+	 * Climb from the parent of a new node updating heights, one single or double rotation
+	 * restores the balance.
+	 * @param x parent of the newly inserted node.
+	 */
+	private void insertFix(Node<K, V> x) {
+		while(x != null) {
+			int oldHeight = x.height;
+			x.updateHeight();
+			int curBal = x.balanceFactor();
+			if(curBal == -2) { // -2bf
+				if(x.left.balanceFactor() == 1) { // left-right db
+					this.leftRotate(x.left);
+				}
+				this.rightRotate(x);
+				return;
+			} else if(curBal == 2) { // 2bf
+				if(x.right.balanceFactor() == -1) { // right-left db
+					this.rightRotate(x.right);
+				}
+				this.leftRotate(x);
+				return;
+			}
+			if(x.height == oldHeight) {
+				return; // nothing above can have changed.
+			}
+			x = x.parent; // loop update
+		}
+	}
+
+	/**
+	 * Removes a node from the tree, moving its successor node into its place so other nodes
+	 * (and iterators holding them) are not disturbed, then rebalances.
+	 * @param node node to delete.
+	 */
+	final void deleteNode(Node<K, V> node) {
+		this.size--;
+		this.modCount++;
+		Node<K, V> lpc; // lowest point of change.
+		if(node.left == null) {
+			lpc = node.parent;
+			this.transplant(node, node.right); // case 1
+		} else if(node.right == null) {
+			lpc = node.parent;
+			this.transplant(node, node.left); // case 2
+		} else { // case 3
+			Node<K, V> suc = node.right;
+			while(suc.left != null) {
+				suc = suc.left;
+			}
+			if(suc.parent != node) { // case 3b
+				lpc = suc.parent;
+				this.transplant(suc, suc.right);
+				suc.right = node.right;
+				suc.right.parent = suc;
+			} else {
+				lpc = suc; // case 3a
+			}
+			this.transplant(node, suc);
+			suc.left = node.left;
+			suc.left.parent = suc;
+		}
+		this.deleteFix(lpc);
+	}
+
+	/**
+	 * Method that re-balances the tree after removing a node, climbing to the root.
+	 * @param node the lowest point of change, null if the root was removed.
+	 */
+	private void deleteFix(Node<K, V> node) {
+		while(node != null) {
+			node.updateHeight();
+			int curBal = node.balanceFactor();
+			if(curBal == -2) {
+				if(node.left.balanceFactor() == 1) {
+					this.leftRotate(node.left);
+				}
+				this.rightRotate(node);
+				node = node.parent; // continue above the rotated subtree.
+			} else if(curBal == 2) {
+				if(node.right.balanceFactor() == -1) {
+					this.rightRotate(node.right);
+				}
+				this.leftRotate(node);
+				node = node.parent;
+			}
+			node = node.parent;
+		}
+	}
+
+	/**
+	 * Performs a left rotation on node, updating the heights of node and its new parent.
+	 * @param node node to perform the rotation on.
+	 */
+	private void leftRotate(Node<K, V> node) {
+		Node<K, V> tmp = node.right;
+		node.right = tmp.left; // move tmp's left subtree to become node's right
+		if(tmp.left != null) {
+			tmp.left.parent = node;
+		}
+		this.transplant(node, tmp); // node's old parent becomes tmp's new parent
+		tmp.left = node;
+		node.parent = tmp;
+		node.updateHeight();
+		tmp.updateHeight();
+	}
+
+	/**
+	 * Performs a right rotation on node, updating the heights of node and its new parent.
+	 * @param node node to perform the rotation on.
+	 */
+	private void rightRotate(Node<K, V> node) {
+		Node<K, V> tmp = node.left;
+		node.left = tmp.right; // move tmp's right subtree to become node's left
+		if(tmp.right != null) {
+			tmp.right.parent = node;
+		}
+		this.transplant(node, tmp);
+		tmp.right = node;
+		node.parent = tmp;
+		node.updateHeight();
+		tmp.updateHeight();
+	}
+
+	/**
+	 * Replaces an existing node with another in u's parent, while maintaining sub-trees.
+	 * @param u node to replace.
+	 * @param v node to replace with.
+	 */
+	private void transplant(Node<K, V> u, Node<K, V> v) {
+		if(u.parent == null) {
+			this.root = v;
+		} else if(u == u.parent.left) {
+			u.parent.left = v;
+		} else {
+			u.parent.right = v;
+		}
+		if(v != null) {
+			v.parent = u.parent;
+		}
+	}
+
+	/**
+	 * Returns the In-Order successor of node, or null if node is the largest.
+	 * @param node starting node.
+	 * @return the next node In-Order.
+	 */
+	static <K, V> Node<K, V> successor(Node<K, V> node) {
+		if(node.right != null) {
+			node = node.right;
+			while(node.left != null) {
+				node = node.left; // leftmost of right subtree.
+			}
+			return node;
+		}
+		Node<K, V> parent = node.parent;
+		while(parent != null && node == parent.right) {
+			node = parent; // climb while we are a right child.
+			parent = parent.parent;
+		}
+		return parent;
+	}
+
+	/**
+	 * Returns the In-Order predecessor of node, or null if node is the smallest.
+	 * @param node starting node.
+	 * @return the previous node In-Order.
+	 */
+	static <K, V> Node<K, V> predecessor(Node<K, V> node) {
+		if(node.left != null) {
+			node = node.left;
+			while(node.right != null) {
+				node = node.right; // rightmost of left subtree.
+			}
+			return node;
+		}
+		Node<K, V> parent = node.parent;
+		while(parent != null && node == parent.left) {
+			node = parent;
+			parent = parent.parent;
+		}
+		return parent;
+	}
+
+	/**
+	 * Returns the smallest node, null if the map is empty.
+	 * @return the first node In-Order.
+	 */
+	final Node<K, V> firstNode() {
+		Node<K, V> node = this.root;
+		if(node != null) {
+			while(node.left != null) {
+				node = node.left;
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Returns the largest node, null if the map is empty.
+	 * @return the last node In-Order.
+	 */
+	final Node<K, V> lastNode() {
+		Node<K, V> node = this.root;
+		if(node != null) {
+			while(node.right != null) {
+				node = node.right;
+			}
+		}
+		return node;
+	}
+
+	/**
+	 * Returns the node with the smallest key above key, or at key if inclusive.
+	 * @param key key to search for.
+	 * @param inclusive whether a node equal to key qualifies.
+	 * @return the ceiling (or higher) node, null if there is none.
+	 */
+	final Node<K, V> ceilingNode(Object key, boolean inclusive) {
+		Node<K, V> node = this.root;
+		Node<K, V> best = null;
+		while(node != null) {
+			int cmp = this.compare(key, node.key);
+			if(cmp < 0 || (cmp == 0 && inclusive)) {
+				best = node; // candidate, look for a smaller one on the left.
+				if(cmp == 0) {
+					return node;
+				}
+				node = node.left;
+			} else {
+				node = node.right;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns the node with the largest key below key, or at key if inclusive.
+	 * @param key key to search for.
+	 * @param inclusive whether a node equal to key qualifies.
+	 * @return the floor (or lower) node, null if there is none.
+	 */
+	final Node<K, V> floorNode(Object key, boolean inclusive) {
+		Node<K, V> node = this.root;
+		Node<K, V> best = null;
+		while(node != null) {
+			int cmp = this.compare(key, node.key);
+			if(cmp > 0 || (cmp == 0 && inclusive)) {
+				best = node; // candidate, look for a larger one on the right.
+				if(cmp == 0) {
+					return node;
+				}
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns an immutable snapshot of node, as the NavigableMap entry methods require.
+	 * @param node node to export.
+	 * @return a SimpleImmutableEntry, or null for a null node.
+	 */
+	static <K, V> Map.Entry<K, V> export(Node<K, V> node) {
+		return (node == null) ? null : new AbstractMap.SimpleImmutableEntry<K, V>(node);
+	}
+
+	/**
+	 * Returns node's key.
+	 * @param node node to read.
+	 * @return the key.
+	 * @throws NoSuchElementException if node is null.
+	 */
+	static <K> K key(Node<K, ?> node) {
+		if(node == null) {
+			throw new NoSuchElementException();
+		}
+		return node.key;
+	}
+
+	/**
+	 * Returns node's key, or null for a null node.
+	 * @param node node to read.
+	 * @return the key, or null.
+	 */
+	static <K> K keyOrNull(Node<K, ?> node) {
+		return (node == null) ? null : node.key;
+	}
+
+	@Override
+	public Map.Entry<K, V> lowerEntry(K key) {
+		return export(this.floorNode(key, false));
+	}
+
+	@Override
+	public K lowerKey(K key) {
+		return keyOrNull(this.floorNode(key, false));
+	}
+
+	@Override
+	public Map.Entry<K, V> floorEntry(K key) {
+		return export(this.floorNode(key, true));
+	}
+
+	@Override
+	public K floorKey(K key) {
+		return keyOrNull(this.floorNode(key, true));
+	}
+
+	@Override
+	public Map.Entry<K, V> ceilingEntry(K key) {
+		return export(this.ceilingNode(key, true));
+	}
+
+	@Override
+	public K ceilingKey(K key) {
+		return keyOrNull(this.ceilingNode(key, true));
+	}
+
+	@Override
+	public Map.Entry<K, V> higherEntry(K key) {
+		return export(this.ceilingNode(key, false));
+	}
+
+	@Override
+	public K higherKey(K key) {
+		return keyOrNull(this.ceilingNode(key, false));
+	}
+
+	@Override
+	public Map.Entry<K, V> firstEntry() {
+		return export(this.firstNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> lastEntry() {
+		return export(this.lastNode());
+	}
+
+	@Override
+	public K firstKey() {
+		return key(this.firstNode());
+	}
+
+	@Override
+	public K lastKey() {
+		return key(this.lastNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> pollFirstEntry() {
+		return this.poll(this.firstNode());
+	}
+
+	@Override
+	public Map.Entry<K, V> pollLastEntry() {
+		return this.poll(this.lastNode());
+	}
+
+	/**
+	 * Remove node and return a snapshot of it.
+	 * @param node node to remove, may be null.
+	 * @return the removed mapping, null if node is null.
+	 */
+	final Map.Entry<K, V> poll(Node<K, V> node) {
+		Map.Entry<K, V> entry = export(node);
+		if(node != null) {
+			this.deleteNode(node);
+		}
+		return entry;
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		if(this.entrySet == null) {
+			this.entrySet = new EntrySet();
+		}
+		return this.entrySet;
+	}
+
+	@Override
+	public Set<K> keySet() {
+		return this.navigableKeySet();
+	}
+
+	@Override
+	public NavigableSet<K> navigableKeySet() {
+		if(this.navigableKeySet == null) {
+			this.navigableKeySet = new KeySet<K>(this);
+		}
+		return this.navigableKeySet;
+	}
+
+	@Override
+	public NavigableSet<K> descendingKeySet() {
+		return this.descendingMap().navigableKeySet();
+	}
+
+	@Override
+	public NavigableMap<K, V> descendingMap() {
+		if(this.descendingMap == null) {
+			this.descendingMap = new SubMap(true, null, true, true, null, true, true);
+		}
+		return this.descendingMap;
+	}
+
+	@Override
+	public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+		if(this.compare(fromKey, toKey) > 0) {
+			throw new IllegalArgumentException("fromKey > toKey");
+		}
+		return new SubMap(false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+	}
+
+	@Override
+	public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+		this.compare(toKey, toKey); // type and null check.
+		return new SubMap(true, null, true, false, toKey, inclusive, false);
+	}
+
+	@Override
+	public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+		this.compare(fromKey, fromKey);
+		return new SubMap(false, fromKey, inclusive, true, null, true, false);
+	}
+
+	@Override
+	public SortedMap<K, V> subMap(K fromKey, K toKey) {
+		return this.subMap(fromKey, true, toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> headMap(K toKey) {
+		return this.headMap(toKey, false);
+	}
+
+	@Override
+	public SortedMap<K, V> tailMap(K fromKey) {
+		return this.tailMap(fromKey, true);
+	}
+
+	/**
+	 * Fail-fast iterator over the nodes from first up to, not including, fence, walking
+	 * successor or predecessor links.
+	 */
+	private abstract class NodeIterator<E> implements Iterator<E> {
+		private int expectedModCount = modCount;
+		private Node<K, V> next;
+		private Node<K, V> lastReturned;
+		private final Node<K, V> fence; // first node past the end, null for none.
+		private final boolean descending;
+
+		NodeIterator(Node<K, V> first, Node<K, V> fence, boolean descending) {
+			this.next = first;
+			this.fence = fence;
+			this.descending = descending;
+		}
+
+		@Override
+		public final boolean hasNext() {
+			return this.next != null && this.next != this.fence;
+		}
+
+		/**
+		 * Return the next node and advance past it.
+		 * @return the next node.
+		 */
+		final Node<K, V> nextNode() {
+			if(!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			if(modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			Node<K, V> node = this.next;
+			this.next = this.descending ? predecessor(node) : successor(node);
+			this.lastReturned = node;
+			return node;
+		}
+
+		@Override
+		public final void remove() {
+			if(this.lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			if(modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			deleteNode(this.lastReturned); // nodes are relinked, not copied, so next stays valid.
+			this.lastReturned = null;
+			this.expectedModCount = modCount;
+		}
+	}
+
+	/**
+	 * Iterator over the live entries.
+	 */
+	private final class EntryIterator extends NodeIterator<Map.Entry<K, V>> {
+		EntryIterator(Node<K, V> first, Node<K, V> fence, boolean descending) {
+			super(first, fence, descending);
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			return this.nextNode();
+		}
+	}
+
+	/**
+	 * Iterator over the keys.
+	 */
+	private final class KeyIterator extends NodeIterator<K> {
+		KeyIterator(Node<K, V> first, Node<K, V> fence, boolean descending) {
+			super(first, fence, descending);
+		}
+
+		@Override
+		public K next() {
+			return this.nextNode().key;
+		}
+	}
+
+	/**
+	 * Returns the node holding a mapping equal to o, or null.
+	 * @param o candidate entry.
+	 * @return the matching node.
+	 */
+	final Node<K, V> nodeFor(Object o) {
+		if(!(o instanceof Map.Entry)) {
+			return null;
+		}
+		Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+		Node<K, V> node = this.getNode(entry.getKey());
+		if(node != null && Objects.equals(node.value, entry.getValue())) {
+			return node;
+		}
+		return null;
+	}
+
+	/**
+	 * Entry set of the whole map.
+	 */
+	private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+		@Override
+		public Iterator<Map.Entry<K, V>> iterator() {
+			return new EntryIterator(firstNode(), null, false);
+		}
+
+		@Override
+		public int size() {
+			return AVLMap.this.size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return nodeFor(o) != null;
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			Node<K, V> node = nodeFor(o);
+			if(node == null) {
+				return false;
+			}
+			deleteNode(node);
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			AVLMap.this.clear();
+		}
+	}
+
+	/**
+	 * Returns an iterator over the keys of the whole map.
+	 * @param descending iterate from the largest key.
+	 * @return a fail-fast key iterator.
+	 */
+	final Iterator<K> keyIterator(boolean descending) {
+		return new KeyIterator(descending ? this.lastNode() : this.firstNode(), null, descending);
+	}
+
+	/**
+	 * A view of the map between two optional bounds, ascending or descending. Navigation
+	 * is done on absolute (ascending) bounds and mirrored when the view is descending.
+	 */
+	private final class SubMap extends AbstractMap<K, V> implements NavigableMap<K, V> {
+		private final boolean fromStart;
+		private final K lo;
+		private final boolean loInclusive;
+		private final boolean toEnd;
+		private final K hi;
+		private final boolean hiInclusive;
+		private final boolean descending;
+		private EntrySetView entrySetView;
+
+		SubMap(boolean fromStart, K lo, boolean loInclusive, boolean toEnd, K hi, boolean hiInclusive,
+				boolean descending) {
+			this.fromStart = fromStart;
+			this.lo = lo;
+			this.loInclusive = loInclusive;
+			this.toEnd = toEnd;
+			this.hi = hi;
+			this.hiInclusive = hiInclusive;
+			this.descending = descending;
+		}
+
+		/* range checks */
+
+		private boolean tooLow(Object key) {
+			if(this.fromStart) {
+				return false;
+			}
+			int cmp = compare(key, this.lo);
+			return cmp < 0 || (cmp == 0 && !this.loInclusive);
+		}
+
+		private boolean tooHigh(Object key) {
+			if(this.toEnd) {
+				return false;
+			}
+			int cmp = compare(key, this.hi);
+			return cmp > 0 || (cmp == 0 && !this.hiInclusive);
+		}
+
+		private boolean inRange(Object key) {
+			return !this.tooLow(key) && !this.tooHigh(key);
+		}
+
+		/**
+		 * Whether a bound of a new view at key fits in this one. An exclusive bound may sit
+		 * on this view's own exclusive bound.
+		 */
+		private boolean inRange(Object key, boolean inclusive) {
+			if(inclusive) {
+				return this.inRange(key);
+			}
+			return (this.fromStart || compare(key, this.lo) >= 0) && (this.toEnd || compare(this.hi, key) >= 0);
+		}
+
+		/* absolute navigation, ascending order regardless of the view's direction */
+
+		private Node<K, V> absLowest() {
+			Node<K, V> node = this.fromStart ? firstNode() : ceilingNode(this.lo, this.loInclusive);
+			return (node == null || this.tooHigh(node.key)) ? null : node;
+		}
+
+		private Node<K, V> absHighest() {
+			Node<K, V> node = this.toEnd ? lastNode() : floorNode(this.hi, this.hiInclusive);
+			return (node == null || this.tooLow(node.key)) ? null : node;
+		}
+
+		private Node<K, V> absCeiling(Object key, boolean inclusive) {
+			if(this.tooLow(key)) {
+				return this.absLowest();
+			}
+			Node<K, V> node = ceilingNode(key, inclusive);
+			return (node == null || this.tooHigh(node.key)) ? null : node;
+		}
+
+		private Node<K, V> absFloor(Object key, boolean inclusive) {
+			if(this.tooHigh(key)) {
+				return this.absHighest();
+			}
+			Node<K, V> node = floorNode(key, inclusive);
+			return (node == null || this.tooLow(node.key)) ? null : node;
+		}
+
+		/** First node past the high end, where an ascending iteration stops. */
+		private Node<K, V> absHighFence() {
+			return this.toEnd ? null : ceilingNode(this.hi, !this.hiInclusive);
+		}
+
+		/** First node past the low end, where a descending iteration stops. */
+		private Node<K, V> absLowFence() {
+			return this.fromStart ? null : floorNode(this.lo, !this.loInclusive);
+		}
+
+		/* view-ordered navigation */
+
+		private Node<K, V> first() {
+			return this.descending ? this.absHighest() : this.absLowest();
+		}
+
+		private Node<K, V> last() {
+			return this.descending ? this.absLowest() : this.absHighest();
+		}
+
+		private Node<K, V> higher(Object key, boolean inclusive) {
+			return this.descending ? this.absFloor(key, inclusive) : this.absCeiling(key, inclusive);
+		}
+
+		private Node<K, V> lower(Object key, boolean inclusive) {
+			return this.descending ? this.absCeiling(key, inclusive) : this.absFloor(key, inclusive);
+		}
+
+		/**
+		 * Returns an iterator over the view's keys or entries in view order.
+		 * @param keys iterate keys instead of entries.
+		 * @param reversed iterate against the view's order.
+		 */
+		private NodeIterator<?> iterator(boolean keys, boolean reversed) {
+			boolean down = this.descending != reversed;
+			Node<K, V> first = down ? this.absHighest() : this.absLowest();
+			Node<K, V> fence = down ? this.absLowFence() : this.absHighFence();
+			if(keys) {
+				return new KeyIterator(first, fence, down);
+			}
+			return new EntryIterator(first, fence, down);
+		}
+
+		/* Map */
+
+		@Override
+		public int size() {
+			int count = 0;
+			for(Iterator<?> itr = this.iterator(true, false); itr.hasNext(); itr.next()) {
+				count++;
+			}
+			return count;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return this.absLowest() == null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return this.inRange(key) && AVLMap.this.containsKey(key);
+		}
+
+		@Override
+		public V get(Object key) {
+			return this.inRange(key) ? AVLMap.this.get(key) : null;
+		}
+
+		@Override
+		public V put(K key, V value) {
+			if(!this.inRange(key)) {
+				throw new IllegalArgumentException("key out of range");
+			}
+			return AVLMap.this.put(key, value);
+		}
+
+		@Override
+		public V remove(Object key) {
+			return this.inRange(key) ? AVLMap.this.remove(key) : null;
+		}
+
+		@Override
+		public Set<Map.Entry<K, V>> entrySet() {
+			if(this.entrySetView == null) {
+				this.entrySetView = new EntrySetView();
+			}
+			return this.entrySetView;
+		}
+
+		@Override
+		public Set<K> keySet() {
+			return this.navigableKeySet();
+		}
+
+		@Override
+		public Comparator<? super K> comparator() {
+			if(!this.descending) {
+				return comparator;
+			}
+			if(comparator == null) {
+				return Collections.reverseOrder();
+			}
+			return Collections.reverseOrder(comparator);
+		}
+
+		/* NavigableMap */
+
+		@Override
+		public Map.Entry<K, V> lowerEntry(K key) {
+			return export(this.lower(key, false));
+		}
+
+		@Override
+		public K lowerKey(K key) {
+			return keyOrNull(this.lower(key, false));
+		}
+
+		@Override
+		public Map.Entry<K, V> floorEntry(K key) {
+			return export(this.lower(key, true));
+		}
+
+		@Override
+		public K floorKey(K key) {
+			return keyOrNull(this.lower(key, true));
+		}
+
+		@Override
+		public Map.Entry<K, V> ceilingEntry(K key) {
+			return export(this.higher(key, true));
+		}
+
+		@Override
+		public K ceilingKey(K key) {
+			return keyOrNull(this.higher(key, true));
+		}
+
+		@Override
+		public Map.Entry<K, V> higherEntry(K key) {
+			return export(this.higher(key, false));
+		}
+
+		@Override
+		public K higherKey(K key) {
+			return keyOrNull(this.higher(key, false));
+		}
+
+		@Override
+		public Map.Entry<K, V> firstEntry() {
+			return export(this.first());
+		}
+
+		@Override
+		public Map.Entry<K, V> lastEntry() {
+			return export(this.last());
+		}
+
+		@Override
+		public K firstKey() {
+			return key(this.first());
+		}
+
+		@Override
+		public K lastKey() {
+			return key(this.last());
+		}
+
+		@Override
+		public Map.Entry<K, V> pollFirstEntry() {
+			return poll(this.first());
+		}
+
+		@Override
+		public Map.Entry<K, V> pollLastEntry() {
+			return poll(this.last());
+		}
+
+		@Override
+		public NavigableMap<K, V> descendingMap() {
+			return new SubMap(this.fromStart, this.lo, this.loInclusive, this.toEnd, this.hi, this.hiInclusive,
+					!this.descending);
+		}
+
+		@Override
+		public NavigableSet<K> navigableKeySet() {
+			return new KeySet<K>(this);
+		}
+
+		@Override
+		public NavigableSet<K> descendingKeySet() {
+			return new KeySet<K>(this.descendingMap());
+		}
+
+		@Override
+		public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+			if(!this.inRange(fromKey, fromInclusive) || !this.inRange(toKey, toInclusive)) {
+				throw new IllegalArgumentException("key out of range");
+			}
+			if(this.descending) {
+				if(compare(fromKey, toKey) < 0) {
+					throw new IllegalArgumentException("fromKey > toKey");
+				}
+				return new SubMap(false, toKey, toInclusive, false, fromKey, fromInclusive, true);
+			}
+			if(compare(fromKey, toKey) > 0) {
+				throw new IllegalArgumentException("fromKey > toKey");
+			}
+			return new SubMap(false, fromKey, fromInclusive, false, toKey, toInclusive, false);
+		}
+
+		@Override
+		public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+			if(!this.inRange(toKey, inclusive)) {
+				throw new IllegalArgumentException("key out of range");
+			}
+			if(this.descending) { // the head of a descending view is its high end.
+				return new SubMap(false, toKey, inclusive, this.toEnd, this.hi, this.hiInclusive, true);
+			}
+			return new SubMap(this.fromStart, this.lo, this.loInclusive, false, toKey, inclusive, false);
+		}
+
+		@Override
+		public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+			if(!this.inRange(fromKey, inclusive)) {
+				throw new IllegalArgumentException("key out of range");
+			}
+			if(this.descending) {
+				return new SubMap(this.fromStart, this.lo, this.loInclusive, false, fromKey, inclusive, true);
+			}
+			return new SubMap(false, fromKey, inclusive, this.toEnd, this.hi, this.hiInclusive, false);
+		}
+
+		@Override
+		public SortedMap<K, V> subMap(K fromKey, K toKey) {
+			return this.subMap(fromKey, true, toKey, false);
+		}
+
+		@Override
+		public SortedMap<K, V> headMap(K toKey) {
+			return this.headMap(toKey, false);
+		}
+
+		@Override
+		public SortedMap<K, V> tailMap(K fromKey) {
+			return this.tailMap(fromKey, true);
+		}
+
+		/**
+		 * Entry set of the view.
+		 */
+		private final class EntrySetView extends AbstractSet<Map.Entry<K, V>> {
+			@Override
+			@SuppressWarnings("unchecked")
+			public Iterator<Map.Entry<K, V>> iterator() {
+				return (Iterator<Map.Entry<K, V>>) SubMap.this.iterator(false, false);
+			}
+
+			@Override
+			public int size() {
+				return SubMap.this.size();
+			}
+
+			@Override
+			public boolean isEmpty() {
+				return SubMap.this.isEmpty();
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				Node<K, V> node = nodeFor(o);
+				return node != null && SubMap.this.inRange(node.key);
+			}
+
+			@Override
+			public boolean remove(Object o) {
+				Node<K, V> node = nodeFor(o);
+				if(node == null || !SubMap.this.inRange(node.key)) {
+					return false;
+				}
+				deleteNode(node);
+				return true;
+			}
+		}
+
+		/**
+		 * Returns an iterator over the view's keys.
+		 * @param reversed iterate against the view's order.
+		 */
+		@SuppressWarnings("unchecked")
+		Iterator<K> keyIterator(boolean reversed) {
+			return (Iterator<K>) this.iterator(true, reversed);
+		}
+	}
+
+	/**
+	 * NavigableSet of the keys of an AVLMap or one of its views, every call delegates to the
+	 * map.
+	 * @param <E> key type
+	 */
+	static final class KeySet<E> extends AbstractSet<E> implements NavigableSet<E> {
+		private final NavigableMap<E, ?> m;
+
+		KeySet(NavigableMap<E, ?> m) {
+			this.m = m;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Iterator<E> iterator() {
+			if(this.m instanceof AVLMap) {
+				return ((AVLMap<E, ?>) this.m).keyIterator(false);
+			}
+			return ((AVLMap<E, ?>.SubMap) this.m).keyIterator(false);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Iterator<E> descendingIterator() {
+			if(this.m instanceof AVLMap) {
+				return ((AVLMap<E, ?>) this.m).keyIterator(true);
+			}
+			return ((AVLMap<E, ?>.SubMap) this.m).keyIterator(true);
+		}
+
+		@Override
+		public int size() {
+			return this.m.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return this.m.isEmpty();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return this.m.containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if(!this.m.containsKey(o)) {
+				return false;
+			}
+			this.m.remove(o);
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			this.m.clear();
+		}
+
+		@Override
+		public Comparator<? super E> comparator() {
+			return this.m.comparator();
+		}
+
+		@Override
+		public E first() {
+			return this.m.firstKey();
+		}
+
+		@Override
+		public E last() {
+			return this.m.lastKey();
+		}
+
+		@Override
+		public E lower(E e) {
+			return this.m.lowerKey(e);
+		}
+
+		@Override
+		public E floor(E e) {
+			return this.m.floorKey(e);
+		}
+
+		@Override
+		public E ceiling(E e) {
+			return this.m.ceilingKey(e);
+		}
+
+		@Override
+		public E higher(E e) {
+			return this.m.higherKey(e);
+		}
+
+		@Override
+		public E pollFirst() {
+			Map.Entry<E, ?> entry = this.m.pollFirstEntry();
+			return (entry == null) ? null : entry.getKey();
+		}
+
+		@Override
+		public E pollLast() {
+			Map.Entry<E, ?> entry = this.m.pollLastEntry();
+			return (entry == null) ? null : entry.getKey();
+		}
+
+		@Override
+		public NavigableSet<E> descendingSet() {
+			return new KeySet<E>(this.m.descendingMap());
+		}
+
+		@Override
+		public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+			return new KeySet<E>(this.m.subMap(fromElement, fromInclusive, toElement, toInclusive));
+		}
+
+		@Override
+		public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+			return new KeySet<E>(this.m.headMap(toElement, inclusive));
+		}
+
+		@Override
+		public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+			return new KeySet<E>(this.m.tailMap(fromElement, inclusive));
+		}
+
+		@Override
+		public SortedSet<E> subSet(E fromElement, E toElement) {
+			return this.subSet(fromElement, true, toElement, false);
+		}
+
+		@Override
+		public SortedSet<E> headSet(E toElement) {
+			return this.headSet(toElement, false);
+		}
+
+		@Override
+		public SortedSet<E> tailSet(E fromElement) {
+			return this.tailSet(fromElement, true);
+		}
+	}
+}
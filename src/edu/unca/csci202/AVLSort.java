@@ -1,51 +1,296 @@
 package edu.unca.csci202;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class AVLSort<T extends Comparable<T>> extends SortingAlgorithm<T> {
+	private static final int MIN_PARTITION = 1 << 12; // smallest partition worth a tree of its own.
 	private AVLTree<T> tree;
-	private LinkedList<T> list;
 	private boolean debug;
+	private boolean multiset;
 	private int numberOfEdgesFollowed;
+	private int numberOfPartitions;
 
 	
 	public AVLSort() {
-		this.list = new LinkedList<T>();
 		this.tree = new AVLTree<T>();
 		this.debug = false;
 		this.numberOfEdgesFollowed=0;
 	}
 	public AVLSort(boolean debug) {
-		this.list = new LinkedList<T>();
 		this.tree = new AVLTree<T>();
 		this.debug = debug;
 		this.numberOfEdgesFollowed=0;
 	}
+	/**
+	 * Sort through a multiset AVLTree, so repeated values share one node and the tree
+	 * height depends only on the number of distinct values.
+	 * @param debug print the tree in printStats.
+	 * @param multiset store duplicates as counts.
+	 */
+	public AVLSort(boolean debug, boolean multiset) {
+		this.tree = new AVLTree<T>(multiset);
+		this.debug = debug;
+		this.multiset = multiset;
+		this.numberOfEdgesFollowed=0;
+	}
 	
 	public BinarySearchTreeADT<T> getTree() {
 		return this.tree;
 	}
-	public void addToBack(T element) {
-		this.list.add(element);
+	
+	/**
+	 * Return the number of edges followed by the inserts of the last sort.
+	 * @return the number of edges followed.
+	 */
+	public int getNumberOfEdgesFollowed() {
+		return this.numberOfEdgesFollowed;
+	}
+	
+	/**
+	 * Record the sort's counters and the tree's comparisons, rotations and latencies in
+	 * metrics, also for the trees created by clear().
+	 * @param metrics metrics to record into, null to stop recording.
+	 */
+	public void setMetrics(TreeMetrics metrics) {
+		super.setMetrics(metrics);
+		this.tree.setMetrics(metrics);
+	}
+	
+	/**
+	 * Sort an int array in place through an IntAVLTree, without boxing the keys.
+	 * @param array array to sort.
+	 * @return the number of edges followed by the inserts.
+	 */
+	public static long sort(int[] array) {
+		IntAVLTree tree = new IntAVLTree(array.length);
+		long edges = 0;
+		for(int key : array) {
+			edges += tree.insert(key);
+		}
+		PrimitiveIterator.OfInt itr = tree.iterator();
+		for(int i = 0; i < array.length; i++) {
+			array[i] = itr.nextInt();
+		}
+		return edges;
+	}
+	
+	/**
+	 * Sort a long array in place through a LongAVLTree, without boxing the keys.
+	 * @param array array to sort.
+	 * @return the number of edges followed by the inserts.
+	 */
+	public static long sort(long[] array) {
+		LongAVLTree tree = new LongAVLTree(array.length);
+		long edges = 0;
+		for(long key : array) {
+			edges += tree.insert(key);
+		}
+		PrimitiveIterator.OfLong itr = tree.iterator();
+		for(int i = 0; i < array.length; i++) {
+			array[i] = itr.nextLong();
+		}
+		return edges;
 	}
 
+	/**
+	 * Insert the buffer into the tree. The comparisons of the insert descents are counted in
+	 * getNumberOfComparisons, one per edge followed plus one where the insert attached or
+	 * matched. They are made inside the tree, so only the edges are published to the
+	 * metrics; the tree's own search counts already hold the comparisons.
+	 */
 	public void sort(){
-		Iterator<T> itr = this.list.iterator();
-		while(itr.hasNext()) {
-			this.numberOfEdgesFollowed += this.tree.insert(itr.next());
+		int edges = 0;
+		long comparisons = 0;
+		for(int i = 0; i < this.count; i++) {
+			boolean empty = this.tree.isEmpty();
+			int followed = this.tree.insert(this.get(i));
+			edges += followed;
+			comparisons += comparisons(followed, empty);
+		}
+		this.numberOfEdgesFollowed += edges;
+		this.numberOfComparisons += comparisons;
+		this.publish(0, 0, edges);
+		this.numberOfPartitions = 1;
+	}
+	
+	/**
+	 * Sort on the common ForkJoinPool.
+	 * @see #sortParallel(ForkJoinPool)
+	 */
+	public void sortParallel() {
+		this.sortParallel(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Sort with one partition per worker of pool. Each partition of the buffer is inserted
+	 * into its own AVLTree in parallel, the In-Order iterators and the tree's current contents
+	 * are k-way merged, and the merged sequence is built into the tree with AVLTree.fromSorted,
+	 * so the tree ends up holding the same elements as after sort(). The edges followed are
+	 * summed over the partitions, and getNumberOfComparisons counts the comparisons of the
+	 * partition inserts, as sort() does, plus those of the merge. Only the merge comparisons
+	 * are published to the metrics, the partition trees record their own.
+	 * @param pool pool to build the partition trees on.
+	 */
+	public void sortParallel(ForkJoinPool pool) {
+		int partitions = Math.max(1, Math.min(pool.getParallelism(), this.count / MIN_PARTITION));
+		if(partitions == 1) {
+			this.sort(); // not worth the merge.
+			return;
+		}
+		PartitionTask task = new PartitionTask(partitions);
+		pool.invoke(task);
+		int followed = 0;
+		for(int edges : task.edges) {
+			followed += edges;
+		}
+		this.numberOfEdgesFollowed += followed;
+		for(long comparisons : task.comparisons) {
+			this.numberOfComparisons += comparisons;
 		}
+		long comparisonsBefore = this.numberOfComparisons; // the merge's start here.
 		
+		// k-way merge, the queue holds the head of each partition.
+		PriorityQueue<Run<T>> heads = new PriorityQueue<Run<T>>(partitions, (a, b) -> {
+			this.numberOfComparisons++;
+			return a.head.compareTo(b.head);
+		});
+		List<AVLTree<T>> runs = new ArrayList<AVLTree<T>>(Arrays.asList(task.trees));
+		runs.add(this.tree); // elements from earlier sorts stay, as they do in sort().
+		for(AVLTree<T> partition : runs) {
+			Run<T> run = new Run<T>(partition.iteratorInOrder());
+			if(run.advance()) {
+				heads.add(run);
+			}
+		}
+		ArrayList<T> merged = new ArrayList<T>(this.count + this.tree.size());
+		while(!heads.isEmpty()) {
+			Run<T> run = heads.remove();
+			merged.add(run.head);
+			if(run.advance()) {
+				heads.add(run); // re-enter with its next element.
+			}
+		}
+		this.tree = AVLTree.fromSorted(merged, this.multiset);
+		this.tree.setMetrics(this.metrics);
+		this.publish(this.numberOfComparisons - comparisonsBefore, 0, followed);
+		this.numberOfPartitions = partitions;
+	}
+	
+	/**
+	 * Return the comparisons an AVLTree insert made: one per edge followed, plus one where
+	 * it attached the new node or matched a counted duplicate.
+	 * @param edges edges the insert followed.
+	 * @param empty whether the tree was empty before the insert.
+	 * @return the number of comparisons.
+	 */
+	private static long comparisons(int edges, boolean empty) {
+		return empty ? 0 : edges + 1;
+	}
+	
+	/**
+	 * Return the number of partition trees built by the last sort, 1 for a sequential sort.
+	 * @return the number of partitions.
+	 */
+	public int getNumberOfPartitions() {
+		return this.numberOfPartitions;
+	}
+	
+	/**
+	 * Builds the tree for each partition of the buffer, forking halves of the partition range.
+	 */
+	private class PartitionTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final AVLTree<T>[] trees;
+		private final int[] edges;
+		private final long[] comparisons;
+		private final int lo;
+		private final int hi;
+		
+		@SuppressWarnings("unchecked")
+		PartitionTask(int partitions) {
+			this.trees = (AVLTree<T>[]) new AVLTree<?>[partitions];
+			this.edges = new int[partitions];
+			this.comparisons = new long[partitions];
+			this.lo = 0;
+			this.hi = partitions;
+		}
+		
+		PartitionTask(PartitionTask parent, int lo, int hi) {
+			this.trees = parent.trees;
+			this.edges = parent.edges;
+			this.comparisons = parent.comparisons;
+			this.lo = lo;
+			this.hi = hi;
+		}
+		
+		@Override
+		protected void compute() {
+			if(this.hi - this.lo > 1) {
+				int mid = (this.lo + this.hi) >>> 1;
+				invokeAll(new PartitionTask(this, this.lo, mid), new PartitionTask(this, mid, this.hi));
+				return;
+			}
+			int from = (int) ((long) count * this.lo / this.trees.length);
+			int to = (int) ((long) count * this.hi / this.trees.length);
+			AVLTree<T> partition = new AVLTree<T>(multiset);
+			partition.setMetrics(metrics);
+			int followed = 0;
+			long compared = 0;
+			for(int i = from; i < to; i++) {
+				boolean empty = partition.isEmpty();
+				int edges = partition.insert(AVLSort.this.get(i));
+				followed += edges;
+				compared += comparisons(edges, empty);
+			}
+			this.trees[this.lo] = partition;
+			this.edges[this.lo] = followed;
+			this.comparisons[this.lo] = compared;
+		}
+	}
+	
+	/**
+	 * One partition's In-Order sequence during the merge, with its current element.
+	 * @param <R> generic type
+	 */
+	private static class Run<R> {
+		private final Iterator<R> rest;
+		private R head;
+		
+		Run(Iterator<R> rest) {
+			this.rest = rest;
+		}
+		
+		/**
+		 * Move head to the next element.
+		 * @return false if the partition is exhausted.
+		 */
+		boolean advance() {
+			if(!this.rest.hasNext()) {
+				return false;
+			}
+			this.head = this.rest.next();
+			return true;
+		}
 	}
 	
 	public void clear() {
-		this.list.clear();
-		this.tree = new AVLTree<T>();
+		super.clear();
+		this.tree = new AVLTree<T>(this.multiset);
+		this.tree.setMetrics(this.metrics);
 		this.numberOfEdgesFollowed=0;
+		this.numberOfPartitions=0;
 	}
 	
 	public void printStats() {
 		System.out.print("numberOfEdgesFollowed="+this.numberOfEdgesFollowed);
+		if(this.numberOfPartitions > 1) System.out.print("  partitions="+this.numberOfPartitions);
 		System.out.print("  size="+this.tree.size());
 		System.out.println("  heightOfTree="+this.tree.height());
 		if(this.debug) System.out.println(this.tree);
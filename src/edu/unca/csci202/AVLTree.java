@@ -1,9 +1,24 @@
 package edu.unca.csci202;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
 
 /**
  * AVLTree implementation, implements BinarySearchTreeADT<T>.
@@ -23,6 +38,8 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 	private class Node<N extends Comparable<N>> {
 		private N data;
 		private int height;
+		private int size; // number of elements in the subtree rooted here, counting duplicates.
+		private int count; // occurrences of data, above 1 only in multiset mode.
 		private Node<N> parent;
 		private Node<N> left;
 		private Node<N> right;
@@ -30,6 +47,9 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 		/* constructors */
 		public Node (N data) {
 			this.data = data;
+			this.height = 1; // a lone node is a leaf.
+			this.size = 1;
+			this.count = 1;
 			this.parent = null;
 			this.left = null;
 			this.right = null;
@@ -52,6 +72,20 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 			this.height = 1 + Math.max(leftHeight, rightHeight); 
 		}
 		
+		/**
+		 * Update the value of this Node's size data field from its children.
+		 */
+		public void updateSize() {
+			int size = this.count;
+			if(this.left != null) {
+				size += this.left.size;
+			}
+			if(this.right != null) {
+				size += this.right.size;
+			}
+			this.size = size;
+		}
+		
 		/**
 		 * Return the balance factor of this node as an int.
 		 * @return the balance factor of this node as an int.
@@ -73,17 +107,194 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 	/* instance variables */
 	private Node<T> root;
 	private int size;
+	private int modCount; // structural modifications, checked by iterators.
+	private TreeMetrics metrics; // null unless instrumentation is enabled.
+	private final boolean multiset; // duplicates bump a node's count instead of adding nodes.
+	private int epoch; // bumped when bulk operations move nodes, cursors from before restart at the root.
+	private Cursor lastAccess; // finger for insert, find and contains, null unless enabled.
 	
 	/* constructors */
 	public AVLTree() {
+		this(false);
+	}
+	
+	/**
+	 * Create an empty tree. In multiset mode each distinct element gets one node carrying
+	 * an occurrence count: insert and delete of an element already present only change the
+	 * count, and iteration repeats the element count times. Memory and height then depend
+	 * on the number of distinct elements rather than the total.
+	 * @param multiset true for counted duplicates, false for one node per insert.
+	 */
+	public AVLTree(boolean multiset) {
 		super();
 		this.root = null; // create an empty tree.
 		this.size = 0;
+		this.multiset = multiset;
 	}
 	
 	public AVLTree(T data) {
 		this.root = new Node<T>(data); // new tree with only a root node.
 		this.size = 1;
+		this.multiset = false;
+	}
+	
+	/**
+	 * Return whether this tree counts duplicates in place.
+	 * @return true in multiset mode.
+	 */
+	public boolean isMultiset() {
+		return this.multiset;
+	}
+	
+	/**
+	 * Build a perfectly balanced AVLTree from elements already in non-decreasing order, in
+	 * O(n) time with no comparisons beyond the order check and no rotations.
+	 * @param elements elements in non-decreasing order.
+	 * @return a new AVLTree holding elements.
+	 * @throws IllegalArgumentException if elements are not in non-decreasing order.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> fromSorted(T[] elements) {
+		return fromSorted(Arrays.asList(elements));
+	}
+	
+	/**
+	 * Build a perfectly balanced AVLTree from elements already in non-decreasing order, in
+	 * O(n) time with no rotations. Non-list input is copied into an ArrayList first.
+	 * @param elements elements in non-decreasing order.
+	 * @return a new AVLTree holding elements.
+	 * @throws IllegalArgumentException if elements are not in non-decreasing order.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> fromSorted(Iterable<? extends T> elements) {
+		return fromSorted(elements, false);
+	}
+	
+	/**
+	 * Build a perfectly balanced AVLTree from elements already in non-decreasing order, in
+	 * O(n) time with no rotations. In multiset mode each run of equal elements becomes one
+	 * counted node, so the height depends only on the number of distinct elements.
+	 * @param elements elements in non-decreasing order.
+	 * @param multiset build a multiset tree, see AVLTree(boolean).
+	 * @return a new AVLTree holding elements.
+	 * @throws IllegalArgumentException if elements are not in non-decreasing order.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> fromSorted(Iterable<? extends T> elements, boolean multiset) {
+		List<? extends T> list;
+		if(elements instanceof List && elements instanceof RandomAccess) {
+			list = (List<? extends T>) elements;
+		} else {
+			ArrayList<T> copy = new ArrayList<T>();
+			for(T element : elements) {
+				copy.add(element);
+			}
+			list = copy;
+		}
+		for(int i = 1; i < list.size(); i++) {
+			if(list.get(i - 1).compareTo(list.get(i)) > 0) {
+				throw new IllegalArgumentException("elements are not sorted at index " + i);
+			}
+		}
+		AVLTree<T> tree = new AVLTree<T>(multiset);
+		tree.size = list.size();
+		int[] counts = null;
+		if(multiset) {
+			ArrayList<T> distinct = new ArrayList<T>();
+			counts = new int[list.size()];
+			for(T element : list) {
+				int last = distinct.size() - 1;
+				if(last >= 0 && distinct.get(last).compareTo(element) == 0) {
+					counts[last]++; // another copy of the previous element.
+				} else {
+					distinct.add(element);
+					counts[last + 1] = 1;
+				}
+			}
+			list = distinct;
+		}
+		tree.root = tree.build(list, counts, 0, list.size());
+		return tree;
+	}
+	
+	/**
+	 * Build a perfectly balanced AVLTree from elements in any order by sorting a copy of
+	 * them first, O(n log n) comparisons but still no per-element descents or rotations.
+	 * @param elements elements in any order.
+	 * @return a new AVLTree holding elements.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> fromUnsorted(Collection<? extends T> elements) {
+		ArrayList<T> copy = new ArrayList<T>(elements);
+		Collections.sort(copy);
+		return fromSorted(copy);
+	}
+	
+	/**
+	 * Build a perfectly balanced AVLTree from elements in any order by sorting a copy of
+	 * them first. The array passed in is not modified.
+	 * @param elements elements in any order.
+	 * @return a new AVLTree holding elements.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> fromUnsorted(T[] elements) {
+		return fromUnsorted(Arrays.asList(elements));
+	}
+	
+	/**
+	 * Recursively links the middle element of list[lo, hi) above balanced subtrees built from
+	 * each half, setting heights, sizes and parent links on the way back up.
+	 * @param list sorted elements.
+	 * @param counts occurrences of each element of list, null if every element occurs once.
+	 * @param lo first index of the range, inclusive.
+	 * @param hi last index of the range, exclusive.
+	 * @return the root of the built subtree, null for an empty range.
+	 */
+	private Node<T> build(List<? extends T> list, int[] counts, int lo, int hi) {
+		if(lo >= hi) {
+			return null;
+		}
+		int mid = (lo + hi) >>> 1;
+		Node<T> node = new Node<T>(list.get(mid));
+		if(counts != null) {
+			node.count = counts[mid];
+		}
+		node.left = this.build(list, counts, lo, mid);
+		node.right = this.build(list, counts, mid + 1, hi);
+		if(node.left != null) {
+			node.left.parent = node;
+		}
+		if(node.right != null) {
+			node.right.parent = node;
+		}
+		node.updateHeight();
+		node.updateSize();
+		return node;
+	}
+	
+	/**
+	 * Write the tree to path as a snapshot file, in In-Order, replacing any existing file.
+	 * The file is versioned and checksummed, see SnapshotFile for the layout. It is written
+	 * to a temporary sibling and moved into place, so a failed save keeps the old snapshot.
+	 * @param path file to write.
+	 * @param codec codec for the elements.
+	 * @throws IOException if the file can't be written.
+	 */
+	public void saveSnapshot(Path path, KeyCodec<T> codec) throws IOException {
+		SnapshotFile.replace(path, this.iteratorInOrder(), this.size, codec);
+	}
+	
+	/**
+	 * Load a snapshot written by saveSnapshot. The file is memory-mapped and the tree is
+	 * rebuilt with fromSorted, so loading is O(n) with no per-element rebalancing.
+	 * @param path file to read.
+	 * @param codec codec the snapshot was written with.
+	 * @return a new tree holding the snapshot's elements.
+	 * @throws IOException if the file can't be read, is corrupt, or was written with a
+	 * different codec.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> loadSnapshot(Path path, KeyCodec<T> codec) throws IOException {
+		ArrayList<T> elements = SnapshotFile.read(path, codec);
+		try {
+			return fromSorted(elements);
+		} catch(IllegalArgumentException e) {
+			throw new IOException(path + ": elements are out of order", e);
+		}
 	}
 	
 	@Override
@@ -109,51 +320,102 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 	
 	@Override
 	public boolean contains(T targetElement) {
-		T temp = this.find(targetElement);
-		return temp != null;
+		Cursor finger = this.lastAccess;
+		if(finger != null) {
+			return finger.contains(targetElement);
+		}
+		TreeMetrics metrics = this.metrics;
+		if(metrics == null) {
+			return this.find(this.root, targetElement) != null;
+		}
+		long start = System.nanoTime();
+		boolean found = this.findMeasured(targetElement, metrics) != null;
+		metrics.recordLatency(System.nanoTime() - start);
+		return found;
 	}
 
 	
 	@Override
 	public T find(T targetElement) {
-		if(!isEmpty()) {
-			Node<T> node = this.find(this.root, targetElement);
-			try {
-				return node.data;
-			} catch (NullPointerException e) {
-				return null;
-			}
+		Cursor finger = this.lastAccess;
+		if(finger != null) {
+			return finger.find(targetElement);
+		}
+		TreeMetrics metrics = this.metrics;
+		if(metrics != null) {
+			long start = System.nanoTime();
+			Node<T> node = this.findMeasured(targetElement, metrics);
+			metrics.recordLatency(System.nanoTime() - start);
+			return this.data(node);
+		}
+		Node<T> node = this.find(this.root, targetElement);
+		if(node != null) {
+			return node.data;
 		}
 		return null;
 	}
 
 	/**
-	 * private helper method that goes through each node in the AVLTree (recursivly) and
-	 * compares the targetElement with the node. Returns the node equal to the target element,
-	 * null otherwise.
-	 * @param node node to compare targetElement with
+	 * private helper method that descends from node towards targetElement using compareTo,
+	 * following a single root-to-leaf path without recursion. Returns the first node equal
+	 * to the target element, null otherwise.
+	 * @param node root of the subtree to search (may be null).
 	 * @param targetElement element to find.
 	 * @return The node that's equal to target element in the AVLTree. returns null otherwise.
 	 */
 	private Node<T> find(Node<T> node, T targetElement) {
-		if(node.data.equals(targetElement)) {
-			return node; // found it, return
-		}
-		
-		Node<T> temp;
-		if(node.left != null) {
-			temp = find(node.left, targetElement); // recurse left
-			if(temp != null) {
-				return temp;
+		while(node != null) {
+			int cmp = targetElement.compareTo(node.data);
+			if(cmp == 0) {
+				return node; // found it, return
+			} else if(cmp < 0) {
+				node = node.left; // target < node.
+			} else {
+				node = node.right; // target > node.
 			}
 		}
-		if(node.right != null) {
-			temp = find(node.right, targetElement); // recurse right
-			if(temp != null) {
-				return temp;
+		return null; // not found in our sub tree
+	}
+	
+	/**
+	 * Same descent as find(Node, T) from the root, also recording its path in metrics. Kept
+	 * separate so the uninstrumented descent carries no counters.
+	 * @param targetElement element to find.
+	 * @param metrics metrics to record into.
+	 * @return The node that's equal to target element in the AVLTree. returns null otherwise.
+	 */
+	private Node<T> findMeasured(T targetElement, TreeMetrics metrics) {
+		Node<T> node = this.root;
+		int comparisons = 0;
+		int edges = 0;
+		while(node != null) {
+			int cmp = targetElement.compareTo(node.data);
+			comparisons++;
+			if(cmp == 0) {
+				break; // found it.
 			}
+			node = (cmp < 0) ? node.left : node.right;
+			edges++;
 		}
-		return null; // not found in our sub tree
+		metrics.recordSearch(edges, comparisons);
+		return node;
+	}
+	
+	/**
+	 * Attach instrumentation to this tree, or detach it with null. While detached, every
+	 * operation skips recording after a single null check.
+	 * @param metrics metrics to record into, may be shared between trees.
+	 */
+	public void setMetrics(TreeMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Return the attached instrumentation.
+	 * @return the metrics, null if none are attached.
+	 */
+	public TreeMetrics getMetrics() {
+		return this.metrics;
 	}
 
 
@@ -165,121 +427,1163 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 	
 	@Override
 	public Iterator<T> iteratorInOrder() {
-		LinkedList<T> list = new LinkedList<T>();
-		this.traverseInOrder(this.root, list);
-		return list.iterator();
+		return new InOrderIterator();
+	}
+
+	@Override
+	public Iterator<T> iteratorPreOrder() {
+		return new PreOrderIterator();
+	}
+
+	@Override
+	public Iterator<T> iteratorPostOrder() {
+		return new PostOrderIterator();
+	}
+
+	@Override
+	public Iterator<T> iteratorLevelOrder() {
+		return new LevelOrderIterator();
 	}
 	
 	/**
-	 * Performs a In-Order tree traversal recursivly.
-	 * @param node the starting node.
-	 * @param list a LinkedList to add the nodes too.
+	 * Base class for the lazy traversal iterators. Each iterator walks the tree on demand
+	 * and fails fast with a ConcurrentModificationException if the tree is modified
+	 * after the iterator was created.
 	 */
-	private void traverseInOrder(Node<T> node, LinkedList<T> list) {
-		// check base case
-		if(node != null) {
-			this.traverseInOrder(node.left, list);// recurse 
-			list.add(node.data); // visit node
-			this.traverseInOrder(node.right, list);// recurse right
+	private abstract class TreeIterator implements Iterator<T> {
+		private final int expectedModCount = modCount;
+		private Node<T> current; // last node returned.
+		private int repeats; // copies of current still to return, multiset mode only.
+		
+		/**
+		 * Return true if the traversal has another node.
+		 * @return true if the traversal has another node.
+		 */
+		protected abstract boolean hasNextNode();
+		
+		/**
+		 * Return the next node in this traversal and advance past it.
+		 * @return the next node in this traversal.
+		 */
+		protected abstract Node<T> nextNode();
+		
+		@Override
+		public boolean hasNext() {
+			return this.repeats > 0 || this.hasNextNode();
+		}
+		
+		@Override
+		public T next() {
+			if(modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			if(this.repeats > 0) {
+				this.repeats--;
+			} else {
+				this.current = this.nextNode();
+				this.repeats = this.current.count - 1;
+			}
+			return this.current.data;
 		}
 	}
-
+	
+	/**
+	 * In-Order iterator that follows parent links to the successor, so it needs no stack.
+	 */
+	private class InOrderIterator extends TreeIterator {
+		private Node<T> next = (root == null) ? null : minimum(root);
+		
+		@Override
+		protected boolean hasNextNode() {
+			return this.next != null;
+		}
+		
+		@Override
+		protected Node<T> nextNode() {
+			Node<T> node = this.next;
+			this.next = successor(node);
+			return node;
+		}
+	}
+	
+	/**
+	 * Pre-Order iterator, the stack holds at most one pending right child per level.
+	 */
+	private class PreOrderIterator extends TreeIterator {
+		private final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+		
+		PreOrderIterator() {
+			if(root != null) {
+				this.stack.push(root);
+			}
+		}
+		
+		@Override
+		protected boolean hasNextNode() {
+			return !this.stack.isEmpty();
+		}
+		
+		@Override
+		protected Node<T> nextNode() {
+			Node<T> node = this.stack.pop(); // visit node
+			if(node.right != null) {
+				this.stack.push(node.right); // right is visited after the left subtree.
+			}
+			if(node.left != null) {
+				this.stack.push(node.left);
+			}
+			return node;
+		}
+	}
+	
+	/**
+	 * Post-Order iterator, the stack holds the path from the root to the next node.
+	 */
+	private class PostOrderIterator extends TreeIterator {
+		private final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+		
+		PostOrderIterator() {
+			this.pushFirstLeaf(root);
+		}
+		
+		/**
+		 * Push the path down to the first node visited in node's subtree.
+		 * @param node starting node.
+		 */
+		private void pushFirstLeaf(Node<T> node) {
+			while(node != null) {
+				this.stack.push(node);
+				node = (node.left != null) ? node.left : node.right; // prefer left.
+			}
+		}
+		
+		@Override
+		protected boolean hasNextNode() {
+			return !this.stack.isEmpty();
+		}
+		
+		@Override
+		protected Node<T> nextNode() {
+			Node<T> node = this.stack.pop(); // both subtrees are done, visit node.
+			if(!this.stack.isEmpty() && this.stack.peek().left == node) {
+				this.pushFirstLeaf(this.stack.peek().right); // right sibling is next.
+			}
+			return node;
+		}
+	}
+	
+	/**
+	 * Level-Order iterator, the queue holds at most one level of the tree.
+	 */
+	private class LevelOrderIterator extends TreeIterator {
+		private final Queue<Node<T>> work = new ArrayDeque<Node<T>>();
+		
+		LevelOrderIterator() {
+			if(root != null) {
+				this.work.add(root); // start off with the root node.
+			}
+		}
+		
+		@Override
+		protected boolean hasNextNode() {
+			return !this.work.isEmpty();
+		}
+		
+		@Override
+		protected Node<T> nextNode() {
+			Node<T> node = this.work.remove(); // pop the first.
+			// enqueue the children on this node.
+			if(node.left != null) {
+				this.work.add(node.left);
+			}
+			if(node.right != null) {
+				this.work.add(node.right);
+			}
+			return node;
+		}
+	}
+	
+	/**
+	 * Returns the In-Order successor of node using parent links.
+	 * @param node starting node.
+	 * @return the next node In-Order, null if node is the maximum.
+	 */
+	private Node<T> successor(Node<T> node) {
+		if(node.right != null) {
+			return minimum(node.right); // leftmost node of the right subtree.
+		}
+		Node<T> parent = node.parent;
+		while(parent != null && node == parent.right) {
+			node = parent; // climb while we are a right child.
+			parent = parent.parent;
+		}
+		return parent;
+	}
+	
+	/**
+	 * Returns the In-Order predecessor of node using parent links.
+	 * @param node starting node.
+	 * @return the previous node In-Order, null if node is the minimum.
+	 */
+	private Node<T> predecessor(Node<T> node) {
+		if(node.left != null) {
+			return maximum(node.left); // rightmost node of the left subtree.
+		}
+		Node<T> parent = node.parent;
+		while(parent != null && node == parent.left) {
+			node = parent; // climb while we are a left child.
+			parent = parent.parent;
+		}
+		return parent;
+	}
+	
+	/**
+	 * Returns an iterator over the elements in descending order.
+	 * @return an iterator over the elements in descending order.
+	 */
+	public Iterator<T> descendingIterator() {
+		return new RangeIterator(null, false, null, false, true);
+	}
+	
+	/**
+	 * Spliterator over the elements In-Order that splits by rank using the subtree sizes:
+	 * each split hands off the first half of its range, found with one descent, so both
+	 * halves know their exact size and parallel streams get balanced work. It fails fast
+	 * like the iterators. DISTINCT is not reported because the tree allows duplicates.
+	 * @return a spliterator over the elements In-Order.
+	 */
 	@Override
-	public Iterator<T> iteratorPreOrder() {
-		LinkedList<T> list = new LinkedList<T>();
-		this.traversePreOrder(this.root, list);
-		return list.iterator();
+	public Spliterator<T> spliterator() {
+		return new TreeSpliterator(0, this.size, (this.root == null) ? null : minimum(this.root), 0);
+	}
+	
+	/**
+	 * Spliterator over the elements with ranks in [index, fence), walked with successor.
+	 */
+	private class TreeSpliterator implements Spliterator<T> {
+		private final int expectedModCount = modCount;
+		private int index;
+		private final int fence;
+		private Node<T> next; // node at rank index, null until needed after a split.
+		private int offset; // occurrences of next before rank index, multiset mode only.
+		
+		TreeSpliterator(int index, int fence, Node<T> next, int offset) {
+			this.index = index;
+			this.fence = fence;
+			this.next = next;
+			this.offset = offset;
+		}
+		
+		@Override
+		public Spliterator<T> trySplit() {
+			int mid = (this.index + this.fence) >>> 1;
+			if(mid <= this.index || modCount != this.expectedModCount) {
+				return null;
+			}
+			TreeSpliterator prefix = new TreeSpliterator(this.index, mid, this.next, this.offset);
+			this.index = mid;
+			this.next = null; // found with selectNode when first needed.
+			return prefix;
+		}
+		
+		/**
+		 * Return the node at rank index, locating it after a split.
+		 * @return the node holding the element at rank index.
+		 */
+		private Node<T> position() {
+			if(this.next == null) {
+				this.next = selectNode(this.index);
+				this.offset = this.index - rankOf(this.next);
+			}
+			return this.next;
+		}
+		
+		/**
+		 * Step past one element of node.
+		 * @param node node at rank index.
+		 */
+		private void advance(Node<T> node) {
+			this.index++;
+			if(++this.offset == node.count) {
+				this.next = successor(node);
+				this.offset = 0;
+			}
+		}
+		
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if(modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(this.index >= this.fence) {
+				return false;
+			}
+			Node<T> node = this.position();
+			this.advance(node);
+			action.accept(node.data);
+			return true;
+		}
+		
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			while(this.index < this.fence) {
+				if(modCount != this.expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				Node<T> node = this.position();
+				this.advance(node);
+				action.accept(node.data);
+			}
+		}
+		
+		@Override
+		public long estimateSize() {
+			return this.fence - this.index;
+		}
+		
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL
+					| Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+		
+		@Override
+		public Comparator<? super T> getComparator() {
+			return null; // natural order.
+		}
+	}
+	
+	/**
+	 * Insert into the AVL Tree.
+	 * @param element element to insert
+	 * @return number edges traversed to insert this element.
+	 */
+	public int insert(T element) {
+		Cursor finger = this.lastAccess;
+		if(finger != null) {
+			return finger.insert(element);
+		}
+		TreeMetrics metrics = this.metrics;
+		long start = (metrics != null) ? System.nanoTime() : 0L;
+		size++;
+		modCount++;
+		int numOfEdgesFollwed = 0;
+		
+		Node<T> node = new Node<T>(element);
+		Node<T> var = this.root; // loop variable.
+		Node<T> parent = null; // trailing parent node.
+		while(var != null) {
+			parent = var;
+			var.size++; // the new node lands in var's subtree.
+			int cmp = node.data.compareTo(var.data);
+			if(cmp == 0 && this.multiset) {
+				var.count++; // counted duplicate, no new node and no rebalancing.
+				if(metrics != null) {
+					metrics.recordSearch(numOfEdgesFollwed, numOfEdgesFollwed + 1);
+					metrics.recordLatency(System.nanoTime() - start);
+				}
+				return numOfEdgesFollwed;
+			}
+			if(cmp >= 0) {
+				var = var.right; // node >= var, equal keys go right.
+				numOfEdgesFollwed++;
+			} else {
+				var = var.left; // node < var.
+				numOfEdgesFollwed++;
+			}
+		}
+		node.parent = parent;
+		if(parent == null) { 
+			this.root = node; // left as new root node.
+		} else if(node.data.compareTo(parent.data) >= 0) {
+			parent.right = node; // left as right child.
+		} else {
+			parent.left = node; // left as left child.
+		}
+		this.insertFix(node); // insertFix.
+		if(metrics != null) {
+			// one comparison per edge, plus one to pick the side to attach on.
+			metrics.recordSearch(numOfEdgesFollwed, (parent == null) ? 0 : numOfEdgesFollwed + 1);
+			metrics.recordLatency(System.nanoTime() - start);
+		}
+		return numOfEdgesFollwed;
+	}
+	
+	/**
+	 * Route insert, find and contains through a finger at the last node they touched, so
+	 * each starts from there instead of the root. Pays off when consecutive operations
+	 * land near each other (sequential ids, time-ordered keys), and costs up to twice the
+	 * height in parent links when they don't.
+	 * @param enabled true to search from the last accessed node, false to search from the root.
+	 * @see Cursor
+	 */
+	public void setFingerSearch(boolean enabled) {
+		this.lastAccess = enabled ? new Cursor() : null;
+	}
+	
+	/**
+	 * Return whether insert, find and contains start from the last accessed node.
+	 * @return true if finger search is enabled.
+	 */
+	public boolean isFingerSearch() {
+		return this.lastAccess != null;
+	}
+	
+	/**
+	 * Returns a new cursor on this tree, positioned at the root until first used.
+	 * @return a new cursor.
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	/**
+	 * Returns a read-only snapshot of the tree laid out in one array in Eytzinger order, for
+	 * trees that are done changing and only queried. Lookups on the snapshot touch no nodes
+	 * and no links. Later changes to this tree do not affect the snapshot. O(n).
+	 * @return a frozen copy of the tree, duplicates of a multiset repeated.
+	 */
+	public FrozenAVLTree<T> freeze() {
+		Object[] sorted = new Object[this.size()];
+		int i = 0;
+		Iterator<T> itr = this.iteratorInOrder();
+		while(itr.hasNext()) {
+			sorted[i++] = itr.next();
+		}
+		return new FrozenAVLTree<T>(sorted);
+	}
+	
+	/**
+	 * A finger into the tree for operations near each other. Each operation climbs parent
+	 * links from the cursor's node only until the subtree there must hold the target, then
+	 * descends, so a target d positions away costs O(log d) comparisons instead of O(log n).
+	 * The cursor then rests on the node found, inserted, or where an unsuccessful search
+	 * ended.
+	 *
+	 * A cursor survives single inserts and deletes made through the tree or other cursors.
+	 * If its node is deleted, or a bulk operation (insertAll, split, join, set operations)
+	 * moves the tree's nodes, the next operation restarts from the root. Not thread safe.
+	 */
+	public class Cursor {
+		private Node<T> node; // null until first used.
+		private int epoch;
+		private int comparisons; // for the operation in progress, for metrics.
+		private int edges;
+		private int cmp; // target against the node climb returned.
+		
+		/* constructors */
+		private Cursor() {
+		}
+		
+		/**
+		 * Return the node to start from: the cursor's node while it is still in the tree,
+		 * otherwise the root.
+		 * @return the starting node, null if the tree is empty.
+		 */
+		private Node<T> start() {
+			this.comparisons = 0;
+			this.edges = 0;
+			if(this.node == null || this.node.height == 0 || this.epoch != AVLTree.this.epoch) {
+				this.node = root; // unpositioned, deleted or moved by a bulk operation.
+				this.epoch = AVLTree.this.epoch;
+			}
+			return this.node;
+		}
+		
+		/**
+		 * Climb from node to the lowest ancestor whose subtree must hold target's position.
+		 * The subtree of a node is bounded by the nearest ancestors it hangs left and right
+		 * of; climbing stops at the node once target falls between those bounds. Leaves the
+		 * comparison of target with the returned node in cmp.
+		 * @param node node to start from.
+		 * @param target element to locate.
+		 * @return the root of the subtree to descend in.
+		 */
+		private Node<T> climb(Node<T> node, T target) {
+			int cmp = target.compareTo(node.data);
+			this.comparisons++;
+			while(cmp != 0) {
+				Node<T> child = node;
+				Node<T> bound = node.parent;
+				if(cmp > 0) {
+					while(bound != null && child == bound.right) {
+						child = bound; // climb to the ancestor node hangs left of.
+						bound = bound.parent;
+						this.edges++;
+					}
+				} else {
+					while(bound != null && child == bound.left) {
+						child = bound; // climb to the ancestor node hangs right of.
+						bound = bound.parent;
+						this.edges++;
+					}
+				}
+				if(bound == null) {
+					break; // no bound on that side, target is under node.
+				}
+				this.edges++;
+				int boundCmp = target.compareTo(bound.data);
+				this.comparisons++;
+				if((cmp > 0) ? boundCmp < 0 : boundCmp > 0) {
+					break; // target is between the bounds, under node.
+				}
+				node = bound; // target is at or past the bound, go on from there.
+				cmp = boundCmp;
+			}
+			this.cmp = cmp;
+			return node;
+		}
+		
+		/**
+		 * Locate target from the cursor, moving the cursor to it or to the node where the
+		 * search ended.
+		 * @param target element to find.
+		 * @return the node equal to target, null if there is none.
+		 */
+		private Node<T> locate(T target) {
+			TreeMetrics metrics = AVLTree.this.metrics;
+			long start = (metrics != null) ? System.nanoTime() : 0L;
+			Node<T> node = this.start();
+			if(node == null) {
+				return null;
+			}
+			node = this.climb(node, target);
+			int cmp = this.cmp;
+			while(cmp != 0) {
+				Node<T> next = (cmp < 0) ? node.left : node.right;
+				if(next == null) {
+					break; // not in the tree.
+				}
+				node = next;
+				this.edges++;
+				cmp = target.compareTo(node.data);
+				this.comparisons++;
+			}
+			this.node = node;
+			if(metrics != null) {
+				metrics.recordSearch(this.edges, this.comparisons);
+				metrics.recordLatency(System.nanoTime() - start);
+			}
+			return (cmp == 0) ? node : null;
+		}
+		
+		/**
+		 * Find target starting from the cursor.
+		 * @param target element to find.
+		 * @return the element equal to target, null if there is none.
+		 */
+		public T find(T target) {
+			return data(this.locate(target));
+		}
+		
+		/**
+		 * Return whether the tree holds target, starting from the cursor.
+		 * @param target element to look for.
+		 * @return true if an equal element is in the tree.
+		 */
+		public boolean contains(T target) {
+			return this.locate(target) != null;
+		}
+		
+		/**
+		 * Insert element starting from the cursor, and move the cursor to its node. Finds
+		 * the slot with O(log d) comparisons, but sizes are still updated and the tree
+		 * rebalanced up to the root, as for insert.
+		 * @param element element to insert.
+		 * @return number of edges traversed, climbing and descending.
+		 */
+		public int insert(T element) {
+			TreeMetrics metrics = AVLTree.this.metrics;
+			long start = (metrics != null) ? System.nanoTime() : 0L;
+			size++;
+			modCount++;
+			Node<T> parent = this.start();
+			Node<T> node;
+			if(parent == null) {
+				node = new Node<T>(element);
+				root = node; // tree was empty.
+			} else {
+				parent = this.climb(parent, element);
+				int cmp = this.cmp;
+				while(true) {
+					if(cmp == 0 && multiset) {
+						parent.count++; // counted duplicate, no new node and no rebalancing.
+						for(Node<T> var = parent; var != null; var = var.parent) {
+							var.size++;
+						}
+						this.node = parent;
+						this.record(metrics, start);
+						return this.edges;
+					}
+					Node<T> next = (cmp >= 0) ? parent.right : parent.left; // equal keys go right.
+					if(next == null) {
+						break;
+					}
+					parent = next;
+					this.edges++;
+					cmp = element.compareTo(parent.data);
+					this.comparisons++;
+				}
+				node = new Node<T>(element);
+				node.parent = parent;
+				if(cmp >= 0) {
+					parent.right = node;
+				} else {
+					parent.left = node;
+				}
+				this.edges++;
+				for(Node<T> var = parent; var != null; var = var.parent) {
+					var.size++; // the new node landed in var's subtree.
+				}
+			}
+			insertFix(node);
+			this.node = node;
+			this.record(metrics, start);
+			return this.edges;
+		}
+		
+		/**
+		 * Record the operation in progress in metrics, if any.
+		 * @param metrics metrics to record into, may be null.
+		 * @param start start time of the operation.
+		 */
+		private void record(TreeMetrics metrics, long start) {
+			if(metrics != null) {
+				metrics.recordSearch(this.edges, this.comparisons);
+				metrics.recordLatency(System.nanoTime() - start);
+			}
+		}
+		
+		/**
+		 * Return the element at the cursor.
+		 * @return the element, null if the cursor is unpositioned or its node was deleted.
+		 */
+		public T get() {
+			if(this.node == null || this.node.height == 0 || this.epoch != AVLTree.this.epoch) {
+				return null;
+			}
+			return this.node.data;
+		}
+		
+		/**
+		 * Move the cursor to the next node In-Order. In multiset mode that is the next
+		 * distinct element.
+		 * @return false, leaving the cursor in place, if there is no next node or the cursor
+		 * is not on a node.
+		 */
+		public boolean next() {
+			return this.move(this.get() == null ? null : successor(this.node));
+		}
+		
+		/**
+		 * Move the cursor to the previous node In-Order.
+		 * @return false, leaving the cursor in place, if there is no previous node or the
+		 * cursor is not on a node.
+		 */
+		public boolean previous() {
+			return this.move(this.get() == null ? null : predecessor(this.node));
+		}
+		
+		/**
+		 * Move to node if there is one.
+		 * @param node new position, may be null.
+		 * @return true if the cursor moved.
+		 */
+		private boolean move(Node<T> node) {
+			if(node == null) {
+				return false;
+			}
+			this.node = node;
+			return true;
+		}
+	}
+	
+	/**
+	 * Insert a batch of elements into the AVL Tree. The batch is sorted and merged into the
+	 * tree in one pass: each group of new elements is carried down to the subtree it belongs
+	 * in, built into a balanced subtree where it meets an empty slot, and the pieces are
+	 * joined back together on the way up. This costs O(m log(n/m + 1)) for m new elements
+	 * instead of m separate descents and insertFix climbs.
+	 * @param elements elements to insert.
+	 * @return an estimate of the edges traversed: for each element the edges down to the
+	 * empty slot it was placed at plus its depth within the subtree built there. This is
+	 * usually below what insert would report for the same batch, whose descents pass
+	 * through the nodes and rotations of the elements inserted before them.
+	 */
+	public int insertAll(Collection<? extends T> elements) {
+		if(elements.isEmpty()) {
+			return 0;
+		}
+		if(this.multiset) { // merged subtrees would duplicate keys already counted in the tree.
+			int edges = 0;
+			for(T element : elements) {
+				edges += this.insert(element);
+			}
+			return edges;
+		}
+		ArrayList<T> batch = new ArrayList<T>(elements);
+		Collections.sort(batch);
+		
+		int[] edges = new int[1];
+		this.root = this.merge(this.root, batch, 0, batch.size(), 0, edges);
+		this.root.parent = null;
+		this.size += batch.size();
+		this.modCount++;
+		this.epoch++; // nodes were rebuilt, cursors restart at the root.
+		return edges[0];
+	}
+	
+	/**
+	 * Split this tree around key in O(log n): elements less than key stay in this tree, and
+	 * elements greater than or equal to key are moved into the returned tree.
+	 * @param key the split point.
+	 * @return a new tree holding the elements &gt;= key.
+	 */
+	public AVLTree<T> split(T key) {
+		Split parts = this.split(this.root, key, false);
+		AVLTree<T> upper = new AVLTree<T>(this.multiset);
+		upper.adopt(parts.right);
+		this.adopt(parts.left);
+		return upper;
+	}
+	
+	/**
+	 * Join two trees around key in O(|height(left) - height(right)| + 1). Every element of
+	 * left must be &lt;= key and every element of right &gt;= key. Both trees are emptied and
+	 * their nodes move into the returned tree.
+	 * @param left tree with the smaller elements.
+	 * @param key element to place between them.
+	 * @param right tree with the larger elements.
+	 * @return a new tree holding left, key and right.
+	 * @throws IllegalArgumentException if the trees are out of order around key.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> join(AVLTree<T> left, T key, AVLTree<T> right) {
+		if(left == right) {
+			throw new IllegalArgumentException("cannot join a tree with itself");
+		}
+		if((!left.isEmpty() && left.maximum().compareTo(key) > 0)
+				|| (!right.isEmpty() && right.minimum().compareTo(key) < 0)) {
+			throw new IllegalArgumentException("trees are not ordered around key");
+		}
+		AVLTree<T> joined = new AVLTree<T>(left.multiset);
+		joined.adopt(joined.join(left.root, joined.new Node<T>(key), right.root));
+		left.adopt(null);
+		right.adopt(null);
+		return joined;
+	}
+	
+	/**
+	 * Returns the union of a and b, computed in parallel on the common ForkJoinPool.
+	 * @see #union(AVLTree, AVLTree, ForkJoinPool)
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> union(AVLTree<T> a, AVLTree<T> b) {
+		return union(a, b, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Returns the union of a and b. The trees are treated as sets: an element of b equal to
+	 * an element of a is dropped. Runs in O(m log(n/m + 1)) work for trees of sizes m &lt;= n,
+	 * recursing on both halves in parallel on pool. Both trees are emptied and their nodes
+	 * move into the returned tree.
+	 * @param a first tree.
+	 * @param b second tree.
+	 * @param pool pool to run the recursion on.
+	 * @return a new tree holding the union.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> union(AVLTree<T> a, AVLTree<T> b, ForkJoinPool pool) {
+		return a.setOperation(SetOperation.UNION, b, pool);
+	}
+	
+	/**
+	 * Returns the intersection of a and b, computed in parallel on the common ForkJoinPool.
+	 * @see #intersection(AVLTree, AVLTree, ForkJoinPool)
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> intersection(AVLTree<T> a, AVLTree<T> b) {
+		return intersection(a, b, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Returns the elements of a that have an equal element in b. Runs in O(m log(n/m + 1))
+	 * work, recursing on both halves in parallel on pool. Both trees are emptied and the
+	 * surviving nodes of a move into the returned tree.
+	 * @param a first tree.
+	 * @param b second tree.
+	 * @param pool pool to run the recursion on.
+	 * @return a new tree holding the intersection.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> intersection(AVLTree<T> a, AVLTree<T> b, ForkJoinPool pool) {
+		return a.setOperation(SetOperation.INTERSECTION, b, pool);
+	}
+	
+	/**
+	 * Returns the difference a - b, computed in parallel on the common ForkJoinPool.
+	 * @see #difference(AVLTree, AVLTree, ForkJoinPool)
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> difference(AVLTree<T> a, AVLTree<T> b) {
+		return difference(a, b, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Returns the elements of a that have no equal element in b. Runs in O(m log(n/m + 1))
+	 * work, recursing on both halves in parallel on pool. Both trees are emptied and the
+	 * surviving nodes of a move into the returned tree.
+	 * @param a first tree.
+	 * @param b second tree.
+	 * @param pool pool to run the recursion on.
+	 * @return a new tree holding the difference.
+	 */
+	public static <T extends Comparable<T>> AVLTree<T> difference(AVLTree<T> a, AVLTree<T> b, ForkJoinPool pool) {
+		return a.setOperation(SetOperation.DIFFERENCE, b, pool);
+	}
+	
+	/**
+	 * Runs a set operation between this tree and other and moves the result into a new tree.
+	 * @param operation operation to run.
+	 * @param other second operand.
+	 * @param pool pool to run the recursion on.
+	 * @return a new tree holding the result.
+	 */
+	private AVLTree<T> setOperation(SetOperation operation, AVLTree<T> other, ForkJoinPool pool) {
+		if(this == other) {
+			throw new IllegalArgumentException("operands must be different trees");
+		}
+		Node<T> result = pool.invoke(new SetTask(operation, this.root, other.root));
+		AVLTree<T> tree = new AVLTree<T>(this.multiset);
+		tree.adopt(result);
+		this.adopt(null);
+		other.adopt(null);
+		return tree;
+	}
+	
+	/**
+	 * Makes node the root of this tree, taking the size from its subtree.
+	 * @param node new root, detached from any other tree (may be null).
+	 */
+	private void adopt(Node<T> node) {
+		if(node != null) {
+			node.parent = null;
+		}
+		this.root = node;
+		this.size = sizeOf(node);
+		this.modCount++;
+		this.epoch++; // nodes moved between trees.
+	}
+	
+	/** The set operations supported by SetTask. */
+	private enum SetOperation { UNION, INTERSECTION, DIFFERENCE }
+	
+	/**
+	 * Below this many nodes across both operands, a SetTask recurses without forking.
+	 */
+	private static final int SET_OPERATION_CUTOFF = 2048;
+	
+	/**
+	 * Fork/join task for the split/join set operations. Splits b around a's root, runs the
+	 * operation on the two halves (forking the left half when the operands are large), then
+	 * joins the halves around a's root, or concatenates them when the root is dropped.
+	 */
+	private class SetTask extends RecursiveTask<Node<T>> {
+		private static final long serialVersionUID = 1L;
+		private final SetOperation operation;
+		private final Node<T> a;
+		private final Node<T> b;
+		
+		SetTask(SetOperation operation, Node<T> a, Node<T> b) {
+			this.operation = operation;
+			this.a = a;
+			this.b = b;
+		}
+		
+		@Override
+		protected Node<T> compute() {
+			if(this.a == null) {
+				return (this.operation == SetOperation.UNION) ? this.b : null;
+			}
+			if(this.b == null) {
+				return (this.operation == SetOperation.INTERSECTION) ? null : this.a;
+			}
+			int operands = sizeOf(this.a) + sizeOf(this.b);
+			Node<T> aLeft = this.a.left;
+			Node<T> aRight = this.a.right;
+			Split below = split(this.b, this.a.data, false); // b < a.data
+			Split above = split(below.right, this.a.data, true); // b == a.data, b > a.data
+			boolean found = above.left != null;
+			
+			SetTask leftTask = new SetTask(this.operation, aLeft, below.left);
+			SetTask rightTask = new SetTask(this.operation, aRight, above.right);
+			Node<T> left;
+			Node<T> right;
+			if(operands < SET_OPERATION_CUTOFF) {
+				left = leftTask.compute();
+				right = rightTask.compute();
+			} else {
+				leftTask.fork();
+				right = rightTask.compute();
+				left = leftTask.join();
+			}
+			
+			boolean keep = (this.operation == SetOperation.UNION)
+					|| (this.operation == SetOperation.INTERSECTION && found)
+					|| (this.operation == SetOperation.DIFFERENCE && !found);
+			if(keep) {
+				return AVLTree.this.join(left, this.a, right);
+			}
+			return concat(left, right);
+		}
+	}
+	
+	/**
+	 * The two halves of a split subtree.
+	 */
+	private class Split {
+		private Node<T> left;
+		private Node<T> right;
+	}
+	
+	/**
+	 * Splits the detached subtree rooted at node around key in O(log n). Elements less than
+	 * key (or equal to it, when inclusive) go left, the rest go right.
+	 * @param node subtree root (may be null).
+	 * @param key the split point.
+	 * @param inclusive whether elements equal to key go left.
+	 * @return the two detached halves.
+	 */
+	private Split split(Node<T> node, T key, boolean inclusive) {
+		if(node == null) {
+			return new Split();
+		}
+		Node<T> left = node.left;
+		Node<T> right = node.right;
+		int cmp = node.data.compareTo(key);
+		if(cmp < 0 || (inclusive && cmp == 0)) {
+			Split parts = this.split(right, key, inclusive); // node and its left go left.
+			parts.left = this.join(left, node, parts.left);
+			return parts;
+		}
+		Split parts = this.split(left, key, inclusive); // node and its right go right.
+		parts.right = this.join(parts.right, node, right);
+		return parts;
+	}
+	
+	/**
+	 * Concatenates two detached subtrees where every element of left is &lt;= every element of
+	 * right, by pulling the maximum out of left and joining around it.
+	 * @param left subtree with the smaller elements (may be null).
+	 * @param right subtree with the larger elements (may be null).
+	 * @return the root of the concatenated subtree.
+	 */
+	private Node<T> concat(Node<T> left, Node<T> right) {
+		if(left == null) {
+			return right;
+		}
+		if(right == null) {
+			return left;
+		}
+		Split parts = this.splitLast(left);
+		return this.join(parts.left, parts.right, right);
+	}
+	
+	/**
+	 * Removes the maximum node from a detached subtree.
+	 * @param node subtree root.
+	 * @return the rest of the subtree as left, and the detached maximum node as right.
+	 */
+	private Split splitLast(Node<T> node) {
+		Node<T> left = node.left;
+		Node<T> right = node.right;
+		if(right == null) {
+			Split parts = new Split();
+			parts.left = left;
+			parts.right = this.link(null, node, null);
+			return parts;
+		}
+		Split parts = this.splitLast(right);
+		parts.left = this.join(left, node, parts.left);
+		return parts;
+	}
+	
+	/**
+	 * Merges batch[lo, hi) into the subtree rooted at node and returns the new subtree root.
+	 * @param node root of the subtree, detached from its parent (may be null).
+	 * @param batch sorted batch of new elements.
+	 * @param lo first index of the range, inclusive.
+	 * @param hi last index of the range, exclusive.
+	 * @param depth number of edges from the tree's root to node.
+	 * @param edges accumulator for the edges followed by the new elements.
+	 * @return the root of the merged subtree.
+	 */
+	private Node<T> merge(Node<T> node, List<T> batch, int lo, int hi, int depth, int[] edges) {
+		if(lo >= hi) {
+			return node; // nothing lands in this subtree.
+		}
+		if(node == null) {
+			return this.build(batch, lo, hi, depth, edges); // an empty slot, build it whole.
+		}
+		int split = lo; // first element that goes right, equal keys go right like insert.
+		int end = hi;
+		while(split < end) {
+			int mid = (split + end) >>> 1;
+			if(batch.get(mid).compareTo(node.data) >= 0) {
+				end = mid;
+			} else {
+				split = mid + 1;
+			}
+		}
+		Node<T> left = this.merge(node.left, batch, lo, split, depth + 1, edges);
+		Node<T> right = this.merge(node.right, batch, split, hi, depth + 1, edges);
+		return this.join(left, node, right);
+	}
+	
+	/**
+	 * Like build(list, lo, hi), but also adds each element's depth in the finished tree to
+	 * edges.
+	 * @param list sorted elements.
+	 * @param lo first index of the range, inclusive.
+	 * @param hi last index of the range, exclusive.
+	 * @param depth number of edges from the tree's root to the built subtree's root.
+	 * @param edges accumulator for the edges followed by the new elements.
+	 * @return the root of the built subtree, null for an empty range.
+	 */
+	private Node<T> build(List<? extends T> list, int lo, int hi, int depth, int[] edges) {
+		if(lo >= hi) {
+			return null;
+		}
+		int mid = (lo + hi) >>> 1;
+		edges[0] += depth;
+		return this.link(this.build(list, lo, mid, depth + 1, edges), new Node<T>(list.get(mid)),
+				this.build(list, mid + 1, hi, depth + 1, edges));
+	}
+	
+	/**
+	 * Joins two detached AVL subtrees around node, where every element of left is &lt;=
+	 * node and every element of right is &gt;= node. Costs O(|height(left) - height(right)| + 1).
+	 * @param left left subtree (may be null).
+	 * @param node node to place between them.
+	 * @param right right subtree (may be null).
+	 * @return the root of the joined subtree.
+	 */
+	private Node<T> join(Node<T> left, Node<T> node, Node<T> right) {
+		int leftHeight = heightOf(left);
+		int rightHeight = heightOf(right);
+		if(leftHeight > rightHeight + 1) {
+			return this.joinRight(left, node, right);
+		} else if(rightHeight > leftHeight + 1) {
+			return this.joinLeft(left, node, right);
+		}
+		return this.link(left, node, right); // heights are close enough already.
+	}
+	
+	/**
+	 * Joins when left is taller: walks down left's right spine until the heights meet,
+	 * links there, and rotates on the way back up where the spine became too tall.
+	 * @param left taller left subtree.
+	 * @param node node to place between them.
+	 * @param right shorter right subtree.
+	 * @return the root of the joined subtree.
+	 */
+	private Node<T> joinRight(Node<T> left, Node<T> node, Node<T> right) {
+		Node<T> outer = left.left;
+		Node<T> spine = left.right;
+		if(heightOf(spine) <= heightOf(right) + 1) {
+			Node<T> joined = this.link(spine, node, right);
+			if(joined.height <= heightOf(outer) + 1) {
+				return this.link(outer, left, joined);
+			}
+			return this.rotateLeft(this.link(outer, left, this.rotateRight(joined))); // right-left
+		}
+		Node<T> joined = this.joinRight(spine, node, right);
+		Node<T> top = this.link(outer, left, joined);
+		if(joined.height <= heightOf(outer) + 1) {
+			return top;
+		}
+		return this.rotateLeft(top);
 	}
 	
 	/**
-	 * Performs a Pre-Order tree traversal recursivly.
-	 * @param node the starting node.
-	 * @param list a LinkedList to add the nodes too.
+	 * Joins when right is taller, the mirror image of joinRight.
+	 * @param left shorter left subtree.
+	 * @param node node to place between them.
+	 * @param right taller right subtree.
+	 * @return the root of the joined subtree.
 	 */
-	private void traversePreOrder(Node<T> node, LinkedList<T> list) {
-		// check base case
-		if(node != null) {
-			list.add(node.data); // visit node
-			this.traverseInOrder(node.left, list); // recurse 
-			this.traverseInOrder(node.right, list); // recurse right
+	private Node<T> joinLeft(Node<T> left, Node<T> node, Node<T> right) {
+		Node<T> outer = right.right;
+		Node<T> spine = right.left;
+		if(heightOf(spine) <= heightOf(left) + 1) {
+			Node<T> joined = this.link(left, node, spine);
+			if(joined.height <= heightOf(outer) + 1) {
+				return this.link(joined, right, outer);
+			}
+			return this.rotateRight(this.link(this.rotateLeft(joined), right, outer)); // left-right
 		}
+		Node<T> joined = this.joinLeft(left, node, spine);
+		Node<T> top = this.link(joined, right, outer);
+		if(joined.height <= heightOf(outer) + 1) {
+			return top;
+		}
+		return this.rotateRight(top);
 	}
-
 	
-	@Override
-	public Iterator<T> iteratorPostOrder() {
-		LinkedList<T> list = new LinkedList<T>();
-		this.traversePostOrder(this.root, list);
-		return list.iterator();
+	/**
+	 * Left rotation of a detached subtree, unlike leftRotate it never touches the root.
+	 * @param node subtree root with a right child.
+	 * @return the new subtree root.
+	 */
+	private Node<T> rotateLeft(Node<T> node) {
+		Node<T> tmp = node.right;
+		Node<T> inner = tmp.left;
+		Node<T> outer = tmp.right;
+		return this.link(this.link(node.left, node, inner), tmp, outer);
 	}
 	
 	/**
-	 * Performs a Post-Order tree traversal recursivly.
-	 * @param node the starting node.
-	 * @param list a LinkedList to add the nodes too.
+	 * Right rotation of a detached subtree, unlike rightRotate it never touches the root.
+	 * @param node subtree root with a left child.
+	 * @return the new subtree root.
 	 */
-	private void traversePostOrder(Node<T> node, LinkedList<T> list) {
-		// check base case
-		if(node != null) {
-			this.traverseInOrder(node.left, list); // recurse 
-			this.traverseInOrder(node.right, list); // recurse right
-			list.add(node.data); // visit node
-		}
+	private Node<T> rotateRight(Node<T> node) {
+		Node<T> tmp = node.left;
+		Node<T> inner = tmp.right;
+		Node<T> outer = tmp.left;
+		return this.link(outer, tmp, this.link(inner, node, node.right));
 	}
-
 	
-	@Override
-	public Iterator<T> iteratorLevelOrder() {
-		LinkedList<T> list = new LinkedList<T>();
-		Queue<Node<T>> work = new ArrayDeque<Node<T>>();
-		work.add(this.root); // start off with the root node.
-		while(!(work.isEmpty())) {
-			Node<T> node = work.remove(); // pop the first.
-			// process this node
-			list.add(node.data);
-			// enqueue the children on this node.
-			if(node.left != null) {
-				work.add(node.left);
-			}
-			if(node.right != null) {
-				work.add(node.right);
-			}
+	/**
+	 * Makes left and right the children of node and refreshes node's height and size. The
+	 * returned subtree is detached, its root has no parent.
+	 * @param left new left child (may be null).
+	 * @param node new subtree root.
+	 * @param right new right child (may be null).
+	 * @return node.
+	 */
+	private Node<T> link(Node<T> left, Node<T> node, Node<T> right) {
+		node.left = left;
+		node.right = right;
+		node.parent = null;
+		if(left != null) {
+			left.parent = node;
 		}
-		return list.iterator();
+		if(right != null) {
+			right.parent = node;
+		}
+		node.updateHeight();
+		node.updateSize();
+		return node;
 	}
 	
 	/**
-	 * Insert into the AVL Tree.
-	 * @param element element to insert
-	 * @return number edges traversed to insert this element.
+	 * Returns the height of the subtree rooted at node, 0 for a null node.
+	 * @param node subtree root.
+	 * @return the height of node's subtree.
 	 */
-	public int insert(T element) {
-		size++;
-		int numOfEdgesFollwed = 0;
-		
-		Node<T> node = new Node<T>(element);
-		Node<T> var = this.root; // loop variable.
-		Node<T> parent = null; // trailing parent node.
-		while(var != null) {
-			parent = var;
-			if(node.data.compareTo(var.data) > 0) {
-				var = var.right; // node > var.
-				numOfEdgesFollwed++;
-			} else {
-				var = var.left; // node < var.
-				numOfEdgesFollwed++;
-			}
-		}
-		node.parent = parent;
-		if(parent == null) { 
-			this.root = node; // left as new root node.
-		} else if(node.data.compareTo(parent.data) >= 0) {
-			parent.right = node; // left as right child.
-		} else {
-			parent.left = node; // left as left child.
+	private int heightOf(Node<T> node) {
+		if(node == null) {
+			return 0;
 		}
-		this.insertFix(node); // insertFix.
-		return numOfEdgesFollwed;
+		return node.height;
 	}
 	
 	/**
@@ -287,8 +1591,10 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 	 * @param x newly inserted node.
 	 */
 	private void insertFix(Node<T> x) {
+		int climb = 0; // nodes checked, for metrics.
 		x.updateHeight(); // in-case theres' 0 iterations.
 		while (x != null) {
+			climb++;
 			x.updateHeight();
 			int curBal = x.balanceFactor();
 			if(curBal == -2) { // -2bf
@@ -297,6 +1603,7 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 					this.rightRotate(x);
 					x.updateHeight(); // update x.
 					x.parent.updateHeight(); // update new parent.
+					this.recordRebalance(TreeMetrics.Rotation.LL, climb);
 					return;
 				} else if(lBal == 1) { // left-right db
 					this.leftRotate(x.left);
@@ -304,6 +1611,7 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 					x.updateHeight(); // update x
 					x.parent.left.updateHeight(); // update x's siblings.
 					x.parent.updateHeight();
+					this.recordRebalance(TreeMetrics.Rotation.LR, climb);
 					return;
 				}
 			} else if(curBal == 2) { // 2bf
@@ -312,6 +1620,7 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 					this.leftRotate(x);
 					x.updateHeight();
 					x.parent.updateHeight();
+					this.recordRebalance(TreeMetrics.Rotation.RR, climb);
 					return;
 				} else if(rBal == -1) { // right-left db
 					this.rightRotate(x.right);
@@ -319,12 +1628,38 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 					x.updateHeight();
 					x.parent.right.updateHeight(); 
 					x.parent.updateHeight();
+					this.recordRotation(TreeMetrics.Rotation.RL);
 				}
 			}
 			
 			x = x.parent; // loop update
 			
 		}
+		this.recordRebalance(null, climb);
+	}
+	
+	/**
+	 * Record a rotation in the attached metrics, if any.
+	 * @param rotation rotation case.
+	 */
+	private void recordRotation(TreeMetrics.Rotation rotation) {
+		if(this.metrics != null) {
+			this.metrics.recordRotation(rotation);
+		}
+	}
+	
+	/**
+	 * Record the end of a rebalance climb in the attached metrics, if any.
+	 * @param rotation rotation that ended the climb, null if none did.
+	 * @param climb nodes the climb checked.
+	 */
+	private void recordRebalance(TreeMetrics.Rotation rotation, int climb) {
+		if(this.metrics != null) {
+			if(rotation != null) {
+				this.metrics.recordRotation(rotation);
+			}
+			this.metrics.recordRebalance(climb);
+		}
 	}
 	
 	/**
@@ -349,6 +1684,9 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 		// tmp becomes parent of node, with node as the  child.
 		tmp.left= node;
 		node.parent = tmp;
+		// tmp now roots the whole subtree, node lost tmp's right subtree.
+		tmp.size = node.size;
+		node.updateSize();
 	}
 	
 	/**
@@ -374,6 +1712,9 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 		// tmp becomes parent of node, with node as the right child.
 		tmp.right = node;
 		node.parent = tmp;
+		// tmp now roots the whole subtree, node lost tmp's left subtree.
+		tmp.size = node.size;
+		node.updateSize();
 	}
 	
 	/**
@@ -381,13 +1722,7 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 	 * @returns height of tree in number of nodes
 	 */	
 	public int height() {
-		Node<T> node = this.root;
-		int height = 1;
-		while(node != null) { // loop  subtree
-			height++; // increment while going through each level.
-			node = node.left;
-		}
-		return height;
+		return this.heightOf(this.root); // the root caches the height of the whole tree.
 	}
 	
 	/**
@@ -448,15 +1783,492 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 		return node;
 	}
 	
+	/**
+	 * Return the greatest element less than or equal to element, null if there is none.
+	 * @param element element to compare against.
+	 * @return the greatest element &lt;= element, null if there is none.
+	 */
+	public T floor(T element) {
+		return data(this.floorNode(element, true));
+	}
+	
+	/**
+	 * Return the least element greater than or equal to element, null if there is none.
+	 * @param element element to compare against.
+	 * @return the least element &gt;= element, null if there is none.
+	 */
+	public T ceiling(T element) {
+		return data(this.ceilingNode(element, true));
+	}
+	
+	/**
+	 * Return the least element strictly greater than element, null if there is none.
+	 * @param element element to compare against.
+	 * @return the least element &gt; element, null if there is none.
+	 */
+	public T higher(T element) {
+		return data(this.ceilingNode(element, false));
+	}
+	
+	/**
+	 * Return the greatest element strictly less than element, null if there is none.
+	 * @param element element to compare against.
+	 * @return the greatest element &lt; element, null if there is none.
+	 */
+	public T lower(T element) {
+		return data(this.floorNode(element, false));
+	}
+	
+	/**
+	 * Return the element at position k of the In-Order sequence, in O(log n).
+	 * @param k zero-based position, 0 is the minimum.
+	 * @return the k-th smallest element.
+	 * @throws IndexOutOfBoundsException if k is not in [0, size()).
+	 */
+	public T select(int k) {
+		if(k < 0 || k >= this.size) {
+			throw new IndexOutOfBoundsException("k: " + k + ", size: " + this.size);
+		}
+		return this.selectNode(k).data;
+	}
+	
+	/**
+	 * Return the number of elements strictly less than element, in O(log n). This is the
+	 * position element has, or would have, in the In-Order sequence.
+	 * @param element element to rank.
+	 * @return the number of elements less than element.
+	 */
+	public int rank(T element) {
+		return this.countBelow(element, false);
+	}
+	
+	/**
+	 * Return the number of elements e with lo &lt;= e &lt;= hi, in O(log n).
+	 * @param lo low endpoint, inclusive.
+	 * @param hi high endpoint, inclusive.
+	 * @return the number of elements in [lo, hi], 0 if lo &gt; hi.
+	 */
+	public int countInRange(T lo, T hi) {
+		if(lo.compareTo(hi) > 0) {
+			return 0;
+		}
+		return this.countBelow(hi, true) - this.countBelow(lo, false);
+	}
+	
+	/**
+	 * Returns the node at position k of the In-Order sequence using subtree sizes.
+	 * @param k zero-based position, must be in [0, size).
+	 * @return the k-th smallest node.
+	 */
+	private Node<T> selectNode(int k) {
+		Node<T> node = this.root;
+		while(true) {
+			int leftSize = sizeOf(node.left);
+			if(k < leftSize) {
+				node = node.left; // k-th is in the left subtree.
+			} else if(k < leftSize + node.count) {
+				return node; // one of node's occurrences.
+			} else {
+				k -= leftSize + node.count; // skip the left subtree and node.
+				node = node.right;
+			}
+		}
+	}
+	
+	/**
+	 * Return the In-Order position of node's first occurrence, climbing parent links.
+	 * @param node node in this tree.
+	 * @return the number of elements before node.
+	 */
+	private int rankOf(Node<T> node) {
+		int rank = sizeOf(node.left);
+		for(Node<T> parent = node.parent; parent != null; node = parent, parent = parent.parent) {
+			if(node == parent.right) {
+				rank += sizeOf(parent.left) + parent.count; // parent and its left subtree come first.
+			}
+		}
+		return rank;
+	}
+	
+	/**
+	 * Counts the elements below element (or equal to it when inclusive) in one descent.
+	 * @param element element to compare against.
+	 * @param inclusive whether elements equal to element are counted.
+	 * @return the number of elements below element.
+	 */
+	private int countBelow(T element, boolean inclusive) {
+		Node<T> node = this.root;
+		int count = 0;
+		while(node != null) {
+			int cmp = node.data.compareTo(element);
+			if(cmp < 0 || (inclusive && cmp == 0)) {
+				count += sizeOf(node.left) + node.count; // node and its left subtree are below.
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Returns the size of the subtree rooted at node, 0 for a null node.
+	 * @param node subtree root.
+	 * @return the number of nodes in node's subtree.
+	 */
+	private int sizeOf(Node<T> node) {
+		if(node == null) {
+			return 0;
+		}
+		return node.size;
+	}
+	
+	/**
+	 * Returns the data held by node, or null for a null node.
+	 * @param node node to read.
+	 * @return node's data, null if node is null.
+	 */
+	private T data(Node<T> node) {
+		if(node == null) {
+			return null;
+		}
+		return node.data;
+	}
+	
+	/**
+	 * Descends once from the root to find the rightmost node below element (or equal to
+	 * it when inclusive).
+	 * @param element element to compare against.
+	 * @param inclusive whether a node equal to element qualifies.
+	 * @return the rightmost qualifying node, null if there is none.
+	 */
+	private Node<T> floorNode(T element, boolean inclusive) {
+		Node<T> node = this.root;
+		Node<T> best = null;
+		while(node != null) {
+			int cmp = node.data.compareTo(element);
+			if(cmp < 0 || (inclusive && cmp == 0)) {
+				best = node; // node qualifies, look for a larger one to the right.
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Descends once from the root to find the leftmost node above element (or equal to
+	 * it when inclusive).
+	 * @param element element to compare against.
+	 * @param inclusive whether a node equal to element qualifies.
+	 * @return the leftmost qualifying node, null if there is none.
+	 */
+	private Node<T> ceilingNode(T element, boolean inclusive) {
+		Node<T> node = this.root;
+		Node<T> best = null;
+		while(node != null) {
+			int cmp = node.data.compareTo(element);
+			if(cmp > 0 || (inclusive && cmp == 0)) {
+				best = node; // node qualifies, look for a smaller one to the left.
+				node = node.left;
+			} else {
+				node = node.right;
+			}
+		}
+		return best;
+	}
+	
+	/**
+	 * Returns a view of the elements from fromElement (inclusive) to toElement (exclusive).
+	 * @param fromElement low endpoint of the view.
+	 * @param toElement high endpoint of the view.
+	 * @return a view of the elements in [fromElement, toElement).
+	 */
+	public SubSet subSet(T fromElement, T toElement) {
+		return this.subSet(fromElement, true, toElement, false);
+	}
+	
+	/**
+	 * Returns a view of the elements between fromElement and toElement.
+	 * @param fromElement low endpoint of the view.
+	 * @param fromInclusive whether the low endpoint is included.
+	 * @param toElement high endpoint of the view.
+	 * @param toInclusive whether the high endpoint is included.
+	 * @return a view of the elements between fromElement and toElement.
+	 */
+	public SubSet subSet(T fromElement, boolean fromInclusive, T toElement, boolean toInclusive) {
+		if(fromElement == null || toElement == null) {
+			throw new NullPointerException();
+		}
+		if(fromElement.compareTo(toElement) > 0) {
+			throw new IllegalArgumentException("fromElement > toElement");
+		}
+		return new SubSet(fromElement, fromInclusive, toElement, toInclusive);
+	}
+	
+	/**
+	 * Returns a view of the elements strictly less than toElement.
+	 * @param toElement high endpoint of the view.
+	 * @return a view of the elements less than toElement.
+	 */
+	public SubSet headSet(T toElement) {
+		return this.headSet(toElement, false);
+	}
+	
+	/**
+	 * Returns a view of the elements less than (or equal to, if inclusive) toElement.
+	 * @param toElement high endpoint of the view.
+	 * @param inclusive whether the high endpoint is included.
+	 * @return a view of the elements below toElement.
+	 */
+	public SubSet headSet(T toElement, boolean inclusive) {
+		if(toElement == null) {
+			throw new NullPointerException();
+		}
+		return new SubSet(null, false, toElement, inclusive);
+	}
+	
+	/**
+	 * Returns a view of the elements greater than or equal to fromElement.
+	 * @param fromElement low endpoint of the view.
+	 * @return a view of the elements greater than or equal to fromElement.
+	 */
+	public SubSet tailSet(T fromElement) {
+		return this.tailSet(fromElement, true);
+	}
+	
+	/**
+	 * Returns a view of the elements greater than (or equal to, if inclusive) fromElement.
+	 * @param fromElement low endpoint of the view.
+	 * @param inclusive whether the low endpoint is included.
+	 * @return a view of the elements above fromElement.
+	 */
+	public SubSet tailSet(T fromElement, boolean inclusive) {
+		if(fromElement == null) {
+			throw new NullPointerException();
+		}
+		return new SubSet(fromElement, inclusive, null, false);
+	}
+	
+	/**
+	 * A live, read-only view of the elements of this tree within a range. A null bound means
+	 * the range is unbounded on that side. Iteration seeks to the first element in range in
+	 * O(log n) and stops at the other bound, so visiting k elements costs O(log n + k).
+	 */
+	public class SubSet implements Iterable<T> {
+		private final T lo;
+		private final boolean loInclusive;
+		private final T hi;
+		private final boolean hiInclusive;
+		
+		/* constructors */
+		private SubSet(T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+			this.lo = lo;
+			this.loInclusive = loInclusive;
+			this.hi = hi;
+			this.hiInclusive = hiInclusive;
+		}
+		
+		@Override
+		public Iterator<T> iterator() {
+			return new RangeIterator(this.lo, this.loInclusive, this.hi, this.hiInclusive, false);
+		}
+		
+		/**
+		 * Returns an iterator over the elements in this view in descending order.
+		 * @return an iterator over the elements in this view in descending order.
+		 */
+		public Iterator<T> descendingIterator() {
+			return new RangeIterator(this.lo, this.loInclusive, this.hi, this.hiInclusive, true);
+		}
+		
+		/**
+		 * Return the smallest element in this view, null if the view is empty.
+		 * @return the smallest element in this view.
+		 */
+		public T first() {
+			return data(firstInRange(this.lo, this.loInclusive, this.hi, this.hiInclusive));
+		}
+		
+		/**
+		 * Return the largest element in this view, null if the view is empty.
+		 * @return the largest element in this view.
+		 */
+		public T last() {
+			return data(lastInRange(this.lo, this.loInclusive, this.hi, this.hiInclusive));
+		}
+		
+		/**
+		 * Return true if this view holds no elements.
+		 * @return true if this view holds no elements.
+		 */
+		public boolean isEmpty() {
+			return this.first() == null;
+		}
+		
+		/**
+		 * Return the number of elements in this view in O(log n).
+		 * @return the number of elements in this view.
+		 */
+		public int size() {
+			int below = (this.hi == null) ? AVLTree.this.size : countBelow(this.hi, this.hiInclusive);
+			int excluded = (this.lo == null) ? 0 : countBelow(this.lo, !this.loInclusive);
+			return Math.max(0, below - excluded);
+		}
+		
+		/**
+		 * Determine if an element in this view is equal to the parameter.
+		 * @param element to be searched for.
+		 * @return true if a matching element exists within the view's range.
+		 */
+		public boolean contains(T element) {
+			return aboveLow(element, this.lo, this.loInclusive)
+					&& belowHigh(element, this.hi, this.hiInclusive)
+					&& AVLTree.this.contains(element);
+		}
+	}
+	
+	/**
+	 * Return true if element is at or above the low bound of a range.
+	 * @param element element to check.
+	 * @param lo low bound, null for unbounded.
+	 * @param loInclusive whether lo itself is in range.
+	 * @return true if element is not below the low bound.
+	 */
+	private boolean aboveLow(T element, T lo, boolean loInclusive) {
+		if(lo == null) {
+			return true;
+		}
+		int cmp = element.compareTo(lo);
+		return cmp > 0 || (loInclusive && cmp == 0);
+	}
+	
+	/**
+	 * Return true if element is at or below the high bound of a range.
+	 * @param element element to check.
+	 * @param hi high bound, null for unbounded.
+	 * @param hiInclusive whether hi itself is in range.
+	 * @return true if element is not above the high bound.
+	 */
+	private boolean belowHigh(T element, T hi, boolean hiInclusive) {
+		if(hi == null) {
+			return true;
+		}
+		int cmp = element.compareTo(hi);
+		return cmp < 0 || (hiInclusive && cmp == 0);
+	}
+	
+	/**
+	 * Returns the smallest node within a range, null if the range is empty.
+	 * @param lo low bound, null for unbounded.
+	 * @param loInclusive whether lo itself is in range.
+	 * @param hi high bound, null for unbounded.
+	 * @param hiInclusive whether hi itself is in range.
+	 * @return the smallest node within the range.
+	 */
+	private Node<T> firstInRange(T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+		Node<T> node;
+		if(lo == null) {
+			node = (this.root == null) ? null : minimum(this.root);
+		} else {
+			node = this.ceilingNode(lo, loInclusive);
+		}
+		if(node == null || !belowHigh(node.data, hi, hiInclusive)) {
+			return null;
+		}
+		return node;
+	}
+	
+	/**
+	 * Returns the largest node within a range, null if the range is empty.
+	 * @param lo low bound, null for unbounded.
+	 * @param loInclusive whether lo itself is in range.
+	 * @param hi high bound, null for unbounded.
+	 * @param hiInclusive whether hi itself is in range.
+	 * @return the largest node within the range.
+	 */
+	private Node<T> lastInRange(T lo, boolean loInclusive, T hi, boolean hiInclusive) {
+		Node<T> node;
+		if(hi == null) {
+			node = (this.root == null) ? null : maximum(this.root);
+		} else {
+			node = this.floorNode(hi, hiInclusive);
+		}
+		if(node == null || !aboveLow(node.data, lo, loInclusive)) {
+			return null;
+		}
+		return node;
+	}
+	
+	/**
+	 * Iterator over a range of the tree, in either direction. It seeks to the first node in
+	 * range and then follows parent links, checking the far bound once per element.
+	 */
+	private class RangeIterator extends TreeIterator {
+		private final T lo;
+		private final boolean loInclusive;
+		private final T hi;
+		private final boolean hiInclusive;
+		private final boolean descending;
+		private Node<T> next;
+		
+		RangeIterator(T lo, boolean loInclusive, T hi, boolean hiInclusive, boolean descending) {
+			this.lo = lo;
+			this.loInclusive = loInclusive;
+			this.hi = hi;
+			this.hiInclusive = hiInclusive;
+			this.descending = descending;
+			if(descending) {
+				this.next = lastInRange(lo, loInclusive, hi, hiInclusive);
+			} else {
+				this.next = firstInRange(lo, loInclusive, hi, hiInclusive);
+			}
+		}
+		
+		@Override
+		protected boolean hasNextNode() {
+			return this.next != null;
+		}
+		
+		@Override
+		protected Node<T> nextNode() {
+			Node<T> node = this.next;
+			if(this.descending) {
+				this.next = predecessor(node);
+				if(this.next != null && !aboveLow(this.next.data, this.lo, this.loInclusive)) {
+					this.next = null; // walked past the low bound.
+				}
+			} else {
+				this.next = successor(node);
+				if(this.next != null && !belowHigh(this.next.data, this.hi, this.hiInclusive)) {
+					this.next = null; // walked past the high bound.
+				}
+			}
+			return node;
+		}
+	}
+	
 	
 	@Override
 	public void delete(T element) {
-		if(contains(element)) {
-			Node<T> node = this.find(this.root, element);
+		TreeMetrics metrics = this.metrics;
+		long start = 0L;
+		Node<T> node;
+		if(metrics != null) {
+			start = System.nanoTime();
+			node = this.findMeasured(element, metrics);
+		} else {
+			node = this.find(this.root, element);
+		}
+		if(node != null) {
 			delete(node);
 		} else {
 			System.out.println("error: element not found in tree.");
 		}
+		if(metrics != null) {
+			metrics.recordLatency(System.nanoTime() - start);
+		}
 	}
 	
 	/**
@@ -466,6 +2278,14 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 	 */
 	private void delete(Node<T> node) {
 		size--;
+		modCount++;
+		if(node.count > 1) { // multiset mode, drop one occurrence and keep the node.
+			node.count--;
+			for(Node<T> var = node; var != null; var = var.parent) {
+				var.size--;
+			}
+			return;
+		}
 		
 		boolean aBCase = true; // 3a/3b.
 		
@@ -491,6 +2311,7 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 		
 		Node<T> lpc = checkLPC(node,suc,sucP,aBCase);
 		deleteFix(lpc); 
+		node.height = 0; // tombstone, cursors still holding node restart at the root.
 	}
 	
 	/**
@@ -503,12 +2324,12 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 	 */
 	private Node<T> checkLPC(Node<T> node, Node<T> suc, Node<T> sucP, boolean b) {
 		Node<T> lpc = null;
-		if(!b) {
+		if(suc == null) {
+			lpc = node.parent; // case 1/2, lpc is node's parent (null if node was root).
+		} else if(!b) {
 			lpc = sucP; // lpc is suc's old parent.
-		} else if(b) {
+		} else {
 			lpc = suc; // lpc is suc
-		} else if(node.parent != null) {
-			lpc = node.parent; // lpc is node's parent
 		}
 		return lpc;
 	}
@@ -518,10 +2339,13 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 	 * @param node the node to perform deleteFix on (perfered to be the lpc).
 	 */
 	private void deleteFix(Node<T> node) {
+		int climb = 0; // nodes checked, for metrics.
 		if(node != null) { // dont run on a null-lpc.
 			node.updateHeight();
 			while(node != null) {
+				climb++;
 				node.updateHeight();
+				node.updateSize(); // every ancestor of the removed node shrank by one.
 				int curBal = node.balanceFactor();
 				if(curBal == -2) {
 					int lBal = node.left.balanceFactor();
@@ -529,6 +2353,7 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 						rightRotate(node);
 						node.updateHeight();
 						node.parent.updateHeight();
+						this.recordRotation(TreeMetrics.Rotation.LL);
 					}
 					if(lBal == 1) {
 						leftRotate(node.left);
@@ -536,6 +2361,7 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 						node.updateHeight();
 						node.parent.left.updateHeight();
 						node.parent.updateHeight();
+						this.recordRotation(TreeMetrics.Rotation.LR);
 					}
 				}
 				if(curBal == 2) {
@@ -544,6 +2370,7 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 						leftRotate(node);
 						node.updateHeight();
 						node.parent.updateHeight();
+						this.recordRotation(TreeMetrics.Rotation.RR);
 					}
 					if(rBal == -1) {
 						rightRotate(node.right);
@@ -551,16 +2378,19 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 						node.updateHeight();
 						node.parent.right.updateHeight();
 						node.parent.updateHeight();
+						this.recordRotation(TreeMetrics.Rotation.RL);
 					}
 				}
 				
 				node = node.parent;
 			}
 		}
+		this.recordRebalance(null, climb);
 	}
 	
 	/**
-	 * Replaces an existing node with another, while maintaining sub-trees.
+	 * Replaces an existing node with another, while maintaining sub-trees. Subtree sizes
+	 * above the replaced node are recomputed by deleteFix as it climbs to the root.
 	 * @param u node to replace.
 	 * @param v node to replace with.
 	 */
@@ -596,6 +2426,9 @@ public class AVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>
 			}
 			// add in this node's data.
 			ret += node.data; // toString on the data;
+			if(node.count > 1) {
+				ret += " x" + node.count; // duplicates held by a multiset node.
+			}
 			ret += "\n"; // return to next line.
 			ret += this.print(node.right, level + 1); // recurse right
 			ret += this.print(node.left, level + 1); // recurse 
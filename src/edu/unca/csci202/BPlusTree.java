@@ -0,0 +1,597 @@
+package edu.unca.csci202;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * B+ tree implementation of BinarySearchTreeADT with wide nodes. Each node keeps its keys in
+ * one contiguous array, so a search reads a few cache lines per level instead of one node
+ * per level, and the tree is log(fan-out) times shorter than an AVLTree: about 5 levels
+ * instead of 25 at 30M keys with the default fan-out.
+ *
+ * Elements live only in the leaves, which are linked to their siblings, so In-Order
+ * iteration is a linear scan. Inner nodes hold separator copies: child i of an inner node
+ * holds the keys k with keys[i - 1] &lt;= k &lt; keys[i]. Equal elements are kept as a count
+ * on one leaf slot, like a multiset AVLTree, and find returns the first one inserted.
+ *
+ * The fan-out is the most children an inner node has, and one less than the most keys a
+ * node holds. CACHE_LINE_FAN_OUT fills a 64 byte line with compressed references,
+ * PAGE_FAN_OUT a 4K page. Nodes other than the root never drop below half full: deletes
+ * borrow from a sibling or merge with it. See IntBPlusTree and LongBPlusTree for
+ * primitive keys, which also avoid the dereference per comparison.
+ *
+ * @param <T> generic type
+ */
+public class BPlusTree<T extends Comparable<T>> implements BinarySearchTreeADT<T> {
+	public static final int CACHE_LINE_FAN_OUT = 16;
+	public static final int PAGE_FAN_OUT = 1024;
+	public static final int DEFAULT_FAN_OUT = 64;
+	private static final int MIN_FAN_OUT = 4;
+	private static final int MAX_DEPTH = 32; // half full inner nodes have at least 2 children.
+
+	/**
+	 * B+ tree node, a leaf or an inner node. One class for both keeps the descent free of
+	 * virtual calls.
+	 */
+	private static final class Node {
+		private final boolean leaf;
+		private int n; // keys in use.
+		private final Object[] keys; // one spare slot, a node overflows before it splits.
+		private final int[] counts; // leaf only, occurrences of each key.
+		private final Node[] children; // inner only, n + 1 in use.
+		private Node prev; // leaf only, sibling links.
+		private Node next;
+
+		/* constructors */
+		Node(boolean leaf, int maxKeys) {
+			this.leaf = leaf;
+			this.keys = new Object[maxKeys + 1];
+			this.counts = leaf ? new int[maxKeys + 1] : null;
+			this.children = leaf ? null : new Node[maxKeys + 2];
+		}
+	}
+
+	/* instance variables */
+	private final int maxKeys;
+	private final int minKeys;
+	private Node root;
+	private Node head; // leftmost leaf.
+	private Node tail; // rightmost leaf.
+	private int size;
+	private int height;
+	private int modCount; // structural modifications, checked by iterators.
+	private final Node[] path = new Node[MAX_DEPTH]; // scratch root-to-leaf path for insert/delete.
+	private final int[] slots = new int[MAX_DEPTH]; // child index taken at each level of path.
+
+	/* constructors */
+	public BPlusTree() {
+		this(DEFAULT_FAN_OUT);
+	}
+
+	/**
+	 * Create an empty tree.
+	 * @param fanOut most children of an inner node, at least 4.
+	 * @throws IllegalArgumentException if fanOut is below 4.
+	 */
+	public BPlusTree(int fanOut) {
+		if(fanOut < MIN_FAN_OUT) {
+			throw new IllegalArgumentException("fan-out must be at least " + MIN_FAN_OUT + ": " + fanOut);
+		}
+		this.maxKeys = fanOut - 1;
+		this.minKeys = this.maxKeys / 2;
+		this.clear();
+	}
+
+	/**
+	 * Remove every element.
+	 */
+	public void clear() {
+		this.root = new Node(true, this.maxKeys);
+		this.head = this.root;
+		this.tail = this.root;
+		this.size = 0;
+		this.height = 1;
+		this.modCount++;
+	}
+
+	/**
+	 * Return the fan-out this tree was created with.
+	 * @return most children of an inner node.
+	 */
+	public int getFanOut() {
+		return this.maxKeys + 1;
+	}
+
+	/**
+	 * Index of the first key in node greater than key, the child to descend into.
+	 * @param node node to search.
+	 * @param key key to search for.
+	 * @return index in [0, n].
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Comparable<T>> int upperBound(Node node, T key) {
+		int lo = 0;
+		int hi = node.n;
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(key.compareTo((T) node.keys[mid]) >= 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Index of the first key in node at or above key, where key is or would be.
+	 * @param node node to search.
+	 * @param key key to search for.
+	 * @return index in [0, n].
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Comparable<T>> int lowerBound(Node node, T key) {
+		int lo = 0;
+		int hi = node.n;
+		while(lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(key.compareTo((T) node.keys[mid]) > 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Descend to the leaf that holds or would hold key.
+	 * @param key key to search for.
+	 * @return the leaf.
+	 */
+	private Node leafFor(T key) {
+		Node node = this.root;
+		while(!node.leaf) {
+			node = node.children[upperBound(node, key)];
+		}
+		return node;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T find(T targetElement) {
+		Node leaf = this.leafFor(targetElement);
+		int i = lowerBound(leaf, targetElement);
+		if(i < leaf.n && targetElement.compareTo((T) leaf.keys[i]) == 0) {
+			return (T) leaf.keys[i];
+		}
+		return null;
+	}
+
+	@Override
+	public boolean contains(T targetElement) {
+		return this.find(targetElement) != null;
+	}
+
+	/**
+	 * Insert into the B+ tree.
+	 * @param element element to insert
+	 * @return number of edges traversed to reach the leaf, height - 1.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public int insert(T element) {
+		Node node = this.root;
+		int depth = 0;
+		while(!node.leaf) {
+			int i = upperBound(node, element);
+			this.path[depth] = node;
+			this.slots[depth] = i;
+			depth++;
+			node = node.children[i];
+		}
+		int i = lowerBound(node, element);
+		this.size++;
+		if(i < node.n && element.compareTo((T) node.keys[i]) == 0) {
+			node.counts[i]++; // counted duplicate, no structural change.
+			return depth;
+		}
+		this.modCount++;
+		System.arraycopy(node.keys, i, node.keys, i + 1, node.n - i);
+		System.arraycopy(node.counts, i, node.counts, i + 1, node.n - i);
+		node.keys[i] = element;
+		node.counts[i] = 1;
+		node.n++;
+		if(node.n > this.maxKeys) {
+			this.split(node, depth);
+		}
+		return depth;
+	}
+
+	/**
+	 * Split an overfull node in two and insert the separator into its parent, splitting
+	 * upwards while parents overflow and growing a new root at the top.
+	 * @param node overfull node.
+	 * @param depth its depth, path[0, depth) holds its ancestors.
+	 */
+	private void split(Node node, int depth) {
+		while(node.n > this.maxKeys) {
+			int mid = node.n >>> 1;
+			Node right = new Node(node.leaf, this.maxKeys);
+			Object separator;
+			if(node.leaf) { // the upper half moves right, its first key is copied up.
+				right.n = node.n - mid;
+				System.arraycopy(node.keys, mid, right.keys, 0, right.n);
+				System.arraycopy(node.counts, mid, right.counts, 0, right.n);
+				separator = right.keys[0];
+				right.next = node.next;
+				right.prev = node;
+				if(node.next != null) {
+					node.next.prev = right;
+				} else {
+					this.tail = right;
+				}
+				node.next = right;
+			} else { // the middle key moves up, the keys above it move right.
+				separator = node.keys[mid];
+				right.n = node.n - mid - 1;
+				System.arraycopy(node.keys, mid + 1, right.keys, 0, right.n);
+				System.arraycopy(node.children, mid + 1, right.children, 0, right.n + 1);
+				Arrays.fill(node.children, mid + 1, node.n + 1, null);
+			}
+			Arrays.fill(node.keys, mid, node.n, null); // let the GC have moved keys.
+			node.n = mid;
+
+			if(depth == 0) { // node was the root.
+				Node top = new Node(false, this.maxKeys);
+				top.keys[0] = separator;
+				top.children[0] = node;
+				top.children[1] = right;
+				top.n = 1;
+				this.root = top;
+				this.height++;
+				return;
+			}
+			depth--;
+			Node parent = this.path[depth];
+			int i = this.slots[depth]; // node is child i, right becomes child i + 1.
+			System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.n - i);
+			System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.n - i);
+			parent.keys[i] = separator;
+			parent.children[i + 1] = right;
+			parent.n++;
+			node = parent;
+		}
+	}
+
+	/**
+	 * Remove one occurrence of element from the tree, does nothing if it is absent.
+	 * @param element element to be removed from the tree
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void delete(T element) {
+		Node node = this.root;
+		int depth = 0;
+		while(!node.leaf) {
+			int i = upperBound(node, element);
+			this.path[depth] = node;
+			this.slots[depth] = i;
+			depth++;
+			node = node.children[i];
+		}
+		int i = lowerBound(node, element);
+		if(i == node.n || element.compareTo((T) node.keys[i]) != 0) {
+			return; // not in the tree.
+		}
+		this.size--;
+		if(node.counts[i] > 1) {
+			node.counts[i]--; // drop one occurrence, keep the key.
+			return;
+		}
+		this.modCount++;
+		System.arraycopy(node.keys, i + 1, node.keys, i, node.n - i - 1);
+		System.arraycopy(node.counts, i + 1, node.counts, i, node.n - i - 1);
+		node.n--;
+		node.keys[node.n] = null;
+		// separators above may still hold the removed key, they only route and stay valid.
+		this.rebalance(node, depth);
+	}
+
+	/**
+	 * Restore the minimum fill of node after a delete by borrowing a key from a sibling, or
+	 * merging with one and repeating for the parent that lost a child.
+	 * @param node node that lost a key.
+	 * @param depth its depth, path[0, depth) holds its ancestors.
+	 */
+	private void rebalance(Node node, int depth) {
+		while(depth > 0 && node.n < this.minKeys) {
+			depth--;
+			Node parent = this.path[depth];
+			int i = this.slots[depth];
+			Node left = (i > 0) ? parent.children[i - 1] : null;
+			Node right = (i < parent.n) ? parent.children[i + 1] : null;
+			if(left != null && left.n > this.minKeys) {
+				this.borrowFromLeft(parent, i, left, node);
+				return;
+			}
+			if(right != null && right.n > this.minKeys) {
+				this.borrowFromRight(parent, i, node, right);
+				return;
+			}
+			if(left != null) {
+				this.merge(parent, i - 1, left, node);
+			} else {
+				this.merge(parent, i, node, right);
+			}
+			node = parent;
+		}
+		if(!this.root.leaf && this.root.n == 0) {
+			this.root = this.root.children[0]; // the root lost its last separator, shrink.
+			this.height--;
+		}
+	}
+
+	/**
+	 * Move left's last key into node, its right sibling under parent.
+	 * @param parent parent of both.
+	 * @param i node's child index.
+	 * @param left node's left sibling.
+	 * @param node the underfull node.
+	 */
+	private void borrowFromLeft(Node parent, int i, Node left, Node node) {
+		System.arraycopy(node.keys, 0, node.keys, 1, node.n);
+		left.n--;
+		if(node.leaf) {
+			System.arraycopy(node.counts, 0, node.counts, 1, node.n);
+			node.keys[0] = left.keys[left.n];
+			node.counts[0] = left.counts[left.n];
+			parent.keys[i - 1] = node.keys[0]; // node's new first key separates them.
+		} else {
+			System.arraycopy(node.children, 0, node.children, 1, node.n + 1);
+			node.keys[0] = parent.keys[i - 1]; // rotate through the parent.
+			node.children[0] = left.children[left.n + 1];
+			parent.keys[i - 1] = left.keys[left.n];
+			left.children[left.n + 1] = null;
+		}
+		left.keys[left.n] = null;
+		node.n++;
+	}
+
+	/**
+	 * Move right's first key into node, its left sibling under parent.
+	 * @param parent parent of both.
+	 * @param i node's child index.
+	 * @param node the underfull node.
+	 * @param right node's right sibling.
+	 */
+	private void borrowFromRight(Node parent, int i, Node node, Node right) {
+		if(node.leaf) {
+			node.keys[node.n] = right.keys[0];
+			node.counts[node.n] = right.counts[0];
+			System.arraycopy(right.counts, 1, right.counts, 0, right.n - 1);
+			System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+			right.n--;
+			parent.keys[i] = right.keys[0];
+		} else {
+			node.keys[node.n] = parent.keys[i]; // rotate through the parent.
+			node.children[node.n + 1] = right.children[0];
+			parent.keys[i] = right.keys[0];
+			System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+			System.arraycopy(right.children, 1, right.children, 0, right.n);
+			right.n--;
+			right.children[right.n + 1] = null;
+		}
+		right.keys[right.n] = null;
+		node.n++;
+	}
+
+	/**
+	 * Merge right into left, its left sibling, and remove right and their separator from
+	 * parent.
+	 * @param parent parent of both.
+	 * @param i left's child index, the separator is parent.keys[i].
+	 * @param left surviving node.
+	 * @param right node merged away.
+	 */
+	private void merge(Node parent, int i, Node left, Node right) {
+		if(left.leaf) {
+			System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+			System.arraycopy(right.counts, 0, left.counts, left.n, right.n);
+			left.n += right.n;
+			left.next = right.next;
+			if(right.next != null) {
+				right.next.prev = left;
+			} else {
+				this.tail = left;
+			}
+		} else {
+			left.keys[left.n] = parent.keys[i]; // the separator comes down between them.
+			System.arraycopy(right.keys, 0, left.keys, left.n + 1, right.n);
+			System.arraycopy(right.children, 0, left.children, left.n + 1, right.n + 1);
+			left.n += right.n + 1;
+		}
+		System.arraycopy(parent.keys, i + 1, parent.keys, i, parent.n - i - 1);
+		System.arraycopy(parent.children, i + 2, parent.children, i + 1, parent.n - i - 1);
+		parent.n--;
+		parent.keys[parent.n] = null;
+		parent.children[parent.n + 1] = null;
+	}
+
+	/**
+	 * Return the number of elements e with lo &lt;= e &lt;= hi, by one descent and a scan
+	 * along the leaves, O(log n + k) for k distinct keys in range.
+	 * @param lo low endpoint, inclusive.
+	 * @param hi high endpoint, inclusive.
+	 * @return the number of elements in [lo, hi].
+	 */
+	@SuppressWarnings("unchecked")
+	public int countInRange(T lo, T hi) {
+		int count = 0;
+		Node leaf = this.leafFor(lo);
+		int i = lowerBound(leaf, lo);
+		while(leaf != null) {
+			for(; i < leaf.n; i++) {
+				if(hi.compareTo((T) leaf.keys[i]) < 0) {
+					return count;
+				}
+				count += leaf.counts[i];
+			}
+			leaf = leaf.next;
+			i = 0;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the first key of the root node, null if the tree is empty. Every element
+	 * lives in a leaf, so for a tree taller than one level this is a separator copy.
+	 * @return the root's first key.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public T getRootElement() {
+		return (this.root.n == 0) ? null : (T) this.root.keys[0];
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Get height of tree in number of levels, every leaf is at the same depth.
+	 * @return height of tree in number of levels, 0 if empty.
+	 */
+	@Override
+	public int height() {
+		return this.isEmpty() ? 0 : this.height;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T maximum() {
+		return this.isEmpty() ? null : (T) this.tail.keys[this.tail.n - 1];
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T minimum() {
+		return this.isEmpty() ? null : (T) this.head.keys[0];
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return this.iteratorInOrder();
+	}
+
+	@Override
+	public Iterator<T> iteratorInOrder() {
+		return new LeafIterator();
+	}
+
+	/**
+	 * Every element is in a leaf and all leaves are at the same depth, so a pre-order
+	 * traversal visits the elements in the same order as an In-Order one.
+	 * @return an iterator over the elements in ascending order.
+	 */
+	@Override
+	public Iterator<T> iteratorPreOrder() {
+		return new LeafIterator();
+	}
+
+	/**
+	 * As for iteratorPreOrder, post-order visits the leaves left to right.
+	 * @return an iterator over the elements in ascending order.
+	 */
+	@Override
+	public Iterator<T> iteratorPostOrder() {
+		return new LeafIterator();
+	}
+
+	/**
+	 * As for iteratorPreOrder, the elements are all on the last level, left to right.
+	 * @return an iterator over the elements in ascending order.
+	 */
+	@Override
+	public Iterator<T> iteratorLevelOrder() {
+		return new LeafIterator();
+	}
+
+	/**
+	 * Iterator along the leaf chain, repeating each key count times. Fails fast with a
+	 * ConcurrentModificationException if the tree is modified during iteration.
+	 */
+	private class LeafIterator implements Iterator<T> {
+		private final int expectedModCount = modCount;
+		private final int expectedSize = size; // a counted duplicate changes only the size.
+		private Node leaf = head;
+		private int index;
+		private int repeats;
+
+		@Override
+		public boolean hasNext() {
+			return this.repeats > 0 || this.index < this.leaf.n || this.leaf.next != null;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if(modCount != this.expectedModCount || size != this.expectedSize) {
+				throw new ConcurrentModificationException();
+			}
+			if(this.repeats > 0) {
+				this.repeats--;
+				return (T) this.leaf.keys[this.index - 1];
+			}
+			if(this.index == this.leaf.n) {
+				if(this.leaf.next == null) {
+					throw new NoSuchElementException();
+				}
+				this.leaf = this.leaf.next; // non-root leaves are never empty.
+				this.index = 0;
+			}
+			this.repeats = this.leaf.counts[this.index] - 1;
+			return (T) this.leaf.keys[this.index++];
+		}
+	}
+
+	public String toString() {
+		return print(this.root, 0);
+	}
+
+	/**
+	 * Returns a String of the tree in 'tree' format, one node per line.
+	 * @param node starting node.
+	 * @param level the level the starting node is located within.
+	 * @return a String of the tree in 'tree' format.
+	 */
+	private String print(Node node, int level) {
+		String ret = "";
+		for(int i = 0; i < level; i++) {
+			ret += "\t"; // indent based on level.
+		}
+		ret += "[";
+		for(int i = 0; i < node.n; i++) {
+			ret += (i == 0) ? "" : ", ";
+			ret += node.keys[i];
+			if(node.leaf && node.counts[i] > 1) {
+				ret += " x" + node.counts[i]; // duplicates held by the slot.
+			}
+		}
+		ret += "]\n";
+		if(!node.leaf) {
+			for(int i = 0; i <= node.n; i++) {
+				ret += this.print(node.children[i], level + 1); // recurse into children in order
+			}
+		}
+		return ret;
+	}
+}
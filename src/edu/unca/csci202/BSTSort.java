@@ -1,12 +1,10 @@
 package edu.unca.csci202;
 
 import java.util.Iterator;
-import java.util.LinkedList;
 
 public class BSTSort<T extends Comparable<T>> extends SortingAlgorithm<T> {
 
 	protected BinarySearchTreeADT<T> tree;
-	protected LinkedList<T> list;
 	protected boolean debug;
 	protected int numberOfEdgesFollowed;
 	
@@ -14,33 +12,36 @@ public class BSTSort<T extends Comparable<T>> extends SortingAlgorithm<T> {
 		return this.tree;
 	}
 	
+	/**
+	 * Return the number of edges followed by the inserts of the last sort.
+	 * @return the number of edges followed.
+	 */
+	public int getNumberOfEdgesFollowed() {
+		return this.numberOfEdgesFollowed;
+	}
+	
 	public BSTSort() {
-		this.list = new LinkedList<T>();
 		this.tree = new LinkedBST<T>();
 		this.debug = false;
 		this.numberOfEdgesFollowed=0;
 	}
 	public BSTSort(boolean debug) {
-		this.list = new LinkedList<T>();
 		this.tree = new LinkedBST<T>();
 		this.debug = debug;
 		this.numberOfEdgesFollowed=0;
 	}
 	
-	public void addToBack(T element) {
-		this.list.add(element);
-	}
-
 	public void sort(){
-		Iterator<T> itr = this.list.iterator();
-		while(itr.hasNext()) {
-			this.numberOfEdgesFollowed += this.tree.insert(itr.next());
+		int edges = 0;
+		for(int i = 0; i < this.count; i++) {
+			edges += this.tree.insert(this.get(i));
 		}
-		
+		this.numberOfEdgesFollowed += edges;
+		this.publish(0, 0, edges);
 	}
 	
 	public void clear() {
-		this.list.clear();
+		super.clear();
 		this.tree = new LinkedBST<T>();
 		this.numberOfEdgesFollowed=0;
 	}
@@ -3,6 +3,8 @@
  */
 package edu.unca.csci202;
 
+import java.util.Spliterator;
+import java.util.Spliterators;
 
 /**
  * @author Brian Drawert
@@ -61,6 +63,16 @@ public interface BinarySearchTreeADT<T extends Comparable<T>> extends BinaryTree
 	 */
 	public int size();              // project 6 - override BinaryTree
 	
+	/**
+	 * Spliterator over the elements in ascending order, so it also reports SORTED.
+	 * @return a spliterator over the elements In-Order.
+	 */
+	@Override
+	public default Spliterator<T> spliterator() {
+		return Spliterators.spliterator(this.iterator(), this.size(),
+				Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL);
+	}
+	
 	
 
 	
@@ -2,6 +2,10 @@ package edu.unca.csci202;
 
 
 import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface BinaryTreeADT<T> {
 
@@ -26,4 +30,29 @@ public interface BinaryTreeADT<T> {
 	public Iterator<T> iteratorPostOrder();
 		
 	public Iterator<T> iteratorLevelOrder(); 
+	
+	/**
+	 * Spliterator over the In-Order traversal. This default wraps iterator() and splits by
+	 * copying batches into arrays, implementations that track subtree sizes should override it.
+	 * @return a spliterator over the elements In-Order.
+	 */
+	public default Spliterator<T> spliterator() {
+		return Spliterators.spliterator(this.iterator(), this.size(), Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+	
+	/**
+	 * Sequential stream over the elements In-Order.
+	 * @return a stream of the elements.
+	 */
+	public default Stream<T> stream() {
+		return StreamSupport.stream(this.spliterator(), false);
+	}
+	
+	/**
+	 * Parallel stream over the elements In-Order.
+	 * @return a possibly parallel stream of the elements.
+	 */
+	public default Stream<T> parallelStream() {
+		return StreamSupport.stream(this.spliterator(), true);
+	}
 }
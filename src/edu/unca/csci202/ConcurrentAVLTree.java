@@ -0,0 +1,1189 @@
+package edu.unca.csci202;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe AVL tree using optimistic concurrency control with hand-over-hand version
+ * validation, after Bronson, Casper, Chafi and Olukotun, "A Practical Concurrent Binary
+ * Search Tree" (PPoPP 2010).
+ *
+ * Lookups take no locks. Each node carries a version that a rotation marks as shrinking
+ * while it moves the node down, and bumps when it is done. A reader records a child's
+ * version before following it and checks that the parent's version is unchanged afterwards,
+ * so a search that raced with a rotation notices and retries from the last valid node.
+ * Writers lock only the nodes they relink: the parent for an insert, the parent and node for
+ * an unlink, and at most four nodes around a rotation. Balance is relaxed: heights are
+ * repaired by the thread that damaged them, right after its change, climbing until no
+ * height changes, including above every rotation it made on the way.
+ *
+ * Duplicates are kept as a per-node count, so insert and delete behave like AVLTree's.
+ * Removing the last copy of a key with two children leaves a routing node (count 0) that
+ * still guides searches; it is unlinked once it has at most one child.
+ *
+ * Iterators are weakly consistent: they never throw ConcurrentModificationException and
+ * may or may not reflect changes made while they run.
+ *
+ * @param <T> generic type
+ */
+public class ConcurrentAVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T> {
+	
+	/* version bits */
+	private static final long UNLINKED = 1L;
+	private static final long SHRINKING = 2L;
+	private static final long SHRINK_COUNT = 4L; // one completed shrink.
+	
+	private static final int SPIN_COUNT = 100;
+	private static final int RETRY = -1; // an optimistic read was invalidated.
+	private static final int NOT_FOUND = -2;
+	
+	/* rebalancing conditions, non-negative values are a new height */
+	private static final int UNLINK_REQUIRED = -1;
+	private static final int REBALANCE_REQUIRED = -2;
+	private static final int NOTHING_REQUIRED = -3;
+	
+	/**
+	 * ConcurrentAVLTree Node. A node's key never changes; count 0 marks a routing node.
+	 * Fields are changed only with the node's lock held and are read without it.
+	 */
+	private class Node {
+		private final T key;
+		private volatile int height;
+		private volatile int count;
+		private volatile long version;
+		private volatile Node parent;
+		private volatile Node left;
+		private volatile Node right;
+		
+		/* constructors */
+		public Node(T key, Node parent) {
+			this.key = key;
+			this.height = 1;
+			this.count = 1;
+			this.version = 0L;
+			this.parent = parent;
+		}
+		
+		/**
+		 * Return the child on the given side.
+		 * @param goLeft true for the left child.
+		 * @return the child on that side.
+		 */
+		public Node child(boolean goLeft) {
+			return goLeft ? this.left : this.right;
+		}
+		
+		/**
+		 * Set the child on the given side.
+		 * @param goLeft true for the left child.
+		 * @param child new child.
+		 */
+		public void setChild(boolean goLeft, Node child) {
+			if(goLeft) {
+				this.left = child;
+			} else {
+				this.right = child;
+			}
+		}
+		
+		/**
+		 * Wait for a shrink seen in version ovl to finish. Spins briefly, then blocks on
+		 * the node's lock, which the rotating thread holds until the shrink is over.
+		 * @param ovl version read from this node.
+		 */
+		public void waitUntilShrinkCompleted(long ovl) {
+			if((ovl & SHRINKING) == 0) {
+				return;
+			}
+			for(int i = 0; i < SPIN_COUNT; i++) {
+				if(this.version != ovl) {
+					return;
+				}
+			}
+			synchronized(this) {
+				// the rotation released the lock, so the shrink is done.
+			}
+		}
+	}
+	
+	/* instance variables */
+	private final Node holder; // sentinel, the root is its right child.
+	private final LongAdder size;
+	
+	/* constructors */
+	public ConcurrentAVLTree() {
+		this.holder = new Node(null, null);
+		this.holder.count = 0;
+		this.holder.height = 0;
+		this.size = new LongAdder();
+	}
+	
+	@Override
+	public T getRootElement() {
+		Node root = this.holder.right;
+		if(root == null) {
+			return null;
+		}
+		return root.key;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+	
+	@Override
+	public int size() {
+		return this.size.intValue();
+	}
+	
+	@Override
+	public int height() {
+		return height(this.holder.right);
+	}
+	
+	@Override
+	public boolean contains(T element) {
+		return this.find(element) != null;
+	}
+	
+	@Override
+	public T find(T element) {
+		while(true) {
+			Node root = this.holder.right;
+			if(root == null) {
+				return null;
+			}
+			int cmp = element.compareTo(root.key);
+			if(cmp == 0) {
+				return liveKey(root);
+			}
+			long ovl = root.version;
+			if(isShrinkingOrUnlinked(ovl)) {
+				root.waitUntilShrinkCompleted(ovl);
+			} else if(root == this.holder.right) {
+				Node found = this.attemptFind(element, root, cmp < 0, ovl);
+				if(found != this.holder) { // the holder stands in for RETRY here.
+					return liveKey(found);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Searches below node without locks, validating node's version after each step.
+	 * @param element element to find.
+	 * @param node node reached with version nodeOVL.
+	 * @param goLeft which child of node to search.
+	 * @param nodeOVL node's version when it was reached.
+	 * @return the node holding element, null if absent, or the holder to ask for a retry.
+	 */
+	private Node attemptFind(T element, Node node, boolean goLeft, long nodeOVL) {
+		while(true) {
+			Node child = node.child(goLeft);
+			if(child == null) {
+				if(node.version != nodeOVL) {
+					return this.holder;
+				}
+				return null; // no such key.
+			}
+			int cmp = element.compareTo(child.key);
+			if(cmp == 0) {
+				return child;
+			}
+			long childOVL = child.version;
+			if(isShrinkingOrUnlinked(childOVL)) {
+				child.waitUntilShrinkCompleted(childOVL);
+				if(node.version != nodeOVL) {
+					return this.holder;
+				}
+				// else retry from node.
+			} else if(child != node.child(goLeft)) {
+				if(node.version != nodeOVL) {
+					return this.holder;
+				}
+				// else retry from node.
+			} else {
+				if(node.version != nodeOVL) {
+					return this.holder;
+				}
+				Node found = this.attemptFind(element, child, cmp < 0, childOVL);
+				if(found != this.holder) {
+					return found;
+				}
+				// else retry from node.
+			}
+		}
+	}
+	
+	@Override
+	public int insert(T element) {
+		if(element == null) {
+			throw new NullPointerException();
+		}
+		while(true) {
+			Node root = this.holder.right;
+			if(root == null) {
+				synchronized(this.holder) {
+					if(this.holder.right == null) {
+						this.holder.right = new Node(element, this.holder);
+						this.holder.height = 2;
+						this.size.increment();
+						return 0;
+					}
+				}
+			} else {
+				long ovl = root.version;
+				if(isShrinkingOrUnlinked(ovl)) {
+					root.waitUntilShrinkCompleted(ovl);
+				} else if(root == this.holder.right) {
+					int edges = this.attemptInsert(element, root, ovl, 1);
+					if(edges != RETRY) {
+						this.size.increment();
+						return edges;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Inserts below node, or bumps node's count if it holds element.
+	 * @param element element to insert.
+	 * @param node node reached with version nodeOVL.
+	 * @param nodeOVL node's version when it was reached.
+	 * @param depth number of nodes visited so far, including node.
+	 * @return number of edges traversed, or RETRY.
+	 */
+	private int attemptInsert(T element, Node node, long nodeOVL, int depth) {
+		int cmp = element.compareTo(node.key);
+		if(cmp == 0) {
+			synchronized(node) {
+				if(isUnlinked(node.version)) {
+					return RETRY;
+				}
+				node.count++; // revives a routing node too.
+				return depth - 1; // edges down to node.
+			}
+		}
+		boolean goLeft = cmp < 0;
+		while(true) {
+			Node child = node.child(goLeft);
+			if(node.version != nodeOVL) {
+				return RETRY;
+			}
+			if(child == null) {
+				Node damaged = null;
+				boolean inserted = false;
+				synchronized(node) {
+					if(node.version != nodeOVL) {
+						return RETRY; // node was rotated since we arrived.
+					}
+					if(node.child(goLeft) == null) {
+						node.setChild(goLeft, new Node(element, node));
+						inserted = true;
+						damaged = this.fixHeight(node);
+					}
+					// else lost a race with another insert, retry from node.
+				}
+				if(inserted) {
+					this.fixHeightAndRebalance(damaged);
+					return depth;
+				}
+			} else {
+				long childOVL = child.version;
+				if(isShrinkingOrUnlinked(childOVL)) {
+					child.waitUntilShrinkCompleted(childOVL);
+				} else if(child == node.child(goLeft)) {
+					if(node.version != nodeOVL) {
+						return RETRY;
+					}
+					int edges = this.attemptInsert(element, child, childOVL, depth + 1);
+					if(edges != RETRY) {
+						return edges;
+					}
+				}
+				// else retry from node.
+			}
+		}
+	}
+	
+	@Override
+	public void delete(T element) {
+		while(true) {
+			Node root = this.holder.right;
+			if(root == null) {
+				return;
+			}
+			long ovl = root.version;
+			if(isShrinkingOrUnlinked(ovl)) {
+				root.waitUntilShrinkCompleted(ovl);
+			} else if(root == this.holder.right) {
+				int result = this.attemptDelete(element, this.holder, root, ovl);
+				if(result != RETRY) {
+					if(result != NOT_FOUND) {
+						this.size.decrement();
+					}
+					return;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Removes one occurrence of element from node's subtree.
+	 * @param element element to remove.
+	 * @param parent node's parent.
+	 * @param node node reached with version nodeOVL.
+	 * @param nodeOVL node's version when it was reached.
+	 * @return 0 if removed, NOT_FOUND, or RETRY.
+	 */
+	private int attemptDelete(T element, Node parent, Node node, long nodeOVL) {
+		int cmp = element.compareTo(node.key);
+		if(cmp == 0) {
+			return this.attemptNodeDelete(parent, node);
+		}
+		boolean goLeft = cmp < 0;
+		while(true) {
+			Node child = node.child(goLeft);
+			if(node.version != nodeOVL) {
+				return RETRY;
+			}
+			if(child == null) {
+				return NOT_FOUND;
+			}
+			long childOVL = child.version;
+			if(isShrinkingOrUnlinked(childOVL)) {
+				child.waitUntilShrinkCompleted(childOVL);
+			} else if(child == node.child(goLeft)) {
+				if(node.version != nodeOVL) {
+					return RETRY;
+				}
+				int result = this.attemptDelete(element, node, child, childOVL);
+				if(result != RETRY) {
+					return result;
+				}
+			}
+			// else retry from node.
+		}
+	}
+	
+	/**
+	 * Removes one occurrence of node's key. The last copy unlinks the node when it has at
+	 * most one child (locking parent, then node), otherwise leaves it as a routing node.
+	 * @param parent node's parent.
+	 * @param node node holding the key.
+	 * @return 0 if removed, NOT_FOUND, or RETRY.
+	 */
+	private int attemptNodeDelete(Node parent, Node node) {
+		if(node.count == 0) {
+			return NOT_FOUND; // a routing node, the key is not present.
+		}
+		if(node.count == 1 && (node.left == null || node.right == null)) {
+			Node damaged;
+			synchronized(parent) {
+				if(isUnlinked(parent.version) || node.parent != parent) {
+					return RETRY;
+				}
+				synchronized(node) {
+					int count = node.count;
+					if(count == 0) {
+						return NOT_FOUND;
+					}
+					if(count > 1) {
+						node.count = count - 1;
+						return 0;
+					}
+					if(!this.attemptUnlink(parent, node)) {
+						return RETRY;
+					}
+				}
+				damaged = this.fixHeight(parent);
+			}
+			this.fixHeightAndRebalance(damaged);
+			return 0;
+		}
+		synchronized(node) {
+			if(isUnlinked(node.version)) {
+				return RETRY;
+			}
+			int count = node.count;
+			if(count == 0) {
+				return NOT_FOUND;
+			}
+			if(count == 1 && (node.left == null || node.right == null)) {
+				return RETRY; // a child went away, unlink instead.
+			}
+			node.count = count - 1; // may leave a routing node with two children.
+			return 0;
+		}
+	}
+	
+	/**
+	 * Splices node out of the tree. parent and node must be locked.
+	 * @param parent node's parent.
+	 * @param node node with at most one child.
+	 * @return false if the tree changed so that node can't be unlinked from parent.
+	 */
+	private boolean attemptUnlink(Node parent, Node node) {
+		Node parentLeft = parent.left;
+		Node parentRight = parent.right;
+		if(parentLeft != node && parentRight != node) {
+			return false; // no longer parent's child.
+		}
+		Node left = node.left;
+		Node right = node.right;
+		if(left != null && right != null) {
+			return false; // got a second child meanwhile.
+		}
+		Node splice = (left != null) ? left : right;
+		if(parentLeft == node) {
+			parent.left = splice;
+		} else {
+			parent.right = splice;
+		}
+		if(splice != null) {
+			splice.parent = parent;
+		}
+		node.version = UNLINKED;
+		node.count = 0;
+		return true;
+	}
+	
+	/**
+	 * Return what node needs: UNLINK_REQUIRED, REBALANCE_REQUIRED, NOTHING_REQUIRED, or
+	 * its correct height when only that is wrong. Reads are unlocked; any thread that
+	 * changes node afterwards takes over responsibility for repairing it.
+	 * @param node node to check.
+	 * @return the repair node needs.
+	 */
+	private int nodeCondition(Node node) {
+		Node left = node.left;
+		Node right = node.right;
+		if((left == null || right == null) && node.count == 0) {
+			return UNLINK_REQUIRED;
+		}
+		int leftHeight = height(left);
+		int rightHeight = height(right);
+		int newHeight = 1 + Math.max(leftHeight, rightHeight);
+		int balance = leftHeight - rightHeight;
+		if(balance < -1 || balance > 1) {
+			return REBALANCE_REQUIRED;
+		}
+		return (node.height != newHeight) ? newHeight : NOTHING_REQUIRED;
+	}
+	
+	/**
+	 * Climbs from a damaged node, fixing heights and rotating or unlinking as needed until
+	 * nothing more is required. Each step locks only the node, or its parent and the node.
+	 *
+	 * A rotation that leaves a node inside the rotated subtree to repair first returns that
+	 * node, before the height of the node above the rotation was fixed. The climb from the
+	 * deeper node can stop below it, where a height came out unchanged, so the node above
+	 * each such rotation is kept and the climb resumes there.
+	 * @param node lowest damaged node (may be null).
+	 */
+	private void fixHeightAndRebalance(Node node) {
+		Deque<Node> above = null; // nodes above rotations whose repair was deferred, lowest on top.
+		while(true) {
+			if(node == null || node.parent == null || isUnlinked(node.version)
+					|| this.nodeCondition(node) == NOTHING_REQUIRED) {
+				if(above == null || above.isEmpty()) {
+					return;
+				}
+				node = above.pop(); // an unlinked node's parent was repaired by the unlinker.
+				continue;
+			}
+			int condition = this.nodeCondition(node);
+			if(condition == NOTHING_REQUIRED) {
+				continue; // repaired by another thread meanwhile.
+			}
+			if(condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED) {
+				synchronized(node) {
+					node = this.fixHeight(node);
+				}
+			} else {
+				Node parent = node.parent;
+				synchronized(parent) {
+					if(!isUnlinked(parent.version) && node.parent == parent) {
+						Node grandparent = parent.parent;
+						synchronized(node) {
+							node = this.rebalance(parent, node);
+						}
+						if(node != null && node != parent && node != grandparent) {
+							if(above == null) {
+								above = new ArrayDeque<Node>();
+							}
+							above.push(parent); // node is below parent, whose height may be stale.
+						}
+					}
+					// else retry with node's new parent.
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Fixes the height of a locked node if that is all it needs.
+	 * @param node locked node.
+	 * @return the next node this thread must repair, null if none.
+	 */
+	private Node fixHeight(Node node) {
+		int condition = this.nodeCondition(node);
+		switch(condition) {
+			case REBALANCE_REQUIRED:
+			case UNLINK_REQUIRED:
+				return node; // needs the parent's lock too.
+			case NOTHING_REQUIRED:
+				return null;
+			default:
+				node.height = condition;
+				return node.parent; // the parent's height may be stale now.
+		}
+	}
+	
+	/**
+	 * Unlinks, rotates or fixes the height of node. parent and node must be locked.
+	 * @param parent node's parent.
+	 * @param node node to repair.
+	 * @return the next node this thread must repair, null if none.
+	 */
+	private Node rebalance(Node parent, Node node) {
+		Node left = node.left;
+		Node right = node.right;
+		if((left == null || right == null) && node.count == 0) {
+			if(this.attemptUnlink(parent, node)) {
+				return this.fixHeight(parent);
+			}
+			return node; // retry.
+		}
+		int leftHeight = height(left);
+		int rightHeight = height(right);
+		int newHeight = 1 + Math.max(leftHeight, rightHeight);
+		int balance = leftHeight - rightHeight;
+		if(balance > 1) {
+			return this.rebalanceToRight(parent, node, left, rightHeight);
+		} else if(balance < -1) {
+			return this.rebalanceToLeft(parent, node, right, leftHeight);
+		} else if(newHeight != node.height) {
+			node.height = newHeight;
+			return this.fixHeight(parent);
+		}
+		return null;
+	}
+	
+	/**
+	 * Node's left subtree is too tall: rotate right, first rotating the left child left if
+	 * its inner subtree is the taller one. parent and node must be locked.
+	 * @param parent node's parent.
+	 * @param node unbalanced node.
+	 * @param left node's left child.
+	 * @param rightHeight height of node's right subtree.
+	 * @return the next node this thread must repair, null if none.
+	 */
+	private Node rebalanceToRight(Node parent, Node node, Node left, int rightHeight) {
+		synchronized(left) {
+			int leftHeight = left.height;
+			if(leftHeight - rightHeight <= 1) {
+				return node; // changed meanwhile, retry.
+			}
+			Node leftRight = left.right;
+			int leftLeftHeight = height(left.left);
+			int leftRightHeight = height(leftRight);
+			if(leftLeftHeight >= leftRightHeight) {
+				return this.rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+			}
+			synchronized(leftRight) {
+				leftRightHeight = leftRight.height;
+				if(leftLeftHeight >= leftRightHeight) {
+					return this.rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+				}
+				int leftRightLeftHeight = height(leftRight.left);
+				int balance = leftLeftHeight - leftRightLeftHeight;
+				if(balance >= -1 && balance <= 1) {
+					return this.rotateRightOverLeft(parent, node, left, rightHeight, leftLeftHeight,
+							leftRight, leftRightLeftHeight);
+				}
+			}
+			// a double rotation would leave left damaged, fix left on its own first.
+			return this.rebalanceToLeft(node, left, leftRight, leftLeftHeight);
+		}
+	}
+	
+	/**
+	 * Node's right subtree is too tall, the mirror image of rebalanceToRight.
+	 * @param parent node's parent.
+	 * @param node unbalanced node.
+	 * @param right node's right child.
+	 * @param leftHeight height of node's left subtree.
+	 * @return the next node this thread must repair, null if none.
+	 */
+	private Node rebalanceToLeft(Node parent, Node node, Node right, int leftHeight) {
+		synchronized(right) {
+			int rightHeight = right.height;
+			if(leftHeight - rightHeight >= -1) {
+				return node; // changed meanwhile, retry.
+			}
+			Node rightLeft = right.left;
+			int rightLeftHeight = height(rightLeft);
+			int rightRightHeight = height(right.right);
+			if(rightRightHeight >= rightLeftHeight) {
+				return this.rotateLeft(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+			}
+			synchronized(rightLeft) {
+				rightLeftHeight = rightLeft.height;
+				if(rightRightHeight >= rightLeftHeight) {
+					return this.rotateLeft(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+				}
+				int rightLeftRightHeight = height(rightLeft.right);
+				int balance = rightRightHeight - rightLeftRightHeight;
+				if(balance >= -1 && balance <= 1) {
+					return this.rotateLeftOverRight(parent, node, leftHeight, right, rightLeft,
+							rightRightHeight, rightLeftRightHeight);
+				}
+			}
+			return this.rebalanceToRight(node, right, rightLeft, rightRightHeight);
+		}
+	}
+	
+	/**
+	 * Performs a right rotation on node, marking node as shrinking while it moves down.
+	 * parent, node and left must be locked.
+	 * @return the next node this thread must repair, null if none.
+	 */
+	private Node rotateRight(Node parent, Node node, Node left, int rightHeight, int leftLeftHeight,
+			Node leftRight, int leftRightHeight) {
+		long nodeOVL = node.version;
+		Node parentLeft = parent.left;
+		node.version = nodeOVL | SHRINKING;
+		
+		node.left = leftRight;
+		if(leftRight != null) {
+			leftRight.parent = node;
+		}
+		left.right = node;
+		node.parent = left;
+		if(parentLeft == node) {
+			parent.left = left;
+		} else {
+			parent.right = left;
+		}
+		left.parent = parent;
+		
+		int nodeHeight = 1 + Math.max(leftRightHeight, rightHeight);
+		node.height = nodeHeight;
+		left.height = 1 + Math.max(leftLeftHeight, nodeHeight);
+		node.version = nodeOVL + SHRINK_COUNT;
+		
+		// repair what we can with the locks we hold, deepest first.
+		int nodeBalance = leftRightHeight - rightHeight;
+		if(nodeBalance < -1 || nodeBalance > 1) {
+			return node;
+		}
+		if((leftRight == null || rightHeight == 0) && node.count == 0) {
+			return node; // node became an unneeded routing node.
+		}
+		int leftBalance = leftLeftHeight - nodeHeight;
+		if(leftBalance < -1 || leftBalance > 1) {
+			return left;
+		}
+		if(leftLeftHeight == 0 && left.count == 0) {
+			return left;
+		}
+		return this.fixHeight(parent);
+	}
+	
+	/**
+	 * Performs a left rotation on node, the mirror image of rotateRight.
+	 * @return the next node this thread must repair, null if none.
+	 */
+	private Node rotateLeft(Node parent, Node node, int leftHeight, Node right, Node rightLeft,
+			int rightLeftHeight, int rightRightHeight) {
+		long nodeOVL = node.version;
+		Node parentLeft = parent.left;
+		node.version = nodeOVL | SHRINKING;
+		
+		node.right = rightLeft;
+		if(rightLeft != null) {
+			rightLeft.parent = node;
+		}
+		right.left = node;
+		node.parent = right;
+		if(parentLeft == node) {
+			parent.left = right;
+		} else {
+			parent.right = right;
+		}
+		right.parent = parent;
+		
+		int nodeHeight = 1 + Math.max(leftHeight, rightLeftHeight);
+		node.height = nodeHeight;
+		right.height = 1 + Math.max(nodeHeight, rightRightHeight);
+		node.version = nodeOVL + SHRINK_COUNT;
+		
+		int nodeBalance = rightLeftHeight - leftHeight;
+		if(nodeBalance < -1 || nodeBalance > 1) {
+			return node;
+		}
+		if((rightLeft == null || leftHeight == 0) && node.count == 0) {
+			return node;
+		}
+		int rightBalance = rightRightHeight - nodeHeight;
+		if(rightBalance < -1 || rightBalance > 1) {
+			return right;
+		}
+		if(rightRightHeight == 0 && right.count == 0) {
+			return right;
+		}
+		return this.fixHeight(parent);
+	}
+	
+	/**
+	 * Left-right double rotation: leftRight becomes the subtree root with left and node as
+	 * its children. parent, node, left and leftRight must be locked.
+	 * @return the next node this thread must repair, null if none.
+	 */
+	private Node rotateRightOverLeft(Node parent, Node node, Node left, int rightHeight, int leftLeftHeight,
+			Node leftRight, int leftRightLeftHeight) {
+		long nodeOVL = node.version;
+		long leftOVL = left.version;
+		Node parentLeft = parent.left;
+		Node leftRightLeft = leftRight.left;
+		Node leftRightRight = leftRight.right;
+		int leftRightRightHeight = height(leftRightRight);
+		node.version = nodeOVL | SHRINKING;
+		left.version = leftOVL | SHRINKING;
+		
+		node.left = leftRightRight;
+		if(leftRightRight != null) {
+			leftRightRight.parent = node;
+		}
+		left.right = leftRightLeft;
+		if(leftRightLeft != null) {
+			leftRightLeft.parent = left;
+		}
+		leftRight.left = left;
+		left.parent = leftRight;
+		leftRight.right = node;
+		node.parent = leftRight;
+		if(parentLeft == node) {
+			parent.left = leftRight;
+		} else {
+			parent.right = leftRight;
+		}
+		leftRight.parent = parent;
+		
+		int nodeHeight = 1 + Math.max(leftRightRightHeight, rightHeight);
+		node.height = nodeHeight;
+		int leftHeight = 1 + Math.max(leftLeftHeight, leftRightLeftHeight);
+		left.height = leftHeight;
+		leftRight.height = 1 + Math.max(leftHeight, nodeHeight);
+		node.version = nodeOVL + SHRINK_COUNT;
+		left.version = leftOVL + SHRINK_COUNT;
+		
+		int nodeBalance = leftRightRightHeight - rightHeight;
+		if(nodeBalance < -1 || nodeBalance > 1) {
+			return node;
+		}
+		if((leftRightRight == null || rightHeight == 0) && node.count == 0) {
+			return node;
+		}
+		if((leftLeftHeight == 0 || leftRightLeft == null) && left.count == 0) {
+			return left; // left became an unneeded routing node.
+		}
+		int topBalance = leftHeight - nodeHeight;
+		if(topBalance < -1 || topBalance > 1) {
+			return leftRight;
+		}
+		return this.fixHeight(parent);
+	}
+	
+	/**
+	 * Right-left double rotation, the mirror image of rotateRightOverLeft.
+	 * @return the next node this thread must repair, null if none.
+	 */
+	private Node rotateLeftOverRight(Node parent, Node node, int leftHeight, Node right, Node rightLeft,
+			int rightRightHeight, int rightLeftRightHeight) {
+		long nodeOVL = node.version;
+		long rightOVL = right.version;
+		Node parentLeft = parent.left;
+		Node rightLeftLeft = rightLeft.left;
+		Node rightLeftRight = rightLeft.right;
+		int rightLeftLeftHeight = height(rightLeftLeft);
+		node.version = nodeOVL | SHRINKING;
+		right.version = rightOVL | SHRINKING;
+		
+		node.right = rightLeftLeft;
+		if(rightLeftLeft != null) {
+			rightLeftLeft.parent = node;
+		}
+		right.left = rightLeftRight;
+		if(rightLeftRight != null) {
+			rightLeftRight.parent = right;
+		}
+		rightLeft.right = right;
+		right.parent = rightLeft;
+		rightLeft.left = node;
+		node.parent = rightLeft;
+		if(parentLeft == node) {
+			parent.left = rightLeft;
+		} else {
+			parent.right = rightLeft;
+		}
+		rightLeft.parent = parent;
+		
+		int nodeHeight = 1 + Math.max(leftHeight, rightLeftLeftHeight);
+		node.height = nodeHeight;
+		int rightHeight = 1 + Math.max(rightLeftRightHeight, rightRightHeight);
+		right.height = rightHeight;
+		rightLeft.height = 1 + Math.max(nodeHeight, rightHeight);
+		node.version = nodeOVL + SHRINK_COUNT;
+		right.version = rightOVL + SHRINK_COUNT;
+		
+		int nodeBalance = rightLeftLeftHeight - leftHeight;
+		if(nodeBalance < -1 || nodeBalance > 1) {
+			return node;
+		}
+		if((rightLeftLeft == null || leftHeight == 0) && node.count == 0) {
+			return node;
+		}
+		if((rightRightHeight == 0 || rightLeftRight == null) && right.count == 0) {
+			return right; // right became an unneeded routing node.
+		}
+		int topBalance = rightHeight - nodeHeight;
+		if(topBalance < -1 || topBalance > 1) {
+			return rightLeft;
+		}
+		return this.fixHeight(parent);
+	}
+	
+	@Override
+	public T minimum() {
+		return liveKey(this.seek(null, true, true));
+	}
+	
+	@Override
+	public T maximum() {
+		return liveKey(this.seek(null, true, false));
+	}
+	
+	/**
+	 * Return the number of elements e with lo &lt;= e &lt;= hi, counting duplicates. Walks
+	 * the range with validated seeks, so it costs O(k log n) for k distinct keys in range and
+	 * is weakly consistent like the iterators.
+	 * @param lo low endpoint, inclusive.
+	 * @param hi high endpoint, inclusive.
+	 * @return the number of elements in [lo, hi], 0 if lo &gt; hi.
+	 */
+	public int countInRange(T lo, T hi) {
+		int count = 0;
+		for(Node node = this.seek(lo, true, true); node != null && node.key.compareTo(hi) <= 0;
+				node = this.seek(node.key, false, true)) {
+			count += node.count;
+		}
+		return count;
+	}
+	
+	/**
+	 * Finds the first node holding a key at or past key in the given direction, skipping
+	 * routing nodes. Each descent is validated hand-over-hand and restarts from the root if
+	 * a rotation gets in the way.
+	 * @param key starting key, null for the first key in that direction.
+	 * @param inclusive whether a node equal to key qualifies.
+	 * @param ascending true to find the ceiling, false to find the floor.
+	 * @return the node found, null if there is none.
+	 */
+	private Node seek(T key, boolean inclusive, boolean ascending) {
+		while(true) {
+			Node best = this.seekAny(key, inclusive, ascending);
+			if(best == null || best.count > 0) {
+				return best;
+			}
+			key = best.key; // a routing node, continue past it.
+			inclusive = false;
+		}
+	}
+	
+	/**
+	 * One validated descent of seek, routing nodes included.
+	 * @param key starting key, null for the first key in that direction.
+	 * @param inclusive whether a node equal to key qualifies.
+	 * @param ascending true to find the ceiling, false to find the floor.
+	 * @return the node found, null if there is none.
+	 */
+	private Node seekAny(T key, boolean inclusive, boolean ascending) {
+		retry:
+		while(true) {
+			Node best = null;
+			Node node = this.holder;
+			long nodeOVL = node.version;
+			boolean goLeft = false; // the root is the holder's right child.
+			while(true) {
+				Node child = node.child(goLeft);
+				if(child == null) {
+					if(node.version != nodeOVL) {
+						continue retry;
+					}
+					return best;
+				}
+				long childOVL = child.version;
+				if(isShrinkingOrUnlinked(childOVL)) {
+					child.waitUntilShrinkCompleted(childOVL);
+					continue retry;
+				}
+				if(child != node.child(goLeft) || node.version != nodeOVL) {
+					continue retry;
+				}
+				int cmp = (key == null) ? (ascending ? 1 : -1) : child.key.compareTo(key);
+				if(!ascending) {
+					cmp = -cmp;
+				}
+				if(cmp > 0 || (inclusive && cmp == 0)) {
+					best = child; // qualifies, look for a closer one.
+					goLeft = ascending;
+				} else {
+					goLeft = !ascending;
+				}
+				node = child;
+				nodeOVL = childOVL;
+			}
+		}
+	}
+	
+	@Override
+	public Iterator<T> iterator() {
+		return this.iteratorInOrder();
+	}
+	
+	/**
+	 * Weakly consistent ascending iterator. Each step seeks the next key after the last one
+	 * returned, so it never repeats or skips a key that stays in the tree.
+	 */
+	@Override
+	public Iterator<T> iteratorInOrder() {
+		return new Iterator<T>() {
+			private Node next = seek(null, true, true);
+			private int remaining = (this.next == null) ? 0 : Math.max(1, this.next.count);
+			
+			@Override
+			public boolean hasNext() {
+				return this.next != null && this.remaining > 0;
+			}
+			
+			@Override
+			public T next() {
+				if(!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				T key = this.next.key;
+				if(--this.remaining == 0) {
+					this.next = seek(key, false, true);
+					this.remaining = (this.next == null) ? 0 : Math.max(1, this.next.count);
+				}
+				return key;
+			}
+		};
+	}
+	
+	/**
+	 * Weakly consistent spliterator over the In-Order iterator. The size is not reported
+	 * because other threads may change it while a stream runs.
+	 */
+	@Override
+	public Spliterator<T> spliterator() {
+		return Spliterators.spliteratorUnknownSize(this.iteratorInOrder(),
+				Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL | Spliterator.CONCURRENT);
+	}
+	
+	/**
+	 * Weakly consistent Pre-Order iterator over the current links, it may miss or repeat
+	 * keys moved by concurrent rotations.
+	 */
+	@Override
+	public Iterator<T> iteratorPreOrder() {
+		return new StructureIterator(Order.PRE);
+	}
+	
+	/**
+	 * Weakly consistent Post-Order iterator over the current links, it may miss or repeat
+	 * keys moved by concurrent rotations.
+	 */
+	@Override
+	public Iterator<T> iteratorPostOrder() {
+		return new StructureIterator(Order.POST);
+	}
+	
+	/**
+	 * Weakly consistent Level-Order iterator over the current links, it may miss or repeat
+	 * keys moved by concurrent rotations.
+	 */
+	@Override
+	public Iterator<T> iteratorLevelOrder() {
+		return new StructureIterator(Order.LEVEL);
+	}
+	
+	/** The traversal orders of StructureIterator. */
+	private enum Order { PRE, POST, LEVEL }
+	
+	/**
+	 * Walks the links without validation in pre-, post- or level-order, skipping routing
+	 * nodes and repeating keys by their count.
+	 */
+	private class StructureIterator implements Iterator<T> {
+		private final Order order;
+		private final Deque<Node> work = new ArrayDeque<Node>();
+		private final Deque<Node> expanded = new ArrayDeque<Node>(); // post-order: children pushed.
+		private T nextKey;
+		private int remaining;
+		
+		StructureIterator(Order order) {
+			this.order = order;
+			Node root = holder.right;
+			if(root != null) {
+				this.work.push(root);
+			}
+			this.advance();
+		}
+		
+		/**
+		 * Moves to the next live node in this order.
+		 */
+		private void advance() {
+			while(!this.work.isEmpty()) {
+				Node node;
+				if(this.order == Order.LEVEL) {
+					node = this.work.remove();
+					this.offerChildren(node, false);
+				} else if(this.order == Order.PRE) {
+					node = this.work.pop();
+					this.offerChildren(node, true);
+				} else {
+					node = this.work.peek();
+					if(this.expanded.peek() != node) {
+						this.expanded.push(node); // visit the children first.
+						Node right = node.right;
+						Node left = node.left;
+						if(right != null) {
+							this.work.push(right);
+						}
+						if(left != null) {
+							this.work.push(left);
+						}
+						continue;
+					}
+					this.expanded.pop();
+					this.work.pop();
+				}
+				int count = node.count;
+				if(count > 0) {
+					this.nextKey = node.key;
+					this.remaining = count;
+					return;
+				}
+			}
+			this.nextKey = null;
+			this.remaining = 0;
+		}
+		
+		/**
+		 * Queues node's children: pushed right then left for pre-order, appended left then
+		 * right for level-order.
+		 * @param node node whose children to queue.
+		 * @param stack true to push onto the stack, false to append to the queue.
+		 */
+		private void offerChildren(Node node, boolean stack) {
+			Node left = node.left;
+			Node right = node.right;
+			if(stack) {
+				if(right != null) {
+					this.work.push(right);
+				}
+				if(left != null) {
+					this.work.push(left);
+				}
+			} else {
+				if(left != null) {
+					this.work.add(left);
+				}
+				if(right != null) {
+					this.work.add(right);
+				}
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return this.remaining > 0;
+		}
+		
+		@Override
+		public T next() {
+			if(this.remaining == 0) {
+				throw new NoSuchElementException();
+			}
+			T key = this.nextKey;
+			if(--this.remaining == 0) {
+				this.advance();
+			}
+			return key;
+		}
+	}
+	
+	public String toString() {
+		return print(this.holder.right, 0);
+	}
+	
+	/**
+	 * Returns a String of the tree in 'tree' format, routing nodes in parentheses.
+	 * @param node starting node.
+	 * @param level the level the starting node is located within.
+	 * @return a String of the tree in 'tree' format.
+	 */
+	private String print(Node node, int level) {
+		String ret = "";
+		if(node != null) {
+			for(int i = 0; i < level; i++) { // indent based on level.
+				ret += "\t";
+			}
+			ret += (node.count > 0) ? String.valueOf(node.key) : "(" + node.key + ")";
+			ret += "\n";
+			ret += this.print(node.right, level + 1); // recurse right
+			ret += this.print(node.left, level + 1); // recurse left
+		}
+		return ret;
+	}
+	
+	/**
+	 * Returns node's key if node holds at least one copy of it, null otherwise.
+	 * @param node node to read (may be null).
+	 * @return node's key, or null.
+	 */
+	private T liveKey(Node node) {
+		if(node == null || node.count == 0) {
+			return null;
+		}
+		return node.key;
+	}
+	
+	/**
+	 * Returns node's height, 0 for null.
+	 * @param node node to read (may be null).
+	 * @return node's height.
+	 */
+	private int height(Node node) {
+		return (node == null) ? 0 : node.height;
+	}
+	
+	private static boolean isShrinkingOrUnlinked(long ovl) {
+		return (ovl & (SHRINKING | UNLINKED)) != 0;
+	}
+	
+	private static boolean isUnlinked(long ovl) {
+		return (ovl & UNLINKED) != 0;
+	}
+}
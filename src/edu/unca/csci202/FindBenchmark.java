@@ -0,0 +1,88 @@
+package edu.unca.csci202;
+
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Compares AVLTree.find, which descends one root-to-leaf path with compareTo,
+ * against a full-tree equals() scan (what find used to do) at 10^6 keys.
+ * Run with: java edu.unca.csci202.FindBenchmark [numberOfKeys]
+ */
+public class FindBenchmark {
+
+	private static final int DEFAULT_KEYS = 1000000;
+	private static final int SCAN_LOOKUPS = 200;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) {
+		int n = DEFAULT_KEYS;
+		if(args.length > 0) {
+			n = Integer.parseInt(args[0]);
+		}
+		Random rnd = new Random(42);
+		
+		// insert 0..n-1 in shuffled order.
+		int[] keys = new int[n];
+		for(int i = 0; i < n; i++) {
+			keys[i] = i;
+		}
+		for(int i = n - 1; i > 0; i--) {
+			int j = rnd.nextInt(i + 1);
+			int tmp = keys[i];
+			keys[i] = keys[j];
+			keys[j] = tmp;
+		}
+		AVLTree<Integer> tree = new AVLTree<Integer>();
+		for(int i = 0; i < n; i++) {
+			tree.insert(keys[i]);
+		}
+		
+		// box the probe keys up front so neither loop measures allocation.
+		Integer[] probes = new Integer[n];
+		for(int i = 0; i < n; i++) {
+			probes[i] = rnd.nextInt(n);
+		}
+		
+		long found = 0; // consumed below so the JIT can't drop the loops.
+		double descentNs = 0;
+		double scanNs = 0;
+		for(int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for(int i = 0; i < n; i++) {
+				if(tree.find(probes[i]) != null) {
+					found++;
+				}
+			}
+			descentNs = (System.nanoTime() - start) / (double) n;
+			
+			start = System.nanoTime();
+			for(int i = 0; i < SCAN_LOOKUPS; i++) {
+				if(scan(tree, probes[i]) != null) {
+					found++;
+				}
+			}
+			scanNs = (System.nanoTime() - start) / (double) SCAN_LOOKUPS;
+			
+			System.out.printf("round %d: descent %.1f ns/op  scan %.1f ns/op  speedup %.0fx%n",
+					round, descentNs, scanNs, scanNs / descentNs);
+		}
+		System.out.println("keys=" + n + " heightOfTree=" + tree.height() + " found=" + found);
+	}
+	
+	/**
+	 * Full-tree equals() scan, the lookup strategy find used before it followed the ordering.
+	 * @param tree tree to scan.
+	 * @param target element to look for.
+	 * @return the matching element, or null if not found.
+	 */
+	private static Integer scan(AVLTree<Integer> tree, Integer target) {
+		Iterator<Integer> itr = tree.iteratorInOrder();
+		while(itr.hasNext()) {
+			Integer element = itr.next();
+			if(element.equals(target)) {
+				return element;
+			}
+		}
+		return null;
+	}
+}
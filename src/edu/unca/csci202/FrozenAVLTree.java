@@ -0,0 +1,357 @@
+package edu.unca.csci202;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Immutable, array based snapshot of an AVLTree, made by AVLTree.freeze() for trees that
+ * are built once and then only queried. The elements sit in one Object[] in Eytzinger (BFS)
+ * order: slot 1 is the root and the children of slot k are slots 2k and 2k + 1, so the
+ * tree is complete, has no nodes or links, and costs one reference per element plus one
+ * unused slot.
+ *
+ * A search walks k = 2k + (key &gt; a[k]) with no branch on the comparison result, and the
+ * four levels below slot k sit in the 16 consecutive slots from 16k, one cache line of
+ * compressed references, so the memory access pattern is predictable for the hardware
+ * prefetcher. Traversals (In-Order, pre-order, post-order, level-order) step by index
+ * arithmetic. Every mutator throws UnsupportedOperationException.
+ *
+ * @param <T> generic type
+ */
+public class FrozenAVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T> {
+
+	/* instance variables */
+	private final Object[] a; // Eytzinger order, slot 0 unused.
+	private final int n;
+
+	/* constructors */
+	/**
+	 * Lay out elements, already in non-decreasing order, in Eytzinger order.
+	 * @param sorted elements in non-decreasing order.
+	 */
+	FrozenAVLTree(Object[] sorted) {
+		this.n = sorted.length;
+		this.a = new Object[this.n + 1];
+		int k = this.first();
+		for(Object element : sorted) {
+			this.a[k] = element; // the In-Order walk visits the slots in sorted order.
+			k = this.successor(k);
+		}
+	}
+
+	/**
+	 * Returns the element in slot k.
+	 * @param k slot, 1 to n.
+	 * @return the element.
+	 */
+	@SuppressWarnings("unchecked")
+	private T at(int k) {
+		return (T) this.a[k];
+	}
+
+	/**
+	 * Returns the slot of the first element at or above key, 0 if there is none.
+	 * @param key key to search for.
+	 * @return the lower bound slot.
+	 */
+	private int lowerBound(T key) {
+		int k = 1;
+		while(k <= this.n) {
+			k = 2 * k + ((key.compareTo(this.at(k)) > 0) ? 1 : 0); // right when key > a[k].
+		}
+		return k >> (Integer.numberOfTrailingZeros(~k) + 1); // undo the final right turns and one left.
+	}
+
+	/**
+	 * Returns the slot of the first element above key, 0 if there is none.
+	 * @param key key to search for.
+	 * @return the upper bound slot.
+	 */
+	private int upperBound(T key) {
+		int k = 1;
+		while(k <= this.n) {
+			k = 2 * k + ((key.compareTo(this.at(k)) >= 0) ? 1 : 0);
+		}
+		return k >> (Integer.numberOfTrailingZeros(~k) + 1);
+	}
+
+	/**
+	 * Returns the slot of the smallest element.
+	 * @return the leftmost slot, 0 if empty.
+	 */
+	private int first() {
+		if(this.n == 0) {
+			return 0;
+		}
+		return Integer.highestOneBit(this.n); // leftmost slot of the deepest level.
+	}
+
+	/**
+	 * Returns the slot of the largest element.
+	 * @return the rightmost slot, 0 if empty.
+	 */
+	private int last() {
+		int k = 0;
+		while(2 * k + 1 <= this.n) {
+			k = 2 * k + 1;
+		}
+		return k;
+	}
+
+	/**
+	 * Returns the In-Order successor slot of k.
+	 * @param k slot.
+	 * @return the next slot In-Order, 0 after the largest.
+	 */
+	private int successor(int k) {
+		if(2 * k + 1 <= this.n) {
+			k = 2 * k + 1; // leftmost slot of the right subtree.
+			while(2 * k <= this.n) {
+				k = 2 * k;
+			}
+			return k;
+		}
+		return k >> (Integer.numberOfTrailingZeros(~k) + 1); // climb past the right children.
+	}
+
+	/**
+	 * Returns the In-Order predecessor slot of k.
+	 * @param k slot.
+	 * @return the previous slot In-Order, 0 before the smallest.
+	 */
+	private int predecessor(int k) {
+		if(2 * k <= this.n) {
+			k = 2 * k; // rightmost slot of the left subtree.
+			while(2 * k + 1 <= this.n) {
+				k = 2 * k + 1;
+			}
+			return k;
+		}
+		return k >> (Integer.numberOfTrailingZeros(k) + 1); // climb past the left children.
+	}
+
+	@Override
+	public T find(T targetElement) {
+		int k = this.lowerBound(targetElement);
+		if(k != 0 && targetElement.compareTo(this.at(k)) == 0) {
+			return this.at(k);
+		}
+		return null;
+	}
+
+	@Override
+	public boolean contains(T targetElement) {
+		return this.find(targetElement) != null;
+	}
+
+	/**
+	 * Return the greatest element less than or equal to element.
+	 * @param element element to compare against.
+	 * @return the floor of element, null if every element is greater.
+	 */
+	public T floor(T element) {
+		int k = this.upperBound(element);
+		k = (k == 0) ? this.last() : this.predecessor(k);
+		return (k == 0) ? null : this.at(k);
+	}
+
+	/**
+	 * Return the least element greater than or equal to element.
+	 * @param element element to compare against.
+	 * @return the ceiling of element, null if every element is less.
+	 */
+	public T ceiling(T element) {
+		int k = this.lowerBound(element);
+		return (k == 0) ? null : this.at(k);
+	}
+
+	@Override
+	public T getRootElement() {
+		return (this.n == 0) ? null : this.at(1);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.n == 0;
+	}
+
+	@Override
+	public int size() {
+		return this.n;
+	}
+
+	/**
+	 * Get height of tree in number of levels, the layout is a complete binary tree.
+	 * @return height of tree in number of levels.
+	 */
+	@Override
+	public int height() {
+		return 32 - Integer.numberOfLeadingZeros(this.n);
+	}
+
+	@Override
+	public T maximum() {
+		return (this.n == 0) ? null : this.at(this.last());
+	}
+
+	@Override
+	public T minimum() {
+		return (this.n == 0) ? null : this.at(this.first());
+	}
+
+	/**
+	 * Unsupported, a frozen tree is read-only.
+	 * @throws UnsupportedOperationException always.
+	 */
+	@Override
+	public int insert(T element) {
+		throw new UnsupportedOperationException("frozen tree is read-only");
+	}
+
+	/**
+	 * Unsupported, a frozen tree is read-only.
+	 * @throws UnsupportedOperationException always.
+	 */
+	@Override
+	public void delete(T element) {
+		throw new UnsupportedOperationException("frozen tree is read-only");
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return this.iteratorInOrder();
+	}
+
+	@Override
+	public Iterator<T> iteratorInOrder() {
+		return new SlotIterator(this.first()) {
+			@Override
+			protected int step(int k) {
+				return successor(k);
+			}
+		};
+	}
+
+	@Override
+	public Iterator<T> iteratorPreOrder() {
+		return new SlotIterator((this.n == 0) ? 0 : 1) {
+			@Override
+			protected int step(int k) {
+				if(2 * k <= n) {
+					return 2 * k; // left child first.
+				}
+				while(k > 1 && ((k & 1) == 1 || k + 1 > n)) {
+					k >>= 1; // climb until there is an unvisited right sibling.
+				}
+				return (k == 1) ? 0 : k + 1;
+			}
+		};
+	}
+
+	@Override
+	public Iterator<T> iteratorPostOrder() {
+		return new SlotIterator(this.deepestFirst((this.n == 0) ? 0 : 1)) {
+			@Override
+			protected int step(int k) {
+				if(k == 1) {
+					return 0; // the root is visited last.
+				}
+				if((k & 1) == 0 && k + 1 <= n) {
+					return deepestFirst(k + 1); // after a left child, its sibling's subtree.
+				}
+				return k >> 1; // after a right child, or an only child, the parent.
+			}
+		};
+	}
+
+	/**
+	 * Returns the first slot post-order visits in the subtree at k.
+	 * @param k subtree root, 0 for none.
+	 * @return the leftmost leaf of k's subtree.
+	 */
+	private int deepestFirst(int k) {
+		while(k != 0 && 2 * k <= this.n) {
+			k = 2 * k; // every slot with children has a left child.
+		}
+		return k;
+	}
+
+	/**
+	 * Level-order is the array order.
+	 * @return an iterator over the elements level by level.
+	 */
+	@Override
+	public Iterator<T> iteratorLevelOrder() {
+		return new SlotIterator((this.n == 0) ? 0 : 1) {
+			@Override
+			protected int step(int k) {
+				return (k < n) ? k + 1 : 0;
+			}
+		};
+	}
+
+	/**
+	 * Iterator that steps between slots by index arithmetic, 0 ends the walk.
+	 */
+	private abstract class SlotIterator implements Iterator<T> {
+		private int next;
+
+		SlotIterator(int first) {
+			this.next = first;
+		}
+
+		/**
+		 * Return the slot visited after k.
+		 * @param k current slot.
+		 * @return the next slot, 0 at the end.
+		 */
+		protected abstract int step(int k);
+
+		@Override
+		public boolean hasNext() {
+			return this.next != 0;
+		}
+
+		@Override
+		public T next() {
+			if(this.next == 0) {
+				throw new NoSuchElementException();
+			}
+			int k = this.next;
+			this.next = this.step(k);
+			return at(k);
+		}
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		return Spliterators.spliterator(this.iterator(), this.n,
+				Spliterator.ORDERED | Spliterator.SORTED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+	}
+
+	public String toString() {
+		return print(1, 0);
+	}
+
+	/**
+	 * Returns a String of the binary tree in 'tree' format.
+	 * @param k starting slot.
+	 * @param level the level the starting slot is located within.
+	 * @return a String of the binary tree in 'tree' format.
+	 */
+	private String print(int k, int level) {
+		String ret = "";
+		if(k <= this.n) {
+			for(int i = 0; i < level; i++) { // indent based on level.
+				ret += "\t";
+			}
+			ret += this.a[k];
+			ret += "\n";
+			ret += this.print(2 * k + 1, level + 1); // recurse right
+			ret += this.print(2 * k, level + 1); // recurse left
+		}
+		return ret;
+	}
+}
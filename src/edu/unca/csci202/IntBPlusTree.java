@@ -0,0 +1,549 @@
+package edu.unca.csci202;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * BPlusTree specialized for int keys. Each node keeps its keys in an int[], so the keys a
+ * search compares are contiguous and need no dereference, and a node of the default fan-out
+ * spans four cache lines. Equal keys are kept as a count on one leaf slot.
+ *
+ * Within a node, a binary search narrows the keys to a window of LINEAR_WINDOW, then a
+ * branch-free count over the window finds the slot. The count never mispredicts and the JIT
+ * can unroll it. There is no Vector API on the Java release this builds for, so this is the
+ * scalar form of a SIMD compare-and-count.
+ */
+public class IntBPlusTree {
+	public static final int CACHE_LINE_FAN_OUT = 16;
+	public static final int PAGE_FAN_OUT = 1024;
+	public static final int DEFAULT_FAN_OUT = 64;
+	private static final int MIN_FAN_OUT = 4;
+	private static final int MAX_DEPTH = 32; // half full inner nodes have at least 2 children.
+	private static final int LINEAR_WINDOW = 16; // keys counted without branches, one cache line.
+
+	/**
+	 * B+ tree node, a leaf or an inner node.
+	 */
+	private static final class Node {
+		private final boolean leaf;
+		private int n; // keys in use.
+		private final int[] keys; // one spare slot, a node overflows before it splits.
+		private final int[] counts; // leaf only, occurrences of each key.
+		private final Node[] children; // inner only, n + 1 in use.
+		private Node prev; // leaf only, sibling links.
+		private Node next;
+
+		/* constructors */
+		Node(boolean leaf, int maxKeys) {
+			this.leaf = leaf;
+			this.keys = new int[maxKeys + 1];
+			this.counts = leaf ? new int[maxKeys + 1] : null;
+			this.children = leaf ? null : new Node[maxKeys + 2];
+		}
+	}
+
+	/* instance variables */
+	private final int maxKeys;
+	private final int minKeys;
+	private Node root;
+	private Node head; // leftmost leaf.
+	private Node tail; // rightmost leaf.
+	private int size;
+	private int height;
+	private int modCount;
+	private final Node[] path = new Node[MAX_DEPTH]; // scratch root-to-leaf path for insert/delete.
+	private final int[] slots = new int[MAX_DEPTH];
+
+	/* constructors */
+	public IntBPlusTree() {
+		this(DEFAULT_FAN_OUT);
+	}
+
+	/**
+	 * Create an empty tree.
+	 * @param fanOut most children of an inner node, at least 4.
+	 * @throws IllegalArgumentException if fanOut is below 4.
+	 */
+	public IntBPlusTree(int fanOut) {
+		if(fanOut < MIN_FAN_OUT) {
+			throw new IllegalArgumentException("fan-out must be at least " + MIN_FAN_OUT + ": " + fanOut);
+		}
+		this.maxKeys = fanOut - 1;
+		this.minKeys = this.maxKeys / 2;
+		this.clear();
+	}
+
+	/**
+	 * Remove every key.
+	 */
+	public void clear() {
+		this.root = new Node(true, this.maxKeys);
+		this.head = this.root;
+		this.tail = this.root;
+		this.size = 0;
+		this.height = 1;
+		this.modCount++;
+	}
+
+	/**
+	 * Return the number of keys in the tree.
+	 * @return the number of keys in the tree.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Return true if the tree holds no keys.
+	 * @return true if the tree holds no keys.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Get height of tree in number of levels.
+	 * @return height of tree in number of levels, 0 if empty.
+	 */
+	public int height() {
+		return this.isEmpty() ? 0 : this.height;
+	}
+
+	/**
+	 * Index of the first of keys[0, n) greater than key.
+	 * @param keys sorted keys.
+	 * @param n keys in use.
+	 * @param key key to search for.
+	 * @return index in [0, n].
+	 */
+	private static int upperBound(int[] keys, int n, int key) {
+		int lo = 0;
+		int hi = n;
+		while(hi - lo > LINEAR_WINDOW) {
+			int mid = (lo + hi) >>> 1;
+			if(key >= keys[mid]) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		int index = lo;
+		for(int i = lo; i < hi; i++) {
+			index += (keys[i] <= key) ? 1 : 0; // sorted, so this counts a prefix.
+		}
+		return index;
+	}
+
+	/**
+	 * Index of the first of keys[0, n) at or above key.
+	 * @param keys sorted keys.
+	 * @param n keys in use.
+	 * @param key key to search for.
+	 * @return index in [0, n].
+	 */
+	private static int lowerBound(int[] keys, int n, int key) {
+		int lo = 0;
+		int hi = n;
+		while(hi - lo > LINEAR_WINDOW) {
+			int mid = (lo + hi) >>> 1;
+			if(key > keys[mid]) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		int index = lo;
+		for(int i = lo; i < hi; i++) {
+			index += (keys[i] < key) ? 1 : 0;
+		}
+		return index;
+	}
+
+	/**
+	 * Descend to the leaf that holds or would hold key.
+	 * @param key key to search for.
+	 * @return the leaf.
+	 */
+	private Node leafFor(int key) {
+		Node node = this.root;
+		while(!node.leaf) {
+			node = node.children[upperBound(node.keys, node.n, key)];
+		}
+		return node;
+	}
+
+	/**
+	 * Determine if a key equal to the parameter exists.
+	 * @param key to be searched for
+	 * @return true if the key is in the tree.
+	 */
+	public boolean contains(int key) {
+		Node leaf = this.leafFor(key);
+		int i = lowerBound(leaf.keys, leaf.n, key);
+		return i < leaf.n && leaf.keys[i] == key;
+	}
+
+	/**
+	 * Return the smallest key in the tree.
+	 * @return the smallest key in the tree.
+	 * @throws NoSuchElementException if the tree is empty.
+	 */
+	public int minimum() {
+		if(this.isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return this.head.keys[0];
+	}
+
+	/**
+	 * Return the largest key in the tree.
+	 * @return the largest key in the tree.
+	 * @throws NoSuchElementException if the tree is empty.
+	 */
+	public int maximum() {
+		if(this.isEmpty()) {
+			throw new NoSuchElementException();
+		}
+		return this.tail.keys[this.tail.n - 1];
+	}
+
+	/**
+	 * Insert into the tree.
+	 * @param key key to insert
+	 * @return number of edges traversed to reach the leaf, height - 1.
+	 */
+	public int insert(int key) {
+		Node node = this.root;
+		int depth = 0;
+		while(!node.leaf) {
+			int i = upperBound(node.keys, node.n, key);
+			this.path[depth] = node;
+			this.slots[depth] = i;
+			depth++;
+			node = node.children[i];
+		}
+		int i = lowerBound(node.keys, node.n, key);
+		this.size++;
+		if(i < node.n && node.keys[i] == key) {
+			node.counts[i]++; // counted duplicate, no structural change.
+			return depth;
+		}
+		this.modCount++;
+		System.arraycopy(node.keys, i, node.keys, i + 1, node.n - i);
+		System.arraycopy(node.counts, i, node.counts, i + 1, node.n - i);
+		node.keys[i] = key;
+		node.counts[i] = 1;
+		node.n++;
+		if(node.n > this.maxKeys) {
+			this.split(node, depth);
+		}
+		return depth;
+	}
+
+	/**
+	 * Split an overfull node in two and insert the separator into its parent, splitting
+	 * upwards while parents overflow and growing a new root at the top.
+	 * @param node overfull node.
+	 * @param depth its depth, path[0, depth) holds its ancestors.
+	 */
+	private void split(Node node, int depth) {
+		while(node.n > this.maxKeys) {
+			int mid = node.n >>> 1;
+			Node right = new Node(node.leaf, this.maxKeys);
+			int separator;
+			if(node.leaf) { // the upper half moves right, its first key is copied up.
+				right.n = node.n - mid;
+				System.arraycopy(node.keys, mid, right.keys, 0, right.n);
+				System.arraycopy(node.counts, mid, right.counts, 0, right.n);
+				separator = right.keys[0];
+				right.next = node.next;
+				right.prev = node;
+				if(node.next != null) {
+					node.next.prev = right;
+				} else {
+					this.tail = right;
+				}
+				node.next = right;
+			} else { // the middle key moves up, the keys above it move right.
+				separator = node.keys[mid];
+				right.n = node.n - mid - 1;
+				System.arraycopy(node.keys, mid + 1, right.keys, 0, right.n);
+				System.arraycopy(node.children, mid + 1, right.children, 0, right.n + 1);
+				Arrays.fill(node.children, mid + 1, node.n + 1, null);
+			}
+			node.n = mid;
+
+			if(depth == 0) { // node was the root.
+				Node top = new Node(false, this.maxKeys);
+				top.keys[0] = separator;
+				top.children[0] = node;
+				top.children[1] = right;
+				top.n = 1;
+				this.root = top;
+				this.height++;
+				return;
+			}
+			depth--;
+			Node parent = this.path[depth];
+			int i = this.slots[depth]; // node is child i, right becomes child i + 1.
+			System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.n - i);
+			System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.n - i);
+			parent.keys[i] = separator;
+			parent.children[i + 1] = right;
+			parent.n++;
+			node = parent;
+		}
+	}
+
+	/**
+	 * Remove one occurrence of key from the tree.
+	 * @param key key to remove.
+	 * @return true if a key was removed, false if it was not found.
+	 */
+	public boolean delete(int key) {
+		Node node = this.root;
+		int depth = 0;
+		while(!node.leaf) {
+			int i = upperBound(node.keys, node.n, key);
+			this.path[depth] = node;
+			this.slots[depth] = i;
+			depth++;
+			node = node.children[i];
+		}
+		int i = lowerBound(node.keys, node.n, key);
+		if(i == node.n || node.keys[i] != key) {
+			return false;
+		}
+		this.size--;
+		if(node.counts[i] > 1) {
+			node.counts[i]--; // drop one occurrence, keep the key.
+			return true;
+		}
+		this.modCount++;
+		System.arraycopy(node.keys, i + 1, node.keys, i, node.n - i - 1);
+		System.arraycopy(node.counts, i + 1, node.counts, i, node.n - i - 1);
+		node.n--;
+		this.rebalance(node, depth);
+		return true;
+	}
+
+	/**
+	 * Restore the minimum fill of node after a delete by borrowing a key from a sibling, or
+	 * merging with one and repeating for the parent that lost a child.
+	 * @param node node that lost a key.
+	 * @param depth its depth, path[0, depth) holds its ancestors.
+	 */
+	private void rebalance(Node node, int depth) {
+		while(depth > 0 && node.n < this.minKeys) {
+			depth--;
+			Node parent = this.path[depth];
+			int i = this.slots[depth];
+			Node left = (i > 0) ? parent.children[i - 1] : null;
+			Node right = (i < parent.n) ? parent.children[i + 1] : null;
+			if(left != null && left.n > this.minKeys) {
+				this.borrowFromLeft(parent, i, left, node);
+				return;
+			}
+			if(right != null && right.n > this.minKeys) {
+				this.borrowFromRight(parent, i, node, right);
+				return;
+			}
+			if(left != null) {
+				this.merge(parent, i - 1, left, node);
+			} else {
+				this.merge(parent, i, node, right);
+			}
+			node = parent;
+		}
+		if(!this.root.leaf && this.root.n == 0) {
+			this.root = this.root.children[0]; // the root lost its last separator, shrink.
+			this.height--;
+		}
+	}
+
+	/**
+	 * Move left's last key into node, its right sibling under parent.
+	 * @param parent parent of both.
+	 * @param i node's child index.
+	 * @param left node's left sibling.
+	 * @param node the underfull node.
+	 */
+	private void borrowFromLeft(Node parent, int i, Node left, Node node) {
+		System.arraycopy(node.keys, 0, node.keys, 1, node.n);
+		left.n--;
+		if(node.leaf) {
+			System.arraycopy(node.counts, 0, node.counts, 1, node.n);
+			node.keys[0] = left.keys[left.n];
+			node.counts[0] = left.counts[left.n];
+			parent.keys[i - 1] = node.keys[0]; // node's new first key separates them.
+		} else {
+			System.arraycopy(node.children, 0, node.children, 1, node.n + 1);
+			node.keys[0] = parent.keys[i - 1]; // rotate through the parent.
+			node.children[0] = left.children[left.n + 1];
+			parent.keys[i - 1] = left.keys[left.n];
+			left.children[left.n + 1] = null;
+		}
+		node.n++;
+	}
+
+	/**
+	 * Move right's first key into node, its left sibling under parent.
+	 * @param parent parent of both.
+	 * @param i node's child index.
+	 * @param node the underfull node.
+	 * @param right node's right sibling.
+	 */
+	private void borrowFromRight(Node parent, int i, Node node, Node right) {
+		if(node.leaf) {
+			node.keys[node.n] = right.keys[0];
+			node.counts[node.n] = right.counts[0];
+			System.arraycopy(right.counts, 1, right.counts, 0, right.n - 1);
+			System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+			right.n--;
+			parent.keys[i] = right.keys[0];
+		} else {
+			node.keys[node.n] = parent.keys[i]; // rotate through the parent.
+			node.children[node.n + 1] = right.children[0];
+			parent.keys[i] = right.keys[0];
+			System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+			System.arraycopy(right.children, 1, right.children, 0, right.n);
+			right.n--;
+			right.children[right.n + 1] = null;
+		}
+		node.n++;
+	}
+
+	/**
+	 * Merge right into left, its left sibling, and remove right and their separator from
+	 * parent.
+	 * @param parent parent of both.
+	 * @param i left's child index, the separator is parent.keys[i].
+	 * @param left surviving node.
+	 * @param right node merged away.
+	 */
+	private void merge(Node parent, int i, Node left, Node right) {
+		if(left.leaf) {
+			System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+			System.arraycopy(right.counts, 0, left.counts, left.n, right.n);
+			left.n += right.n;
+			left.next = right.next;
+			if(right.next != null) {
+				right.next.prev = left;
+			} else {
+				this.tail = left;
+			}
+		} else {
+			left.keys[left.n] = parent.keys[i]; // the separator comes down between them.
+			System.arraycopy(right.keys, 0, left.keys, left.n + 1, right.n);
+			System.arraycopy(right.children, 0, left.children, left.n + 1, right.n + 1);
+			left.n += right.n + 1;
+		}
+		System.arraycopy(parent.keys, i + 1, parent.keys, i, parent.n - i - 1);
+		System.arraycopy(parent.children, i + 2, parent.children, i + 1, parent.n - i - 1);
+		parent.n--;
+		parent.children[parent.n + 1] = null;
+	}
+
+	/**
+	 * Return the number of keys k with lo &lt;= k &lt;= hi, by one descent and a scan along
+	 * the leaves.
+	 * @param lo low endpoint, inclusive.
+	 * @param hi high endpoint, inclusive.
+	 * @return the number of keys in [lo, hi].
+	 */
+	public int countInRange(int lo, int hi) {
+		int count = 0;
+		Node leaf = this.leafFor(lo);
+		int i = lowerBound(leaf.keys, leaf.n, lo);
+		while(leaf != null) {
+			for(; i < leaf.n; i++) {
+				if(leaf.keys[i] > hi) {
+					return count;
+				}
+				count += leaf.counts[i];
+			}
+			leaf = leaf.next;
+			i = 0;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns an iterator over the keys in ascending order along the leaf chain. It fails
+	 * fast if the tree is modified.
+	 * @return an iterator over the keys in ascending order.
+	 */
+	public PrimitiveIterator.OfInt iterator() {
+		return new LeafIterator();
+	}
+
+	/**
+	 * Iterator along the leaf chain, repeating each key count times.
+	 */
+	private class LeafIterator implements PrimitiveIterator.OfInt {
+		private final int expectedModCount = modCount;
+		private final int expectedSize = size; // a counted duplicate changes only the size.
+		private Node leaf = head;
+		private int index;
+		private int repeats;
+
+		@Override
+		public boolean hasNext() {
+			return this.repeats > 0 || this.index < this.leaf.n || this.leaf.next != null;
+		}
+
+		@Override
+		public int nextInt() {
+			if(modCount != this.expectedModCount || size != this.expectedSize) {
+				throw new ConcurrentModificationException();
+			}
+			if(this.repeats > 0) {
+				this.repeats--;
+				return this.leaf.keys[this.index - 1];
+			}
+			if(this.index == this.leaf.n) {
+				if(this.leaf.next == null) {
+					throw new NoSuchElementException();
+				}
+				this.leaf = this.leaf.next; // non-root leaves are never empty.
+				this.index = 0;
+			}
+			this.repeats = this.leaf.counts[this.index] - 1;
+			return this.leaf.keys[this.index++];
+		}
+	}
+
+	public String toString() {
+		return print(this.root, 0);
+	}
+
+	/**
+	 * Returns a String of the tree in 'tree' format, one node per line.
+	 * @param node starting node.
+	 * @param level the level the starting node is located within.
+	 * @return a String of the tree in 'tree' format.
+	 */
+	private String print(Node node, int level) {
+		String ret = "";
+		for(int i = 0; i < level; i++) {
+			ret += "\t"; // indent based on level.
+		}
+		ret += "[";
+		for(int i = 0; i < node.n; i++) {
+			ret += (i == 0) ? "" : ", ";
+			ret += node.keys[i];
+			if(node.leaf && node.counts[i] > 1) {
+				ret += " x" + node.counts[i]; // duplicates held by the slot.
+			}
+		}
+		ret += "]\n";
+		if(!node.leaf) {
+			for(int i = 0; i <= node.n; i++) {
+				ret += this.print(node.children[i], level + 1); // recurse into children in order
+			}
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,588 @@
+package edu.unca.csci202;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Durable wrapper around a BinarySearchTreeADT. Every insert and delete is appended to a
+ * write-ahead journal before it returns, and recovery rebuilds the tree from the latest
+ * snapshot plus the journal written since.
+ *
+ * Writes use group commit: each writer appends its record to a shared buffer and then waits
+ * for it to be forced to disk. The first waiter to find no flush in progress writes and
+ * forces everything buffered so far, so concurrent writers share one fsync.
+ *
+ * The directory holds snapshot-&lt;generation&gt;.avls and journal-&lt;generation&gt;.log.
+ * checkpoint() writes the next generation's snapshot and starts an empty journal, then
+ * deletes the previous generation. Recovery uses the newest snapshot and replays only the
+ * journal of the same generation, so a crash at any point of a checkpoint never replays a
+ * mutation twice.
+ *
+ * Lookups take a shared lock and mutations an exclusive one. Iterators come straight from
+ * the wrapped tree and must not be used while other threads are writing.
+ *
+ * @param <T> generic type
+ */
+public class JournaledTree<T extends Comparable<T>> implements BinarySearchTreeADT<T>, Closeable {
+	
+	private static final byte INSERT = 1;
+	private static final byte DELETE = 2;
+	private static final int RECORD_HEADER = 2 * Integer.BYTES; // payload length, payload CRC32.
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".avls";
+	private static final String JOURNAL_PREFIX = "journal-";
+	private static final String JOURNAL_SUFFIX = ".log";
+	
+	/* instance variables */
+	private final Path directory;
+	private final KeyCodec<T> codec;
+	private final Supplier<? extends BinarySearchTreeADT<T>> factory;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private BinarySearchTreeADT<T> tree;
+	private long generation;
+	private FileChannel journal;
+	
+	/* group commit state, guarded by commitLock */
+	private final Object commitLock = new Object();
+	private ByteBuffer pending = ByteBuffer.allocate(1 << 16); // records not yet handed to a flush.
+	private ByteBuffer spare = ByteBuffer.allocate(1 << 16); // swapped in while a flush runs.
+	private long appendedSeq; // sequence number of the last appended record.
+	private long durableSeq; // sequence number of the last record forced to disk.
+	private boolean flushing;
+	private IOException failure; // set once a flush fails, the journal is unusable afterwards.
+	
+	/* constructors */
+	private JournaledTree(Path directory, KeyCodec<T> codec, Supplier<? extends BinarySearchTreeADT<T>> factory) {
+		this.directory = directory;
+		this.codec = codec;
+		this.factory = factory;
+	}
+	
+	/**
+	 * Open the journaled tree stored in directory, creating it if needed. Loads the newest
+	 * snapshot, replays the journal written after it and truncates any torn record left at
+	 * the end of the journal by a crash.
+	 * @param directory directory holding the snapshot and journal files.
+	 * @param codec codec for the elements.
+	 * @param factory creates the empty tree that recovery loads into.
+	 * @return the recovered tree.
+	 * @throws IOException if the files can't be read or written.
+	 */
+	public static <T extends Comparable<T>> JournaledTree<T> open(Path directory, KeyCodec<T> codec,
+			Supplier<? extends BinarySearchTreeADT<T>> factory) throws IOException {
+		Files.createDirectories(directory);
+		JournaledTree<T> journaled = new JournaledTree<T>(directory, codec, factory);
+		journaled.recover();
+		return journaled;
+	}
+	
+	/**
+	 * Rebuilds the tree from the newest snapshot and its journal, then opens the journal for
+	 * appending.
+	 * @throws IOException if the files can't be read or written.
+	 */
+	private void recover() throws IOException {
+		this.generation = 0;
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+			for(Path file : files) {
+				long fileGeneration = parseGeneration(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+				this.generation = Math.max(this.generation, fileGeneration);
+			}
+		}
+		
+		this.tree = this.factory.get();
+		if(this.generation > 0) {
+			ArrayList<T> elements = SnapshotFile.read(this.snapshotPath(this.generation), this.codec);
+			if(this.tree instanceof AVLTree) {
+				((AVLTree<T>) this.tree).insertAll(elements); // O(n) build into the empty tree.
+			} else {
+				for(T element : elements) {
+					this.tree.insert(element);
+				}
+			}
+		}
+		
+		Path journalPath = this.journalPath(this.generation);
+		this.journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		long end = this.replay(this.journal);
+		if(end < this.journal.size()) {
+			this.journal.truncate(end); // drop a record torn by a crash.
+			this.journal.force(true);
+		}
+		this.journal.position(end);
+		this.deleteOlderGenerations();
+	}
+	
+	/**
+	 * Applies the journal's records to the tree, stopping at the end of the file or at the
+	 * first incomplete or corrupt record.
+	 * @param channel journal to read.
+	 * @return the offset just past the last good record.
+	 * @throws IOException if the journal can't be read.
+	 */
+	private long replay(FileChannel channel) throws IOException {
+		long size = channel.size();
+		long offset = 0;
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+		CRC32 crc = new CRC32();
+		while(offset + RECORD_HEADER <= size) {
+			header.clear();
+			channel.read(header, offset);
+			header.flip();
+			int length = header.getInt();
+			int checksum = header.getInt();
+			if(length < 1 || offset + RECORD_HEADER + length > size) {
+				break; // torn write at the tail.
+			}
+			ByteBuffer payload = ByteBuffer.allocate(length);
+			while(payload.hasRemaining()) {
+				if(channel.read(payload, offset + RECORD_HEADER + payload.position()) < 0) {
+					break;
+				}
+			}
+			payload.flip();
+			crc.reset();
+			crc.update(payload.duplicate());
+			if((int) crc.getValue() != checksum) {
+				break;
+			}
+			byte op = payload.get();
+			T element = this.codec.read(payload);
+			if(op == INSERT) {
+				this.tree.insert(element);
+			} else if(op == DELETE) {
+				this.tree.delete(element);
+			} else {
+				break;
+			}
+			offset += RECORD_HEADER + length;
+		}
+		return offset;
+	}
+	
+	/**
+	 * Writes a snapshot of the tree as the next generation and starts an empty journal for
+	 * it, then deletes the previous generation's files. Mutations wait while it runs.
+	 * @throws IOException if the files can't be written.
+	 */
+	public void checkpoint() throws IOException {
+		this.lock.writeLock().lock();
+		try {
+			synchronized(this.commitLock) {
+				this.checkFailure();
+			}
+			this.awaitDurable(this.appendedSeq());
+			long next = this.generation + 1;
+			Path snapshot = this.snapshotPath(next);
+			Path temporary = this.directory.resolve(snapshot.getFileName() + ".tmp");
+			SnapshotFile.write(temporary, this.tree.iteratorInOrder(), this.tree.size(), this.codec);
+			Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+			this.forceDirectory();
+			
+			FileChannel nextJournal = FileChannel.open(this.journalPath(next), StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			FileChannel previous;
+			synchronized(this.commitLock) {
+				previous = this.journal;
+				this.journal = nextJournal;
+			}
+			previous.close();
+			this.generation = next;
+			this.deleteOlderGenerations();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Forces buffered records to disk and closes the journal. The tree must not be modified
+	 * afterwards.
+	 * @throws IOException if the final flush fails.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.lock.writeLock().lock();
+		try {
+			boolean failed;
+			synchronized(this.commitLock) {
+				failed = this.failure != null;
+			}
+			if(!failed) {
+				this.awaitDurable(this.appendedSeq());
+			}
+			this.journal.close();
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+	}
+	
+	@Override
+	public int insert(T element) {
+		long seq;
+		int edges;
+		this.lock.writeLock().lock();
+		try {
+			seq = this.append(INSERT, element);
+			edges = this.tree.insert(element);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		this.awaitDurableUnchecked(seq);
+		return edges;
+	}
+	
+	@Override
+	public void delete(T element) {
+		long seq = 0;
+		this.lock.writeLock().lock();
+		try {
+			if(this.tree.contains(element)) {
+				seq = this.append(DELETE, element); // only log deletes that change the tree.
+			}
+			this.tree.delete(element);
+		} finally {
+			this.lock.writeLock().unlock();
+		}
+		if(seq > 0) {
+			this.awaitDurableUnchecked(seq);
+		}
+	}
+	
+	/**
+	 * Buffers a journal record for a mutation. Called with the write lock held, so records
+	 * are buffered in the order the mutations are applied.
+	 * @param op INSERT or DELETE.
+	 * @param element element being inserted or deleted.
+	 * @return the record's sequence number.
+	 * @throws NullPointerException if element is null.
+	 */
+	private long append(byte op, T element) {
+		if(element == null) {
+			throw new NullPointerException("null element");
+		}
+		int length = 1 + this.codec.size(element);
+		synchronized(this.commitLock) {
+			if(this.failure != null) {
+				throw new UncheckedIOException("journal is unusable after a failed write", this.failure);
+			}
+			if(this.pending.remaining() < RECORD_HEADER + length) {
+				ByteBuffer bigger = ByteBuffer.allocate(Math.max(2 * this.pending.capacity(),
+						this.pending.position() + RECORD_HEADER + length));
+				this.pending.flip();
+				bigger.put(this.pending);
+				this.pending = bigger;
+			}
+			int start = this.pending.position();
+			try {
+				this.pending.position(start + RECORD_HEADER);
+				this.pending.put(op);
+				this.codec.write(element, this.pending);
+			} catch(RuntimeException e) {
+				this.pending.position(start); // leave no half-written record to be committed.
+				throw e;
+			}
+			
+			ByteBuffer payload = this.pending.duplicate();
+			payload.position(start + RECORD_HEADER).limit(start + RECORD_HEADER + length);
+			CRC32 crc = new CRC32();
+			crc.update(payload);
+			this.pending.putInt(start, length);
+			this.pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+			return ++this.appendedSeq;
+		}
+	}
+	
+	/**
+	 * Returns the sequence number of the last buffered record.
+	 * @return the sequence number of the last buffered record.
+	 */
+	private long appendedSeq() {
+		synchronized(this.commitLock) {
+			return this.appendedSeq;
+		}
+	}
+	
+	/**
+	 * Blocks until the record with sequence number seq is on disk. If no flush is running,
+	 * this thread becomes the leader and flushes every buffered record in one write and one
+	 * force; otherwise it waits for the running flush and checks again.
+	 * @param seq sequence number to wait for.
+	 * @throws IOException if the flush fails.
+	 */
+	private void awaitDurable(long seq) throws IOException {
+		ByteBuffer batch;
+		long batchSeq;
+		FileChannel channel;
+		synchronized(this.commitLock) {
+			while(true) {
+				if(this.durableSeq >= seq) {
+					return;
+				}
+				this.checkFailure();
+				if(!this.flushing) {
+					break; // lead the next flush.
+				}
+				try {
+					this.commitLock.wait();
+				} catch(InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("interrupted while waiting for the journal", e);
+				}
+			}
+			this.flushing = true;
+			batch = this.pending;
+			batchSeq = this.appendedSeq;
+			channel = this.journal;
+			this.pending = this.spare;
+			this.spare = null;
+		}
+		
+		IOException error = null;
+		try {
+			batch.flip();
+			while(batch.hasRemaining()) {
+				channel.write(batch);
+			}
+			channel.force(false);
+		} catch(IOException e) {
+			error = e;
+		}
+		
+		synchronized(this.commitLock) {
+			batch.clear();
+			this.spare = batch;
+			this.flushing = false;
+			if(error == null) {
+				this.durableSeq = batchSeq;
+			} else {
+				this.failure = error;
+			}
+			this.commitLock.notifyAll();
+		}
+		if(error != null) {
+			throw error;
+		}
+	}
+	
+	/**
+	 * awaitDurable for the ADT methods, which can't throw IOException.
+	 * @param seq sequence number to wait for.
+	 */
+	private void awaitDurableUnchecked(long seq) {
+		try {
+			this.awaitDurable(seq);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Throws the failure of an earlier flush, if there was one. Call with commitLock held.
+	 * @throws IOException the earlier failure.
+	 */
+	private void checkFailure() throws IOException {
+		if(this.failure != null) {
+			throw new IOException("journal is unusable after a failed write", this.failure);
+		}
+	}
+	
+	/**
+	 * Deletes snapshot and journal files older than the current generation, along with
+	 * leftover temporary snapshots.
+	 * @throws IOException if the directory can't be listed.
+	 */
+	private void deleteOlderGenerations() throws IOException {
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+			for(Path file : files) {
+				String name = file.getFileName().toString();
+				long fileGeneration = -1;
+				if(name.endsWith(".tmp")) {
+					fileGeneration = 0;
+				} else if(name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)) {
+					fileGeneration = parseGeneration(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+				} else if(name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX)) {
+					fileGeneration = parseGeneration(file, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+				}
+				if(fileGeneration >= 0 && fileGeneration < this.generation) {
+					Files.deleteIfExists(file);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Forces the directory entry changes (the snapshot rename) to disk where the platform
+	 * supports it.
+	 */
+	private void forceDirectory() {
+		try(FileChannel channel = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch(IOException e) {
+			// not supported on every platform, the rename is still atomic.
+		}
+	}
+	
+	/**
+	 * Returns the snapshot file of a generation.
+	 * @param generation generation number.
+	 * @return the snapshot file's path.
+	 */
+	private Path snapshotPath(long generation) {
+		return this.directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+	}
+	
+	/**
+	 * Returns the journal file of a generation.
+	 * @param generation generation number.
+	 * @return the journal file's path.
+	 */
+	private Path journalPath(long generation) {
+		return this.directory.resolve(JOURNAL_PREFIX + generation + JOURNAL_SUFFIX);
+	}
+	
+	/**
+	 * Returns the generation number in a snapshot or journal file name, -1 if it has none.
+	 * @param file file to check.
+	 * @param prefix file name prefix.
+	 * @param suffix file name suffix.
+	 * @return the generation number, -1 if the name doesn't hold one.
+	 */
+	private static long parseGeneration(Path file, String prefix, String suffix) {
+		String name = file.getFileName().toString();
+		try {
+			return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+		} catch(NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	/* lookups, under the shared lock */
+	
+	@Override
+	public T getRootElement() {
+		this.lock.readLock().lock();
+		try {
+			return this.tree.getRootElement();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		this.lock.readLock().lock();
+		try {
+			return this.tree.isEmpty();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public int size() {
+		this.lock.readLock().lock();
+		try {
+			return this.tree.size();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public boolean contains(T element) {
+		this.lock.readLock().lock();
+		try {
+			return this.tree.contains(element);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public T find(T element) {
+		this.lock.readLock().lock();
+		try {
+			return this.tree.find(element);
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public int height() {
+		this.lock.readLock().lock();
+		try {
+			return this.tree.height();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public T maximum() {
+		this.lock.readLock().lock();
+		try {
+			return this.tree.maximum();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public T minimum() {
+		this.lock.readLock().lock();
+		try {
+			return this.tree.minimum();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public Iterator<T> iterator() {
+		return this.iteratorInOrder();
+	}
+	
+	@Override
+	public Iterator<T> iteratorInOrder() {
+		return this.tree.iteratorInOrder();
+	}
+	
+	@Override
+	public Iterator<T> iteratorPreOrder() {
+		return this.tree.iteratorPreOrder();
+	}
+	
+	@Override
+	public Iterator<T> iteratorPostOrder() {
+		return this.tree.iteratorPostOrder();
+	}
+	
+	@Override
+	public Iterator<T> iteratorLevelOrder() {
+		return this.tree.iteratorLevelOrder();
+	}
+	
+	public String toString() {
+		this.lock.readLock().lock();
+		try {
+			return this.tree.toString();
+		} finally {
+			this.lock.readLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package edu.unca.csci202;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts tree elements to and from bytes for snapshot and journal files.
+ *
+ * @param <T> generic type
+ */
+public interface KeyCodec<T> {
+	
+	/**
+	 * Name stored in file headers, so a file is never read back with a different codec.
+	 * @return the name of this codec.
+	 */
+	public String name();
+	
+	/**
+	 * Return the number of bytes write will use for key.
+	 * @param key key to measure.
+	 * @return the encoded size of key in bytes.
+	 */
+	public int size(T key);
+	
+	/**
+	 * Write key at out's position, advancing it by size(key) bytes.
+	 * @param key key to write.
+	 * @param out buffer with at least size(key) bytes remaining.
+	 */
+	public void write(T key, ByteBuffer out);
+	
+	/**
+	 * Read a key at in's position, advancing past it.
+	 * @param in buffer positioned at an encoded key.
+	 * @return the decoded key.
+	 */
+	public T read(ByteBuffer in);
+	
+	
+	/** Fixed-width codec for Integer keys. */
+	public static final KeyCodec<Integer> INTEGER = new KeyCodec<Integer>() {
+		public String name() { return "int32"; }
+		public int size(Integer key) { return Integer.BYTES; }
+		public void write(Integer key, ByteBuffer out) { out.putInt(key); }
+		public Integer read(ByteBuffer in) { return in.getInt(); }
+	};
+	
+	/** Fixed-width codec for Long keys. */
+	public static final KeyCodec<Long> LONG = new KeyCodec<Long>() {
+		public String name() { return "int64"; }
+		public int size(Long key) { return Long.BYTES; }
+		public void write(Long key, ByteBuffer out) { out.putLong(key); }
+		public Long read(ByteBuffer in) { return in.getLong(); }
+	};
+	
+	/** Length-prefixed UTF-8 codec for String keys. */
+	public static final KeyCodec<String> STRING = new KeyCodec<String>() {
+		public String name() { return "utf8"; }
+		public int size(String key) {
+			return Integer.BYTES + key.getBytes(StandardCharsets.UTF_8).length;
+		}
+		public void write(String key, ByteBuffer out) {
+			byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+			out.putInt(bytes.length);
+			out.put(bytes);
+		}
+		public String read(ByteBuffer in) {
+			byte[] bytes = new byte[in.getInt()];
+			in.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+}
@@ -1,8 +1,10 @@
 package edu.unca.csci202;
 
 import java.util.ArrayDeque;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 import java.util.Queue;
 
 /**
@@ -39,6 +41,7 @@ public class LinkedBST<T extends Comparable<T>> implements BinarySearchTreeADT<T
 	/* instance variables */
 	private Node<T> root;
 	private int size;
+	private int modCount; // structural modifications, checked by iterators.
 	
 	/* constructors */
 	public LinkedBST(T data) {
@@ -50,9 +53,11 @@ public class LinkedBST<T extends Comparable<T>> implements BinarySearchTreeADT<T
 		this.root = new Node<T>(data);
 		if(left != null) {
 			this.root.left = left;
+			left.parent = this.root;
 		}
 		if(right != null) {
 			this.root.right = right;
+			right.parent = this.root;
 		}
 	}
 	
@@ -85,90 +90,182 @@ public class LinkedBST<T extends Comparable<T>> implements BinarySearchTreeADT<T
 	
 	@Override
 	public Iterator<T> iteratorInOrder() {
-		LinkedList<T> list = new LinkedList<T>();
-		this.traverseInOrder(this.root, list);
-		return list.iterator();
+		return new InOrderIterator();
 	}
+
 	
-	/**
-	 * Performs a In-Order tree traversal recursivly.
-	 * @param node the starting node.
-	 * @param list a LinkedList to add the nodes too.
-	 */
-	private void traverseInOrder(Node<T> node, LinkedList<T> list) {
-		if(node != null) { // check base case
-			this.traverseInOrder(node.left, list); // recurse left
-			list.add(node.data); // visit node
-			this.traverseInOrder(node.right, list); // recurse right
-		}
+	@Override
+	public Iterator<T> iteratorPreOrder() {
+		return new PreOrderIterator();
 	}
 
 	
 	@Override
-	public Iterator<T> iteratorPreOrder() {
-		LinkedList<T> list = new LinkedList<T>();
-		this.traversePreOrder(this.root, list);
-		return list.iterator();
+	public Iterator<T> iteratorPostOrder() {
+		return new PostOrderIterator();
+	}
+
+	
+	@Override
+	public Iterator<T> iteratorLevelOrder() {
+		return new LevelOrderIterator();
+	}
+	
+	/**
+	 * Base class for the lazy traversal iterators. Fails fast with a
+	 * ConcurrentModificationException if the tree is modified during iteration.
+	 */
+	private abstract class TreeIterator implements Iterator<T> {
+		private final int expectedModCount = modCount;
+		
+		/**
+		 * Return the next node in this traversal and advance past it.
+		 * @return the next node in this traversal.
+		 */
+		protected abstract Node<T> nextNode();
+		
+		@Override
+		public T next() {
+			if(modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return this.nextNode().data;
+		}
 	}
 	
 	/**
-	 * Performs a Pre-Order tree traversal recursivly.
-	 * @param node the starting node.
-	 * @param list a LinkedList to add the nodes too.
+	 * In-Order iterator that follows parent links to the successor.
 	 */
-	private void traversePreOrder(Node<T> node, LinkedList<T> list) {
-		if(node != null) { // check base case
-			list.add(node.data); // visit node
-			this.traverseInOrder(node.left, list); // recurse left
-			this.traverseInOrder(node.right, list); // recurse right
+	private class InOrderIterator extends TreeIterator {
+		private Node<T> next = (root == null) ? null : minimum(root);
+		
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+		
+		@Override
+		protected Node<T> nextNode() {
+			Node<T> node = this.next;
+			if(node.right != null) {
+				this.next = minimum(node.right); // leftmost of right subtree.
+			} else {
+				Node<T> child = node;
+				Node<T> parent = node.parent;
+				while(parent != null && child == parent.right) {
+					child = parent; // climb while we are a right child.
+					parent = parent.parent;
+				}
+				this.next = parent;
+			}
+			return node;
 		}
 	}
-
 	
-	@Override
-	public Iterator<T> iteratorPostOrder() {
-		LinkedList<T> list = new LinkedList<T>();
-		this.traversePostOrder(this.root, list);
-		return list.iterator();
+	/**
+	 * Pre-Order iterator, the stack holds pending right children.
+	 */
+	private class PreOrderIterator extends TreeIterator {
+		private final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+		
+		PreOrderIterator() {
+			if(root != null) {
+				this.stack.push(root);
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return !this.stack.isEmpty();
+		}
+		
+		@Override
+		protected Node<T> nextNode() {
+			Node<T> node = this.stack.pop(); // visit node
+			if(node.right != null) {
+				this.stack.push(node.right);
+			}
+			if(node.left != null) {
+				this.stack.push(node.left);
+			}
+			return node;
+		}
 	}
 	
 	/**
-	 * Performs a Post-Order tree traversal recursivly.
-	 * @param node the starting node.
-	 * @param list a LinkedList to add the nodes too.
+	 * Post-Order iterator, the stack holds the path from the root to the next node.
 	 */
-	private void traversePostOrder(Node<T> node, LinkedList<T> list) {
-		if(node != null) { // check base case
-			this.traverseInOrder(node.left, list); // recurse left
-			this.traverseInOrder(node.right, list); // recurse right
-			list.add(node.data); // visit node
+	private class PostOrderIterator extends TreeIterator {
+		private final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+		
+		PostOrderIterator() {
+			this.pushFirstLeaf(root);
+		}
+		
+		/**
+		 * Push the path down to the first node visited in node's subtree.
+		 * @param node starting node.
+		 */
+		private void pushFirstLeaf(Node<T> node) {
+			while(node != null) {
+				this.stack.push(node);
+				node = (node.left != null) ? node.left : node.right; // prefer left.
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return !this.stack.isEmpty();
+		}
+		
+		@Override
+		protected Node<T> nextNode() {
+			Node<T> node = this.stack.pop(); // visit node
+			if(!this.stack.isEmpty() && this.stack.peek().left == node) {
+				this.pushFirstLeaf(this.stack.peek().right); // right sibling is next.
+			}
+			return node;
 		}
 	}
-
 	
-	@Override
-	public Iterator<T> iteratorLevelOrder() {
-		LinkedList<T> list = new LinkedList<T>();
-		Queue<Node<T>> work = new ArrayDeque<Node<T>>();
+	/**
+	 * Level-Order iterator, the queue holds at most one level of the tree.
+	 */
+	private class LevelOrderIterator extends TreeIterator {
+		private final Queue<Node<T>> work = new ArrayDeque<Node<T>>();
+		
+		LevelOrderIterator() {
+			if(root != null) {
+				this.work.add(root); // start with root node.
+			}
+		}
 		
-		work.add(this.root); // start with root node.
-		while(!(work.isEmpty())) {
-			Node<T> node = work.remove(); // pop first.
-			list.add(node.data); // add node
+		@Override
+		public boolean hasNext() {
+			return !this.work.isEmpty();
+		}
+		
+		@Override
+		protected Node<T> nextNode() {
+			Node<T> node = this.work.remove(); // pop first.
 			if(node.left != null) { 
-				work.add(node.left); // enqueue node's children.
+				this.work.add(node.left); // enqueue node's children.
 			}
 			if(node.right != null) {
-				work.add(node.right);
+				this.work.add(node.right);
 			}
+			return node;
 		}
-		return list.iterator();
 	}
 
 	
 	@Override
 	public int insert(T element) {
 		size++;
+		modCount++;
 		int numOfEdgesFollwed = 0;
 		
 		Node<T> node = new Node<T>(element);
@@ -176,8 +273,8 @@ public class LinkedBST<T extends Comparable<T>> implements BinarySearchTreeADT<T
 		Node<T> parent = this.root; // trailing parent node.
 		while(var != null) {
 			parent = var;
-			if(node.data.compareTo(var.data) > 0) {
-				var = var.right; // node > var.
+			if(node.data.compareTo(var.data) >= 0) {
+				var = var.right; // node >= var, equal keys go right.
 				numOfEdgesFollwed++;
 			} else {
 				var = var.left; // node < var.
@@ -185,6 +282,7 @@ public class LinkedBST<T extends Comparable<T>> implements BinarySearchTreeADT<T
 			}
 		}
 		
+		node.parent = parent;
 		if(parent == null) { // tree was empty.
 			this.root = node;
 		} else if(node.data.compareTo(parent.data) >= 0) {
@@ -213,11 +311,22 @@ public class LinkedBST<T extends Comparable<T>> implements BinarySearchTreeADT<T
 	
 	@Override
 	public int height() {
-		Node<T> node = this.root;
-		int height = 1;
-		while(node != null) { // loop left subtree.
+		Queue<Node<T>> level = new ArrayDeque<Node<T>>();
+		if(this.root != null) {
+			level.add(this.root);
+		}
+		int height = 0;
+		while(!level.isEmpty()) { // one pass per level, no recursion on a degenerate tree.
 			height++;
-			node = node.left;
+			for(int i = level.size(); i > 0; i--) {
+				Node<T> node = level.remove();
+				if(node.left != null) {
+					level.add(node.left);
+				}
+				if(node.right != null) {
+					level.add(node.right);
+				}
+			}
 		}
 		return height;
 	}
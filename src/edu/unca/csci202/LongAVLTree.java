@@ -0,0 +1,427 @@
+package edu.unca.csci202;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * AVLTree specialized for long keys. Nodes live in parallel primitive arrays (keys, child
+ * indices and heights) addressed by index, so an entry costs about 17 bytes instead of a
+ * boxed Long plus a Node object, and the GC sees a handful of arrays rather than millions of
+ * small objects. Freed slots are chained into a free list and reused by later inserts.
+ * Like AVLTree, equal keys are kept and go to the right on insert.
+ *
+ * Index 0 is the null node, its height is always 0.
+ */
+public class LongAVLTree {
+	
+	private static final int NIL = 0;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int MAX_DEPTH = 64; // AVL height at 2^31 nodes is below 46.
+	
+	/* instance variables */
+	private long[] keys;
+	private int[] left;
+	private int[] right;
+	private byte[] height;
+	private int root;
+	private int size;
+	private int nextUnused; // first slot never handed out.
+	private int freeList; // head of the chain of freed slots, linked through left[].
+	private int modCount;
+	private final int[] path = new int[MAX_DEPTH]; // scratch root-to-node path for insert/delete.
+	
+	/* constructors */
+	public LongAVLTree() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	public LongAVLTree(int initialCapacity) {
+		int capacity = Math.max(2, initialCapacity + 1); // plus the null node.
+		this.keys = new long[capacity];
+		this.left = new int[capacity];
+		this.right = new int[capacity];
+		this.height = new byte[capacity];
+		this.root = NIL;
+		this.size = 0;
+		this.nextUnused = 1;
+		this.freeList = NIL;
+	}
+	
+	/**
+	 * Return the number of keys in the tree.
+	 * @return the number of keys in the tree.
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * Return true if the tree holds no keys.
+	 * @return true if the tree holds no keys.
+	 */
+	public boolean isEmpty() {
+		return this.root == NIL;
+	}
+	
+	/**
+	 * Get height of tree in number of nodes
+	 * @return height of tree in number of nodes
+	 */
+	public int height() {
+		return this.height[this.root];
+	}
+	
+	/**
+	 * Determine if a key equal to the parameter exists.
+	 * @param key to be searched for
+	 * @return true if the key is in the tree.
+	 */
+	public boolean contains(long key) {
+		int node = this.root;
+		while(node != NIL) {
+			long nodeKey = this.keys[node];
+			if(key == nodeKey) {
+				return true;
+			}
+			node = (key < nodeKey) ? this.left[node] : this.right[node];
+		}
+		return false;
+	}
+	
+	/**
+	 * Return the smallest key in the tree.
+	 * @return the smallest key in the tree.
+	 * @throws NoSuchElementException if the tree is empty.
+	 */
+	public long minimum() {
+		if(this.root == NIL) {
+			throw new NoSuchElementException();
+		}
+		int node = this.root;
+		while(this.left[node] != NIL) {
+			node = this.left[node];
+		}
+		return this.keys[node];
+	}
+	
+	/**
+	 * Return the largest key in the tree.
+	 * @return the largest key in the tree.
+	 * @throws NoSuchElementException if the tree is empty.
+	 */
+	public long maximum() {
+		if(this.root == NIL) {
+			throw new NoSuchElementException();
+		}
+		int node = this.root;
+		while(this.right[node] != NIL) {
+			node = this.right[node];
+		}
+		return this.keys[node];
+	}
+	
+	/**
+	 * Insert into the tree.
+	 * @param key key to insert
+	 * @return number edges traversed to insert this key.
+	 */
+	public int insert(long key) {
+		this.modCount++;
+		this.size++;
+		int depth = 0;
+		int node = this.root;
+		while(node != NIL) {
+			this.path[depth++] = node;
+			node = (key >= this.keys[node]) ? this.right[node] : this.left[node]; // equal keys go right.
+		}
+		int leaf = this.allocate(key);
+		if(depth == 0) {
+			this.root = leaf;
+			return 0;
+		}
+		int parent = this.path[depth - 1];
+		if(key >= this.keys[parent]) {
+			this.right[parent] = leaf;
+		} else {
+			this.left[parent] = leaf;
+		}
+		// climb the path like AVLTree.insertFix, a rotation or an unchanged height ends it.
+		for(int i = depth - 1; i >= 0; i--) {
+			int oldHeight = this.height[this.path[i]];
+			int top = this.rebalance(this.path[i]);
+			this.replaceChild(i, top);
+			if(this.height[top] == oldHeight) {
+				break;
+			}
+		}
+		return depth;
+	}
+	
+	/**
+	 * Remove one occurrence of key from the tree.
+	 * @param key key to remove.
+	 * @return true if a key was removed, false if it was not found.
+	 */
+	public boolean delete(long key) {
+		int depth = 0;
+		int node = this.root;
+		while(node != NIL && key != this.keys[node]) {
+			this.path[depth++] = node;
+			node = (key < this.keys[node]) ? this.left[node] : this.right[node];
+		}
+		if(node == NIL) {
+			return false;
+		}
+		this.modCount++;
+		this.size--;
+		
+		if(this.left[node] != NIL && this.right[node] != NIL) {
+			// two children: move the successor's key up and remove the successor instead.
+			this.path[depth++] = node;
+			int successor = this.right[node];
+			while(this.left[successor] != NIL) {
+				this.path[depth++] = successor;
+				successor = this.left[successor];
+			}
+			this.keys[node] = this.keys[successor];
+			node = successor;
+		}
+		int child = (this.left[node] != NIL) ? this.left[node] : this.right[node];
+		this.replaceChild(depth, child, node);
+		this.release(node);
+		
+		// climb the path like AVLTree.deleteFix, rebalancing every ancestor.
+		for(int i = depth - 1; i >= 0; i--) {
+			this.replaceChild(i, this.rebalance(this.path[i]));
+		}
+		return true;
+	}
+	
+	/**
+	 * Remove every key, keeping the allocated storage.
+	 */
+	public void clear() {
+		this.modCount++;
+		this.root = NIL;
+		this.size = 0;
+		this.nextUnused = 1;
+		this.freeList = NIL;
+	}
+	
+	/**
+	 * Returns an iterator over the keys in ascending order. It keeps a stack of at most
+	 * height() indices and fails fast if the tree is modified.
+	 * @return an iterator over the keys in ascending order.
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new InOrderIterator();
+	}
+	
+	/**
+	 * In-Order iterator over the node arrays, the stack holds the unvisited ancestors.
+	 */
+	private class InOrderIterator implements PrimitiveIterator.OfLong {
+		private final int expectedModCount = modCount;
+		private final int[] stack = new int[MAX_DEPTH];
+		private int top = 0;
+		
+		InOrderIterator() {
+			this.pushLeft(root);
+		}
+		
+		/**
+		 * Push node and its chain of left children.
+		 * @param node starting node.
+		 */
+		private void pushLeft(int node) {
+			while(node != NIL) {
+				this.stack[this.top++] = node;
+				node = left[node];
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return this.top > 0;
+		}
+		
+		@Override
+		public long nextLong() {
+			if(modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(this.top == 0) {
+				throw new NoSuchElementException();
+			}
+			int node = this.stack[--this.top]; // visit node
+			this.pushLeft(right[node]);
+			return keys[node];
+		}
+	}
+	
+	/**
+	 * Rebalances node after one of its subtrees changed height, with the same single and
+	 * double rotation cases as AVLTree.insertFix/deleteFix.
+	 * @param node subtree root.
+	 * @return the new subtree root.
+	 */
+	private int rebalance(int node) {
+		this.updateHeight(node);
+		int balance = this.balanceFactor(node);
+		if(balance == -2) {
+			if(this.balanceFactor(this.left[node]) == 1) {
+				this.left[node] = this.rotateLeft(this.left[node]); // left-right
+			}
+			return this.rotateRight(node);
+		} else if(balance == 2) {
+			if(this.balanceFactor(this.right[node]) == -1) {
+				this.right[node] = this.rotateRight(this.right[node]); // right-left
+			}
+			return this.rotateLeft(node);
+		}
+		return node;
+	}
+	
+	/**
+	 * Performs a left rotation on node.
+	 * @param node node to rotate, must have a right child.
+	 * @return the new subtree root.
+	 */
+	private int rotateLeft(int node) {
+		int tmp = this.right[node];
+		this.right[node] = this.left[tmp];
+		this.left[tmp] = node;
+		this.updateHeight(node);
+		this.updateHeight(tmp);
+		return tmp;
+	}
+	
+	/**
+	 * Performs a right rotation on node.
+	 * @param node node to rotate, must have a left child.
+	 * @return the new subtree root.
+	 */
+	private int rotateRight(int node) {
+		int tmp = this.left[node];
+		this.left[node] = this.right[tmp];
+		this.right[tmp] = node;
+		this.updateHeight(node);
+		this.updateHeight(tmp);
+		return tmp;
+	}
+	
+	/**
+	 * Update the height of node from its children.
+	 * @param node node to update.
+	 */
+	private void updateHeight(int node) {
+		this.height[node] = (byte) (1 + Math.max(this.height[this.left[node]], this.height[this.right[node]]));
+	}
+	
+	/**
+	 * Return the balance factor of node.
+	 * @param node node to check.
+	 * @return right height minus left height.
+	 */
+	private int balanceFactor(int node) {
+		return this.height[this.right[node]] - this.height[this.left[node]];
+	}
+	
+	/**
+	 * Makes top the subtree at path[i], linking it from path[i - 1] or the root.
+	 * @param i position on the scratch path.
+	 * @param top new subtree root.
+	 */
+	private void replaceChild(int i, int top) {
+		this.replaceChild(i, top, this.path[i]);
+	}
+	
+	/**
+	 * Replaces the child old of path[i - 1] (or the root when i is 0) with top.
+	 * @param i position of old on the scratch path.
+	 * @param top new subtree root.
+	 * @param old subtree root being replaced.
+	 */
+	private void replaceChild(int i, int top, int old) {
+		if(i == 0) {
+			this.root = top;
+		} else if(this.left[this.path[i - 1]] == old) {
+			this.left[this.path[i - 1]] = top;
+		} else {
+			this.right[this.path[i - 1]] = top;
+		}
+	}
+	
+	/**
+	 * Takes a slot from the free list, or the next unused slot, growing the arrays if needed.
+	 * @param key key for the new leaf.
+	 * @return index of the new leaf.
+	 */
+	private int allocate(long key) {
+		int node = this.freeList;
+		if(node != NIL) {
+			this.freeList = this.left[node];
+		} else {
+			if(this.nextUnused == this.keys.length) {
+				this.grow();
+			}
+			node = this.nextUnused++;
+		}
+		this.keys[node] = key;
+		this.left[node] = NIL;
+		this.right[node] = NIL;
+		this.height[node] = 1;
+		return node;
+	}
+	
+	/**
+	 * Returns node's slot to the free list.
+	 * @param node slot to free.
+	 */
+	private void release(int node) {
+		this.left[node] = this.freeList;
+		this.right[node] = NIL;
+		this.height[node] = 0;
+		this.freeList = node;
+	}
+	
+	/**
+	 * Grows the node arrays by half.
+	 */
+	private void grow() {
+		int capacity = this.keys.length + (this.keys.length >> 1);
+		if(capacity < 0) {
+			capacity = Integer.MAX_VALUE - 8; // overflowed, take what we can.
+		}
+		this.keys = Arrays.copyOf(this.keys, capacity);
+		this.left = Arrays.copyOf(this.left, capacity);
+		this.right = Arrays.copyOf(this.right, capacity);
+		this.height = Arrays.copyOf(this.height, capacity);
+	}
+	
+	public String toString() {
+		return print(this.root, 0);
+	}
+	
+	/**
+	 * Returns a String of the tree in 'tree' format.
+	 * @param node starting node.
+	 * @param level the level the starting node is located within.
+	 * @return a String of the tree in 'tree' format.
+	 */
+	private String print(int node, int level) {
+		String ret = "";
+		if(node != NIL) {
+			for(int i = 0; i < level; i++) { // indent based on level.
+				ret += "\t";
+			}
+			ret += this.keys[node];
+			ret += "\n";
+			ret += this.print(this.right[node], level + 1); // recurse right
+			ret += this.print(this.left[node], level + 1); // recurse left
+		}
+		return ret;
+	}
+}
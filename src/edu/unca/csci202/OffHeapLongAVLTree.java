@@ -0,0 +1,504 @@
+package edu.unca.csci202;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * AVLTree for long keys whose nodes live off-heap in direct ByteBuffer chunks. A node is
+ * addressed by index; its record holds the key, both child indices and the height, so the
+ * heap only holds the chunk list no matter how many keys the tree has. Rebalancing follows
+ * the same single and double rotation cases as AVLTree.insertFix/deleteFix.
+ *
+ * Call close() to release the native memory as soon as the tree is no longer needed. The
+ * tree is not thread-safe.
+ */
+public class OffHeapLongAVLTree implements AutoCloseable {
+	
+	/* node record layout, in bytes */
+	private static final int KEY = 0;
+	private static final int LEFT = 8;
+	private static final int RIGHT = 12;
+	private static final int HEIGHT = 16;
+	private static final int NODE_BYTES = 24; // keeps every key 8-byte aligned.
+	
+	private static final int CHUNK_SHIFT = 16; // 64Ki nodes, 1.5MiB per chunk.
+	private static final int CHUNK_NODES = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_NODES - 1;
+	private static final int NIL = 0;
+	private static final int MAX_DEPTH = 64;
+	
+	/* used by free() to release chunks without waiting for the GC */
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+	
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch(ReflectiveOperationException | RuntimeException e) {
+			unsafe = null;
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+	
+	/* instance variables */
+	private final ArrayList<ByteBuffer> chunks;
+	private int root;
+	private int size;
+	private int nextUnused; // first slot never handed out.
+	private int freeList; // head of the chain of freed slots, linked through LEFT.
+	private int modCount;
+	private boolean closed;
+	private final int[] path = new int[MAX_DEPTH]; // scratch root-to-node path for insert/delete.
+	
+	/* constructors */
+	public OffHeapLongAVLTree() {
+		this.chunks = new ArrayList<ByteBuffer>();
+		this.root = NIL;
+		this.size = 0;
+		this.nextUnused = 1; // slot 0 is the null node, height 0.
+		this.freeList = NIL;
+		this.addChunk();
+	}
+	
+	/**
+	 * Return the number of keys in the tree.
+	 * @return the number of keys in the tree.
+	 */
+	public int size() {
+		return this.size;
+	}
+	
+	/**
+	 * Return true if the tree holds no keys.
+	 * @return true if the tree holds no keys.
+	 */
+	public boolean isEmpty() {
+		return this.root == NIL;
+	}
+	
+	/**
+	 * Get height of tree in number of nodes
+	 * @return height of tree in number of nodes
+	 */
+	public int height() {
+		this.checkOpen();
+		return this.height(this.root);
+	}
+	
+	/**
+	 * Return the number of bytes of native memory reserved for nodes.
+	 * @return the number of bytes of native memory reserved for nodes.
+	 */
+	public long reservedBytes() {
+		return (long) this.chunks.size() * CHUNK_NODES * NODE_BYTES;
+	}
+	
+	/**
+	 * Determine if a key equal to the parameter exists.
+	 * @param key to be searched for
+	 * @return true if the key is in the tree.
+	 */
+	public boolean contains(long key) {
+		this.checkOpen();
+		int node = this.root;
+		while(node != NIL) {
+			long nodeKey = this.key(node);
+			if(key == nodeKey) {
+				return true;
+			}
+			node = (key < nodeKey) ? this.left(node) : this.right(node);
+		}
+		return false;
+	}
+	
+	/**
+	 * Return the smallest key in the tree.
+	 * @return the smallest key in the tree.
+	 * @throws NoSuchElementException if the tree is empty.
+	 */
+	public long minimum() {
+		this.checkOpen();
+		if(this.root == NIL) {
+			throw new NoSuchElementException();
+		}
+		int node = this.root;
+		while(this.left(node) != NIL) {
+			node = this.left(node);
+		}
+		return this.key(node);
+	}
+	
+	/**
+	 * Return the largest key in the tree.
+	 * @return the largest key in the tree.
+	 * @throws NoSuchElementException if the tree is empty.
+	 */
+	public long maximum() {
+		this.checkOpen();
+		if(this.root == NIL) {
+			throw new NoSuchElementException();
+		}
+		int node = this.root;
+		while(this.right(node) != NIL) {
+			node = this.right(node);
+		}
+		return this.key(node);
+	}
+	
+	/**
+	 * Insert into the tree.
+	 * @param key key to insert
+	 * @return number edges traversed to insert this key.
+	 */
+	public int insert(long key) {
+		this.checkOpen();
+		this.modCount++;
+		this.size++;
+		int depth = 0;
+		int node = this.root;
+		while(node != NIL) {
+			this.path[depth++] = node;
+			node = (key >= this.key(node)) ? this.right(node) : this.left(node); // equal keys go right.
+		}
+		int leaf = this.allocate(key);
+		if(depth == 0) {
+			this.root = leaf;
+			return 0;
+		}
+		int parent = this.path[depth - 1];
+		if(key >= this.key(parent)) {
+			this.setRight(parent, leaf);
+		} else {
+			this.setLeft(parent, leaf);
+		}
+		// climb the path like AVLTree.insertFix, a rotation or an unchanged height ends it.
+		for(int i = depth - 1; i >= 0; i--) {
+			int oldHeight = this.height(this.path[i]);
+			int top = this.rebalance(this.path[i]);
+			this.replaceChild(i, top, this.path[i]);
+			if(this.height(top) == oldHeight) {
+				break;
+			}
+		}
+		return depth;
+	}
+	
+	/**
+	 * Remove one occurrence of key from the tree.
+	 * @param key key to remove.
+	 * @return true if a key was removed, false if it was not found.
+	 */
+	public boolean delete(long key) {
+		this.checkOpen();
+		int depth = 0;
+		int node = this.root;
+		while(node != NIL && key != this.key(node)) {
+			this.path[depth++] = node;
+			node = (key < this.key(node)) ? this.left(node) : this.right(node);
+		}
+		if(node == NIL) {
+			return false;
+		}
+		this.modCount++;
+		this.size--;
+		
+		if(this.left(node) != NIL && this.right(node) != NIL) {
+			// two children: move the successor's key up and remove the successor instead.
+			this.path[depth++] = node;
+			int successor = this.right(node);
+			while(this.left(successor) != NIL) {
+				this.path[depth++] = successor;
+				successor = this.left(successor);
+			}
+			this.setKey(node, this.key(successor));
+			node = successor;
+		}
+		int child = (this.left(node) != NIL) ? this.left(node) : this.right(node);
+		this.replaceChild(depth, child, node);
+		this.release(node);
+		
+		// climb the path like AVLTree.deleteFix, rebalancing every ancestor.
+		for(int i = depth - 1; i >= 0; i--) {
+			this.replaceChild(i, this.rebalance(this.path[i]), this.path[i]);
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns an iterator over the keys in ascending order. It fails fast if the tree is
+	 * modified or closed.
+	 * @return an iterator over the keys in ascending order.
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		this.checkOpen();
+		return new InOrderIterator();
+	}
+	
+	/**
+	 * Releases the native memory held by the tree. The tree is unusable afterwards.
+	 */
+	@Override
+	public void close() {
+		if(this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.modCount++;
+		for(ByteBuffer chunk : this.chunks) {
+			free(chunk);
+		}
+		this.chunks.clear();
+		this.root = NIL;
+		this.size = 0;
+	}
+	
+	/**
+	 * In-Order iterator, the stack holds the unvisited ancestors.
+	 */
+	private class InOrderIterator implements PrimitiveIterator.OfLong {
+		private final int expectedModCount = modCount;
+		private final int[] stack = new int[MAX_DEPTH];
+		private int top = 0;
+		
+		InOrderIterator() {
+			this.pushLeft(root);
+		}
+		
+		/**
+		 * Push node and its chain of left children.
+		 * @param node starting node.
+		 */
+		private void pushLeft(int node) {
+			while(node != NIL) {
+				this.stack[this.top++] = node;
+				node = left(node);
+			}
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return this.top > 0;
+		}
+		
+		@Override
+		public long nextLong() {
+			if(modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if(this.top == 0) {
+				throw new NoSuchElementException();
+			}
+			int node = this.stack[--this.top]; // visit node
+			this.pushLeft(right(node));
+			return key(node);
+		}
+	}
+	
+	/**
+	 * Rebalances node after one of its subtrees changed height.
+	 * @param node subtree root.
+	 * @return the new subtree root.
+	 */
+	private int rebalance(int node) {
+		this.updateHeight(node);
+		int balance = this.balanceFactor(node);
+		if(balance == -2) {
+			if(this.balanceFactor(this.left(node)) == 1) {
+				this.setLeft(node, this.rotateLeft(this.left(node))); // left-right
+			}
+			return this.rotateRight(node);
+		} else if(balance == 2) {
+			if(this.balanceFactor(this.right(node)) == -1) {
+				this.setRight(node, this.rotateRight(this.right(node))); // right-left
+			}
+			return this.rotateLeft(node);
+		}
+		return node;
+	}
+	
+	/**
+	 * Performs a left rotation on node.
+	 * @param node node to rotate, must have a right child.
+	 * @return the new subtree root.
+	 */
+	private int rotateLeft(int node) {
+		int tmp = this.right(node);
+		this.setRight(node, this.left(tmp));
+		this.setLeft(tmp, node);
+		this.updateHeight(node);
+		this.updateHeight(tmp);
+		return tmp;
+	}
+	
+	/**
+	 * Performs a right rotation on node.
+	 * @param node node to rotate, must have a left child.
+	 * @return the new subtree root.
+	 */
+	private int rotateRight(int node) {
+		int tmp = this.left(node);
+		this.setLeft(node, this.right(tmp));
+		this.setRight(tmp, node);
+		this.updateHeight(node);
+		this.updateHeight(tmp);
+		return tmp;
+	}
+	
+	/**
+	 * Update the height of node from its children.
+	 * @param node node to update.
+	 */
+	private void updateHeight(int node) {
+		this.setHeight(node, 1 + Math.max(this.height(this.left(node)), this.height(this.right(node))));
+	}
+	
+	/**
+	 * Return the balance factor of node.
+	 * @param node node to check.
+	 * @return right height minus left height.
+	 */
+	private int balanceFactor(int node) {
+		return this.height(this.right(node)) - this.height(this.left(node));
+	}
+	
+	/**
+	 * Replaces the child old of path[i - 1] (or the root when i is 0) with top.
+	 * @param i position of old on the scratch path.
+	 * @param top new subtree root.
+	 * @param old subtree root being replaced.
+	 */
+	private void replaceChild(int i, int top, int old) {
+		if(i == 0) {
+			this.root = top;
+		} else if(this.left(this.path[i - 1]) == old) {
+			this.setLeft(this.path[i - 1], top);
+		} else {
+			this.setRight(this.path[i - 1], top);
+		}
+	}
+	
+	/**
+	 * Takes a slot from the free list, or the next unused slot, adding a chunk if needed.
+	 * @param key key for the new leaf.
+	 * @return index of the new leaf.
+	 */
+	private int allocate(long key) {
+		int node = this.freeList;
+		if(node != NIL) {
+			this.freeList = this.left(node);
+		} else {
+			if(this.nextUnused == this.chunks.size() * CHUNK_NODES) {
+				this.addChunk();
+			}
+			node = this.nextUnused++;
+		}
+		this.setKey(node, key);
+		this.setLeft(node, NIL);
+		this.setRight(node, NIL);
+		this.setHeight(node, 1);
+		return node;
+	}
+	
+	/**
+	 * Returns node's slot to the free list.
+	 * @param node slot to free.
+	 */
+	private void release(int node) {
+		this.setLeft(node, this.freeList);
+		this.setHeight(node, 0);
+		this.freeList = node;
+	}
+	
+	/**
+	 * Reserves another chunk of native memory for nodes.
+	 */
+	private void addChunk() {
+		if(this.chunks.size() == (Integer.MAX_VALUE >>> CHUNK_SHIFT)) {
+			throw new IllegalStateException("tree is full");
+		}
+		ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_NODES * NODE_BYTES);
+		chunk.order(ByteOrder.nativeOrder());
+		this.chunks.add(chunk); // direct buffers start zeroed, so slot 0 reads as the null node.
+	}
+	
+	/**
+	 * Throws if the tree was closed.
+	 */
+	private void checkOpen() {
+		if(this.closed) {
+			throw new IllegalStateException("tree is closed");
+		}
+	}
+	
+	/* node field accessors */
+	
+	private ByteBuffer chunk(int node) {
+		return this.chunks.get(node >>> CHUNK_SHIFT);
+	}
+	
+	private static int offset(int node, int field) {
+		return (node & CHUNK_MASK) * NODE_BYTES + field;
+	}
+	
+	private long key(int node) {
+		return this.chunk(node).getLong(offset(node, KEY));
+	}
+	
+	private void setKey(int node, long key) {
+		this.chunk(node).putLong(offset(node, KEY), key);
+	}
+	
+	private int left(int node) {
+		return this.chunk(node).getInt(offset(node, LEFT));
+	}
+	
+	private void setLeft(int node, int child) {
+		this.chunk(node).putInt(offset(node, LEFT), child);
+	}
+	
+	private int right(int node) {
+		return this.chunk(node).getInt(offset(node, RIGHT));
+	}
+	
+	private void setRight(int node, int child) {
+		this.chunk(node).putInt(offset(node, RIGHT), child);
+	}
+	
+	private int height(int node) {
+		return this.chunk(node).getInt(offset(node, HEIGHT));
+	}
+	
+	private void setHeight(int node, int height) {
+		this.chunk(node).putInt(offset(node, HEIGHT), height);
+	}
+	
+	/**
+	 * Frees a direct buffer's native memory now instead of when the GC collects it, using
+	 * sun.misc.Unsafe.invokeCleaner when the runtime exposes it.
+	 * @param buffer direct buffer to free, must not be used afterwards.
+	 */
+	private static void free(ByteBuffer buffer) {
+		if(INVOKE_CLEANER == null) {
+			return; // left to the GC.
+		}
+		try {
+			INVOKE_CLEANER.invoke(UNSAFE, buffer);
+		} catch(ReflectiveOperationException e) {
+			// the GC will release it instead.
+		}
+	}
+}
@@ -0,0 +1,452 @@
+package edu.unca.csci202;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Persistent AVL Tree. Nodes are immutable, so insert and delete copy only the nodes on
+ * the root-to-leaf path (O(log n) new nodes) and publish the new root with a single write.
+ * Every other node is shared with earlier versions.
+ *
+ * A snapshot is just the current root: snapshot() costs O(1), and the snapshot never
+ * changes no matter what this tree does afterwards. Iterators capture the root when they
+ * are created, so a long scan sees one consistent version while writers keep going.
+ * Versions nobody references any more are reclaimed by the garbage collector.
+ *
+ * Reads take no locks. Writers are serialized on the tree.
+ *
+ * @param <T> generic type
+ */
+public class PersistentAVLTree<T extends Comparable<T>> implements BinarySearchTreeADT<T> {
+	
+	/**
+	 * Immutable PersistentAVLTree Node, it caches its height and subtree size.
+	 */
+	private static final class Node<N> {
+		private final N data;
+		private final Node<N> left;
+		private final Node<N> right;
+		private final int height;
+		private final int size;
+		
+		/* constructors */
+		public Node(Node<N> left, N data, Node<N> right) {
+			this.data = data;
+			this.left = left;
+			this.right = right;
+			this.height = 1 + Math.max(heightOf(left), heightOf(right));
+			this.size = 1 + sizeOf(left) + sizeOf(right);
+		}
+	}
+	
+	/* instance variables */
+	private volatile Node<T> root;
+	
+	/* constructors */
+	public PersistentAVLTree() {
+		this.root = null;
+	}
+	
+	private PersistentAVLTree(Node<T> root) {
+		this.root = root;
+	}
+	
+	/**
+	 * Return a tree holding this tree's current contents in O(1). The two trees share
+	 * nodes but evolve independently.
+	 * @return snapshot of this tree.
+	 */
+	public PersistentAVLTree<T> snapshot() {
+		return new PersistentAVLTree<T>(this.root);
+	}
+	
+	@Override
+	public T getRootElement() {
+		Node<T> node = this.root;
+		if(node == null) {
+			return null;
+		}
+		return node.data;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return this.root == null;
+	}
+	
+	@Override
+	public int size() {
+		return sizeOf(this.root);
+	}
+	
+	@Override
+	public int height() {
+		return heightOf(this.root);
+	}
+	
+	@Override
+	public boolean contains(T element) {
+		return this.find(element) != null;
+	}
+	
+	@Override
+	public T find(T element) {
+		Node<T> node = this.root;
+		while(node != null) {
+			int cmp = element.compareTo(node.data);
+			if(cmp == 0) {
+				return node.data;
+			}
+			node = (cmp < 0) ? node.left : node.right;
+		}
+		return null;
+	}
+	
+	@Override
+	public T minimum() {
+		Node<T> node = this.root;
+		if(node == null) {
+			return null;
+		}
+		while(node.left != null) {
+			node = node.left;
+		}
+		return node.data;
+	}
+	
+	@Override
+	public T maximum() {
+		Node<T> node = this.root;
+		if(node == null) {
+			return null;
+		}
+		while(node.right != null) {
+			node = node.right;
+		}
+		return node.data;
+	}
+	
+	/**
+	 * Return the number of elements e with lo &lt;= e &lt;= hi in O(log n), using the
+	 * subtree sizes of one version.
+	 * @param lo low endpoint, inclusive.
+	 * @param hi high endpoint, inclusive.
+	 * @return the number of elements in [lo, hi], 0 if lo &gt; hi.
+	 */
+	public int countInRange(T lo, T hi) {
+		if(lo.compareTo(hi) > 0) {
+			return 0;
+		}
+		Node<T> root = this.root;
+		return countBelow(root, hi, true) - countBelow(root, lo, false);
+	}
+	
+	/**
+	 * Counts the elements below element (or equal to it when inclusive) in one descent.
+	 * @param node subtree root.
+	 * @param element element to compare against.
+	 * @param inclusive whether elements equal to element are counted.
+	 * @return the number of elements below element.
+	 */
+	private static <N extends Comparable<N>> int countBelow(Node<N> node, N element, boolean inclusive) {
+		int count = 0;
+		while(node != null) {
+			int cmp = node.data.compareTo(element);
+			if(cmp < 0 || (inclusive && cmp == 0)) {
+				count += sizeOf(node.left) + 1; // node and its left subtree are below.
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return count;
+	}
+	
+	@Override
+	public synchronized int insert(T element) {
+		if(element == null) {
+			throw new NullPointerException();
+		}
+		int[] edges = new int[1];
+		this.root = this.insert(this.root, element, edges);
+		return edges[0];
+	}
+	
+	/**
+	 * Return a copy of node's subtree with element added, rebuilding only the path to it.
+	 * @param node subtree root (may be null).
+	 * @param element element to insert, equal keys go right.
+	 * @param edges edges[0] is incremented for each edge followed.
+	 * @return root of the new subtree.
+	 */
+	private Node<T> insert(Node<T> node, T element, int[] edges) {
+		if(node == null) {
+			return new Node<T>(null, element, null);
+		}
+		edges[0]++;
+		if(element.compareTo(node.data) >= 0) {
+			return balance(node.left, node.data, this.insert(node.right, element, edges)); // recurse right
+		}
+		return balance(this.insert(node.left, element, edges), node.data, node.right); // recurse left
+	}
+	
+	@Override
+	public synchronized void delete(T element) {
+		this.root = this.delete(this.root, element);
+	}
+	
+	/**
+	 * Return a copy of node's subtree with one occurrence of element removed. The subtree
+	 * is returned unchanged (the same node) if element is not present.
+	 * @param node subtree root (may be null).
+	 * @param element element to remove.
+	 * @return root of the new subtree.
+	 */
+	private Node<T> delete(Node<T> node, T element) {
+		if(node == null) {
+			return null;
+		}
+		int cmp = element.compareTo(node.data);
+		if(cmp < 0) {
+			Node<T> left = this.delete(node.left, element); // recurse left
+			return (left == node.left) ? node : balance(left, node.data, node.right);
+		} else if(cmp > 0) {
+			Node<T> right = this.delete(node.right, element); // recurse right
+			return (right == node.right) ? node : balance(node.left, node.data, right);
+		}
+		if(node.left == null) {
+			return node.right;
+		} else if(node.right == null) {
+			return node.left;
+		}
+		Node<T> successor = node.right; // replace with the smallest element on the right.
+		while(successor.left != null) {
+			successor = successor.left;
+		}
+		return balance(node.left, successor.data, this.deleteMinimum(node.right));
+	}
+	
+	/**
+	 * Return a copy of node's subtree without its smallest element.
+	 * @param node subtree root.
+	 * @return root of the new subtree.
+	 */
+	private Node<T> deleteMinimum(Node<T> node) {
+		if(node.left == null) {
+			return node.right;
+		}
+		return balance(this.deleteMinimum(node.left), node.data, node.right);
+	}
+	
+	/**
+	 * Build a node from subtrees whose heights differ by at most two, rotating if needed.
+	 * @param left left subtree.
+	 * @param data node element.
+	 * @param right right subtree.
+	 * @return root of the balanced subtree.
+	 */
+	private static <N> Node<N> balance(Node<N> left, N data, Node<N> right) {
+		int balance = heightOf(left) - heightOf(right);
+		if(balance > 1) {
+			if(heightOf(left.left) >= heightOf(left.right)) { // LL, rotate right.
+				return new Node<N>(left.left, left.data, new Node<N>(left.right, data, right));
+			}
+			Node<N> pivot = left.right; // LR, rotate left then right.
+			return new Node<N>(new Node<N>(left.left, left.data, pivot.left), pivot.data,
+					new Node<N>(pivot.right, data, right));
+		} else if(balance < -1) {
+			if(heightOf(right.right) >= heightOf(right.left)) { // RR, rotate left.
+				return new Node<N>(new Node<N>(left, data, right.left), right.data, right.right);
+			}
+			Node<N> pivot = right.left; // RL, rotate right then left.
+			return new Node<N>(new Node<N>(left, data, pivot.left), pivot.data,
+					new Node<N>(pivot.right, right.data, right.right));
+		}
+		return new Node<N>(left, data, right);
+	}
+	
+	private static int heightOf(Node<?> node) {
+		return (node == null) ? 0 : node.height;
+	}
+	
+	private static int sizeOf(Node<?> node) {
+		return (node == null) ? 0 : node.size;
+	}
+	
+	@Override
+	public Iterator<T> iterator() {
+		return this.iteratorInOrder();
+	}
+	
+	/**
+	 * In-Order iterator over the version current when it is created.
+	 */
+	@Override
+	public Iterator<T> iteratorInOrder() {
+		return new Iterator<T>() {
+			private final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+			{
+				this.pushLeft(root);
+			}
+			
+			private void pushLeft(Node<T> node) {
+				for(; node != null; node = node.left) {
+					this.stack.push(node);
+				}
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return !this.stack.isEmpty();
+			}
+			
+			@Override
+			public T next() {
+				if(this.stack.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				Node<T> node = this.stack.pop();
+				this.pushLeft(node.right);
+				return node.data;
+			}
+		};
+	}
+	
+	/**
+	 * Pre-Order iterator over the version current when it is created.
+	 */
+	@Override
+	public Iterator<T> iteratorPreOrder() {
+		return new Iterator<T>() {
+			private final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+			{
+				if(root != null) {
+					this.stack.push(root);
+				}
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return !this.stack.isEmpty();
+			}
+			
+			@Override
+			public T next() {
+				if(this.stack.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				Node<T> node = this.stack.pop();
+				if(node.right != null) {
+					this.stack.push(node.right);
+				}
+				if(node.left != null) {
+					this.stack.push(node.left);
+				}
+				return node.data;
+			}
+		};
+	}
+	
+	/**
+	 * Post-Order iterator over the version current when it is created.
+	 */
+	@Override
+	public Iterator<T> iteratorPostOrder() {
+		return new Iterator<T>() {
+			private final Deque<Node<T>> stack = new ArrayDeque<Node<T>>();
+			{
+				this.descend(root);
+			}
+			
+			/**
+			 * Push the path to the first node in post-order below node.
+			 * @param node subtree root (may be null).
+			 */
+			private void descend(Node<T> node) {
+				while(node != null) {
+					this.stack.push(node);
+					node = (node.left != null) ? node.left : node.right;
+				}
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return !this.stack.isEmpty();
+			}
+			
+			@Override
+			public T next() {
+				if(this.stack.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				Node<T> node = this.stack.pop();
+				Node<T> parent = this.stack.peek();
+				if(parent != null && parent.left == node) {
+					this.descend(parent.right); // the right sibling comes next.
+				}
+				return node.data;
+			}
+		};
+	}
+	
+	/**
+	 * Level-Order iterator over the version current when it is created.
+	 */
+	@Override
+	public Iterator<T> iteratorLevelOrder() {
+		return new Iterator<T>() {
+			private final Deque<Node<T>> queue = new ArrayDeque<Node<T>>();
+			{
+				if(root != null) {
+					this.queue.add(root);
+				}
+			}
+			
+			@Override
+			public boolean hasNext() {
+				return !this.queue.isEmpty();
+			}
+			
+			@Override
+			public T next() {
+				if(this.queue.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				Node<T> node = this.queue.remove();
+				if(node.left != null) {
+					this.queue.add(node.left);
+				}
+				if(node.right != null) {
+					this.queue.add(node.right);
+				}
+				return node.data;
+			}
+		};
+	}
+	
+	public String toString() {
+		return print(this.root, 0);
+	}
+	
+	/**
+	 * Returns a String of the tree in 'tree' format.
+	 * @param node starting node.
+	 * @param level the level the starting node is located within.
+	 * @return a String of the tree in 'tree' format.
+	 */
+	private String print(Node<T> node, int level) {
+		String ret = "";
+		if(node != null) {
+			for(int i = 0; i < level; i++) { // indent based on level.
+				ret += "\t";
+			}
+			ret += node.data;
+			ret += "\n";
+			ret += this.print(node.right, level + 1); // recurse right
+			ret += this.print(node.left, level + 1); // recurse left
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,319 @@
+package edu.unca.csci202;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Rolling order statistics over a window of a stream, backed by a multiset AVLTree. Every
+ * add, expire and eviction is O(log w) and median, quantile and rank queries are O(log w) by
+ * subtree counts, for a window of w values. Duplicate values share one counted node.
+ *
+ * The window can be managed three ways: by hand with expire(value), by count with a
+ * capacity (the oldest value leaves when a new one arrives), or by time with timed(span)
+ * (values older than span before the newest timestamp leave). The latter two keep arrivals
+ * in a linked list, indexed by value so expire(value) unlinks the oldest copy's arrival
+ * in O(log w), and also accept evictBefore(cutoff).
+ *
+ * Usage:
+ *   SlidingWindow<Long> window = new SlidingWindow<Long>(10000);
+ *   window.add(latency); // oldest of the last 10000 drops out
+ *   long p99 = window.quantile(0.99);
+ *
+ *   SlidingWindow<Long> minute = SlidingWindow.timed(60_000);
+ *   minute.add(latency, System.currentTimeMillis());
+ *
+ * @param <T> generic type
+ */
+public class SlidingWindow<T extends Comparable<T>> {
+	/**
+	 * One arrival, linked in the order added.
+	 * @param <E> generic type
+	 */
+	private static class Arrival<E> {
+		private final E value;
+		private final long timestamp;
+		private Arrival<E> prev;
+		private Arrival<E> next;
+
+		Arrival(E value, long timestamp) {
+			this.value = value;
+			this.timestamp = timestamp;
+		}
+	}
+
+	/* instance variables */
+	private final AVLTree<T> tree = new AVLTree<T>(true);
+	private final Map<T, Deque<Arrival<T>>> byValue = new TreeMap<T, Deque<Arrival<T>>>(); // oldest first.
+	private Arrival<T> oldest;
+	private Arrival<T> newest;
+	private final int capacity;
+	private final long span;
+	private final boolean ordered; // arrivals are kept, false for a window managed by hand.
+
+	/* constructors */
+	/**
+	 * Window managed by hand, values leave only by expire.
+	 */
+	public SlidingWindow() {
+		this(Integer.MAX_VALUE, Long.MAX_VALUE, false);
+	}
+
+	/**
+	 * Window of the last capacity values.
+	 * @param capacity number of values kept.
+	 * @throws IllegalArgumentException if capacity &lt; 1.
+	 */
+	public SlidingWindow(int capacity) {
+		this(capacity, Long.MAX_VALUE, true);
+		if(capacity < 1) {
+			throw new IllegalArgumentException("capacity: " + capacity);
+		}
+	}
+
+	private SlidingWindow(int capacity, long span, boolean ordered) {
+		this.capacity = capacity;
+		this.span = span;
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Window of the values added in the last span time units. Each add(value, timestamp)
+	 * evicts the values stamped at or before timestamp - span.
+	 * @param span length of the window, in the unit of the timestamps.
+	 * @return a new, empty window.
+	 * @throws IllegalArgumentException if span &lt; 1.
+	 */
+	public static <T extends Comparable<T>> SlidingWindow<T> timed(long span) {
+		if(span < 1) {
+			throw new IllegalArgumentException("span: " + span);
+		}
+		return new SlidingWindow<T>(Integer.MAX_VALUE, span, true);
+	}
+
+	/**
+	 * Add value, evicting the oldest value if the window is full.
+	 * @param value value to add.
+	 * @throws IllegalStateException if this is a timed window.
+	 */
+	public void add(T value) {
+		if(this.span != Long.MAX_VALUE) {
+			throw new IllegalStateException("a timed window needs a timestamp");
+		}
+		this.add(value, (this.newest == null) ? Long.MIN_VALUE : this.newest.timestamp);
+	}
+
+	/**
+	 * Add value stamped with timestamp, evicting the oldest value if the window is full and
+	 * the values that fell out of a timed window. Timestamps must not decrease from one add
+	 * to the next.
+	 * @param value value to add.
+	 * @param timestamp arrival time, in any unit evictBefore is called with.
+	 * @throws IllegalArgumentException if timestamp is older than the last arrival.
+	 */
+	public void add(T value, long timestamp) {
+		if(this.newest != null && timestamp < this.newest.timestamp) {
+			throw new IllegalArgumentException("timestamp " + timestamp + " is before " + this.newest.timestamp);
+		}
+		if(!this.ordered) {
+			this.tree.insert(value); // nothing to evict by, expire removes it.
+			return;
+		}
+		if(this.span != Long.MAX_VALUE && timestamp > Long.MIN_VALUE + this.span) {
+			this.evictBefore(timestamp - this.span + 1);
+		}
+		while(this.tree.size() >= this.capacity) {
+			this.evictOldest();
+		}
+		this.tree.insert(value);
+		Arrival<T> arrival = new Arrival<T>(value, timestamp);
+		arrival.prev = this.newest;
+		if(this.newest == null) {
+			this.oldest = arrival;
+		} else {
+			this.newest.next = arrival;
+		}
+		this.newest = arrival;
+		this.byValue.computeIfAbsent(value, v -> new ArrayDeque<Arrival<T>>()).addLast(arrival);
+	}
+
+	/**
+	 * Remove the oldest copy of value from the window, wherever it arrived.
+	 * @param value value to remove.
+	 * @return false if value is not in the window.
+	 */
+	public boolean expire(T value) {
+		if(!this.tree.contains(value)) {
+			return false;
+		}
+		this.tree.delete(value);
+		if(this.ordered) {
+			this.unlink(this.pollArrival(value));
+		}
+		return true;
+	}
+
+	/**
+	 * Remove every value added with a timestamp before cutoff.
+	 * @param cutoff oldest timestamp kept.
+	 * @return the number of values removed.
+	 */
+	public int evictBefore(long cutoff) {
+		int removed = 0;
+		while(this.oldest != null && this.oldest.timestamp < cutoff) {
+			this.evictOldest();
+			removed++;
+		}
+		return removed;
+	}
+
+	/**
+	 * Remove the oldest arrival from the window.
+	 */
+	private void evictOldest() {
+		T value = this.oldest.value;
+		this.tree.delete(value);
+		this.unlink(this.pollArrival(value)); // the oldest arrival is also the oldest copy of its value.
+	}
+
+	/**
+	 * Remove and return the oldest arrival of value from the index.
+	 * @param value value in the window.
+	 * @return its oldest arrival.
+	 */
+	private Arrival<T> pollArrival(T value) {
+		Deque<Arrival<T>> copies = this.byValue.get(value);
+		Arrival<T> arrival = copies.pollFirst();
+		if(copies.isEmpty()) {
+			this.byValue.remove(value);
+		}
+		return arrival;
+	}
+
+	/**
+	 * Unlink arrival from the arrival order.
+	 * @param arrival arrival to remove.
+	 */
+	private void unlink(Arrival<T> arrival) {
+		if(arrival.prev == null) {
+			this.oldest = arrival.next;
+		} else {
+			arrival.prev.next = arrival.next;
+		}
+		if(arrival.next == null) {
+			this.newest = arrival.prev;
+		} else {
+			arrival.next.prev = arrival.prev;
+		}
+		arrival.prev = null;
+		arrival.next = null;
+	}
+
+	/**
+	 * Return the number of values in the window.
+	 * @return the window size.
+	 */
+	public int size() {
+		return this.tree.size();
+	}
+
+	/**
+	 * Return whether the window is empty.
+	 * @return true if there are no values in the window.
+	 */
+	public boolean isEmpty() {
+		return this.tree.isEmpty();
+	}
+
+	/**
+	 * Return the lower median, the value at position (size - 1) / 2 in sorted order.
+	 * @return the median of the window.
+	 * @throws NoSuchElementException if the window is empty.
+	 */
+	public T median() {
+		this.checkNotEmpty();
+		return this.tree.select((this.tree.size() - 1) / 2);
+	}
+
+	/**
+	 * Return the q-quantile by the nearest-rank method: the smallest value with at least
+	 * q * size values at or below it. quantile(0) is the minimum, quantile(1) the maximum.
+	 * @param q quantile in [0, 1].
+	 * @return the q-quantile of the window.
+	 * @throws IllegalArgumentException if q is outside [0, 1].
+	 * @throws NoSuchElementException if the window is empty.
+	 */
+	public T quantile(double q) {
+		if(!(q >= 0 && q <= 1)) {
+			throw new IllegalArgumentException("q: " + q);
+		}
+		this.checkNotEmpty();
+		int k = (int) Math.ceil(q * this.tree.size()) - 1;
+		return this.tree.select(Math.max(0, k));
+	}
+
+	/**
+	 * Return the number of values in the window strictly less than value.
+	 * @param value value to rank.
+	 * @return the number of smaller values.
+	 */
+	public int rank(T value) {
+		return this.tree.rank(value);
+	}
+
+	/**
+	 * Return the k largest values, largest first, duplicates included. O(log w + k).
+	 * @param k number of values.
+	 * @return up to k values in descending order.
+	 */
+	public List<T> topK(int k) {
+		List<T> top = new ArrayList<T>(Math.min(k, this.tree.size()));
+		Iterator<T> itr = this.tree.descendingIterator();
+		while(top.size() < k && itr.hasNext()) {
+			top.add(itr.next());
+		}
+		return top;
+	}
+
+	/**
+	 * Return the smallest value in the window.
+	 * @return the minimum, null if the window is empty.
+	 */
+	public T minimum() {
+		return this.tree.minimum();
+	}
+
+	/**
+	 * Return the largest value in the window.
+	 * @return the maximum, null if the window is empty.
+	 */
+	public T maximum() {
+		return this.tree.maximum();
+	}
+
+	/**
+	 * Throw if there is nothing to take a statistic of.
+	 */
+	private void checkNotEmpty() {
+		if(this.tree.isEmpty()) {
+			throw new NoSuchElementException("window is empty");
+		}
+	}
+
+	public String toString() {
+		String ret = "[";
+		Iterator<T> itr = this.tree.iteratorInOrder();
+		while(itr.hasNext()) {
+			ret += itr.next();
+			if(itr.hasNext()) {
+				ret += ", ";
+			}
+		}
+		return ret + "]";
+	}
+}
@@ -0,0 +1,191 @@
+package edu.unca.csci202;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes tree snapshot files. A snapshot holds the elements in In-Order, so it
+ * can be loaded back with AVLTree.fromSorted in O(n) without any rebalancing.
+ *
+ * Layout, big-endian:
+ * <pre>
+ * int    magic "AVLS"
+ * int    format version
+ * short  codec name length, then the codec name in UTF-8
+ * long   element count
+ *        elements, each encoded by the codec
+ * int    CRC32 of every byte before it
+ * </pre>
+ */
+final class SnapshotFile {
+	
+	static final int MAGIC = 0x41564C53; // "AVLS"
+	static final int VERSION = 1;
+	private static final int BUFFER_BYTES = 1 << 20;
+	
+	private SnapshotFile() {
+	}
+	
+	/**
+	 * Write count elements from itr to path, replacing any existing file, and force them to
+	 * the storage device before returning.
+	 * @param path file to write.
+	 * @param itr elements in In-Order.
+	 * @param count number of elements itr will return.
+	 * @param codec codec for the elements.
+	 * @throws IOException if the file can't be written.
+	 */
+	static <T> void write(Path path, Iterator<T> itr, long count, KeyCodec<T> codec) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			CRC32 crc = new CRC32();
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+			byte[] name = codec.name().getBytes(StandardCharsets.UTF_8);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putShort((short) name.length);
+			buffer.put(name);
+			buffer.putLong(count);
+			
+			long written = 0;
+			while(itr.hasNext()) {
+				T element = itr.next();
+				int needed = codec.size(element);
+				if(buffer.remaining() < needed) {
+					flush(channel, buffer, crc);
+					if(buffer.capacity() < needed) {
+						buffer = ByteBuffer.allocate(needed); // an element bigger than the buffer.
+					}
+				}
+				codec.write(element, buffer);
+				written++;
+			}
+			if(written != count) {
+				throw new IOException("expected " + count + " elements, iterator returned " + written);
+			}
+			if(buffer.remaining() < Integer.BYTES) {
+				flush(channel, buffer, crc);
+			}
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			buffer.position(buffer.limit());
+			buffer.limit(buffer.capacity());
+			buffer.putInt((int) crc.getValue());
+			buffer.flip();
+			while(buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+	}
+	
+	/**
+	 * Write the snapshot to a temporary sibling of path and move it into place atomically,
+	 * so a crash part way through leaves any previous snapshot at path intact.
+	 * @param path file to replace.
+	 * @param itr elements in In-Order.
+	 * @param count number of elements itr will return.
+	 * @param codec codec for the elements.
+	 * @throws IOException if the file can't be written or moved.
+	 */
+	static <T> void replace(Path path, Iterator<T> itr, long count, KeyCodec<T> codec) throws IOException {
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			write(temporary, itr, count, codec);
+			Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+		} catch(IOException | RuntimeException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+	}
+	
+	/**
+	 * Writes out the buffered bytes, adding them to the running checksum.
+	 * @param channel file to write to.
+	 * @param buffer bytes to write, in fill mode; cleared afterwards.
+	 * @param crc running checksum.
+	 * @throws IOException if the file can't be written.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+		buffer.flip();
+		crc.update(buffer.duplicate());
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	
+	/**
+	 * Map the snapshot at path and decode its elements, after checking the header, the codec
+	 * name and the checksum.
+	 * @param path file to read.
+	 * @param codec codec for the elements.
+	 * @return the elements, in the order they were written.
+	 * @throws IOException if the file can't be read, is corrupt, or was written with a
+	 * different codec or format version.
+	 */
+	static <T> ArrayList<T> read(Path path, KeyCodec<T> codec) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if(fileSize > Integer.MAX_VALUE) {
+				throw new IOException(path + ": snapshots over 2GiB are not supported");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+			try {
+				if(buffer.getInt() != MAGIC) {
+					throw new IOException(path + ": not a snapshot file");
+				}
+				int version = buffer.getInt();
+				if(version != VERSION) {
+					throw new IOException(path + ": unsupported snapshot version " + version);
+				}
+				int nameLength = buffer.getShort() & 0xFFFF;
+				if(nameLength > buffer.remaining()) {
+					throw new IOException(path + ": bad codec name length " + nameLength);
+				}
+				byte[] name = new byte[nameLength];
+				buffer.get(name);
+				if(!codec.name().equals(new String(name, StandardCharsets.UTF_8))) {
+					throw new IOException(path + ": written with codec "
+							+ new String(name, StandardCharsets.UTF_8) + ", not " + codec.name());
+				}
+				
+				int end = (int) fileSize - Integer.BYTES;
+				CRC32 crc = new CRC32();
+				ByteBuffer body = buffer.duplicate();
+				body.position(0).limit(end);
+				crc.update(body);
+				if(buffer.getInt(end) != (int) crc.getValue()) {
+					throw new IOException(path + ": checksum mismatch");
+				}
+				
+				long count = buffer.getLong();
+				if(count < 0 || count > Integer.MAX_VALUE) {
+					throw new IOException(path + ": bad element count " + count);
+				}
+				buffer.limit(end);
+				ArrayList<T> elements = new ArrayList<T>((int) count);
+				for(long i = 0; i < count; i++) {
+					elements.add(codec.read(buffer));
+				}
+				if(buffer.hasRemaining()) {
+					throw new IOException(path + ": trailing bytes after " + count + " elements");
+				}
+				return elements;
+			} catch(BufferUnderflowException | IndexOutOfBoundsException e) {
+				throw new IOException(path + ": truncated snapshot", e);
+			}
+		}
+	}
+}
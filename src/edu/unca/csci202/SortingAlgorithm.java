@@ -1,25 +1,26 @@
 package edu.unca.csci202;
 
+import java.util.Arrays;
+import java.util.Collection;
+
 
 public abstract class SortingAlgorithm<T extends Comparable<T>> {
 
-	protected class Node<T>{
-		Node<T> next;
-		Node<T> prev;
-		T data;
-	}
-	protected Node<T> head;
-	protected Node<T> tail;
+	private static final int DEFAULT_CAPACITY = 16;
+	
+	protected Object[] elements; // input buffer, slots [0, count) are in use.
+	protected int count;
 	protected boolean debug;
 	protected long numberOfComparisons;
 	protected long numberOfSwaps;
+	protected TreeMetrics metrics; // shared, striped counters, null when not recording.
 
 	public SortingAlgorithm() {
-		this.numberOfComparisons = 0;
-		this.numberOfSwaps = 0;
-		this.debug = false;
+		this(false);
 	}
 	public SortingAlgorithm(boolean debug) {
+		this.elements = new Object[DEFAULT_CAPACITY];
+		this.count = 0;
 		this.numberOfComparisons = 0;
 		this.numberOfSwaps = 0;
 		this.debug = debug;
@@ -31,54 +32,157 @@ public abstract class SortingAlgorithm<T extends Comparable<T>> {
 		System.out.print("#numberOfSwaps: "+numberOfSwaps+"  ");
 		System.out.println("#numberOfComparisons: "+numberOfComparisons);
 	}
-
 	
-	protected void swap(Node<T> a, Node<T> b) {
-		T tmp = b.data;
-		b.data = a.data;
-		a.data = tmp;
+	/**
+	 * Return the number of comparisons made by the last sort.
+	 * @return the number of comparisons.
+	 */
+	public long getNumberOfComparisons() {
+		return this.numberOfComparisons;
+	}
+	
+	/**
+	 * Return the number of swaps made by the last sort.
+	 * @return the number of swaps.
+	 */
+	public long getNumberOfSwaps() {
+		return this.numberOfSwaps;
+	}
+	
+	/**
+	 * Also record this algorithm's comparisons, swaps and edges followed in metrics, where
+	 * several sorts, on any threads, can add to the same counters.
+	 * @param metrics metrics to record into, null to stop recording.
+	 */
+	public void setMetrics(TreeMetrics metrics) {
+		this.metrics = metrics;
+	}
+	
+	/**
+	 * Add the counts of one sort step to the attached metrics, if any.
+	 * @param comparisons comparisons made.
+	 * @param swaps swaps made.
+	 * @param edgesFollowed edges followed by tree inserts.
+	 */
+	protected void publish(long comparisons, long swaps, long edgesFollowed) {
+		if(this.metrics != null) {
+			this.metrics.recordSort(comparisons, swaps, edgesFollowed);
+		}
+	}
+	
+	/**
+	 * Return the number of elements added.
+	 * @return the number of elements in the buffer.
+	 */
+	public int size() {
+		return this.count;
+	}
+	
+	/**
+	 * Return the element at index.
+	 * @param index index in [0, size()).
+	 * @return the element.
+	 */
+	@SuppressWarnings("unchecked")
+	protected T get(int index) {
+		return (T) this.elements[index];
+	}
+	
+	/**
+	 * Replace the element at index.
+	 * @param index index in [0, size()).
+	 * @param element new element.
+	 */
+	protected void set(int index, T element) {
+		this.elements[index] = element;
+	}
+	
+	protected void swap(int a, int b) {
+		Object tmp = this.elements[b];
+		this.elements[b] = this.elements[a];
+		this.elements[a] = tmp;
 		this.numberOfSwaps++;
+		this.publish(0, 1, 0);
 	}
 	
 	public void clear() {
 		this.numberOfComparisons = 0;
 		this.numberOfSwaps = 0;
-		this.head = null;
-		this.tail = null;
+		Arrays.fill(this.elements, 0, this.count, null); // let the GC have the elements.
+		this.count = 0;
 	}
 
 	public void addToBack(T element) {
-		Node<T> node = new Node<T>();
-		node.data = element;
-		if(head == null) { 
-			// empty list
-			this.head = node;
-			this.tail = node;
-			node.next = null;
-			node.prev = null;
-		}else {
-			this.tail.next = node;
-			node.prev = this.tail;
-			node.next = null;
-			this.tail = node;
+		if(this.count == this.elements.length) {
+			this.grow(this.count + 1);
+		}
+		this.elements[this.count++] = element;
+	}
+	
+	/**
+	 * Append every element of a collection, growing the buffer at most once.
+	 * @param collection elements to append, in iteration order.
+	 */
+	public void addAll(Collection<? extends T> collection) {
+		Object[] added = collection.toArray();
+		this.ensureCapacity(this.count + added.length);
+		System.arraycopy(added, 0, this.elements, this.count, added.length);
+		this.count += added.length;
+	}
+	
+	/**
+	 * Append every element of an array, growing the buffer at most once.
+	 * @param array elements to append, in order.
+	 */
+	public void addAll(T[] array) {
+		this.ensureCapacity(this.count + array.length);
+		System.arraycopy(array, 0, this.elements, this.count, array.length);
+		this.count += array.length;
+	}
+	
+	/**
+	 * Make room for at least capacity elements.
+	 * @param capacity required capacity.
+	 */
+	public void ensureCapacity(int capacity) {
+		if(capacity > this.elements.length) {
+			this.grow(capacity);
+		}
+	}
+	
+	/**
+	 * Grow the buffer by half (amortized O(1) appends), or to capacity if that is larger.
+	 * @param capacity required capacity.
+	 */
+	private void grow(int capacity) {
+		if(capacity < 0) {
+			throw new OutOfMemoryError("buffer too large");
+		}
+		int grown = this.elements.length + (this.elements.length >> 1);
+		if(grown < capacity || grown < 0) {
+			grown = capacity;
 		}
+		this.elements = Arrays.copyOf(this.elements, grown);
 	}
 	
 	public String toString() {
-		return this.getSubString(this.head, this.tail);
+		return this.getSubString(0, this.count - 1);
 	}
 	
-	public String getSubString(Node<T> begin, Node<T> end) {
-		String ret = "[";
-		Node<T> current = begin;
-		while(current != null) {
-			ret += current.data;
-			if(current.next != null) {
-				ret += ",";
+	/**
+	 * Return the elements in [begin, end] as "[a,b,c]".
+	 * @param begin first index.
+	 * @param end last index, inclusive.
+	 * @return the elements as a String.
+	 */
+	public String getSubString(int begin, int end) {
+		StringBuilder ret = new StringBuilder("[");
+		for(int i = begin; i <= end && i < this.count; i++) {
+			ret.append(this.elements[i]);
+			if(i < end && i + 1 < this.count) {
+				ret.append(",");
 			}
-			if(current == end) {break;}
-			current = current.next;
 		}
-		return ret + "]";
+		return ret.append("]").toString();
 	}
 }
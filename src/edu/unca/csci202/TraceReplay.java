@@ -0,0 +1,446 @@
+package edu.unca.csci202;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Replays a recorded operation trace against BinarySearchTreeADT implementations and
+ * reports throughput, latency percentiles and tree shape as CSV.
+ *
+ * Trace format, one operation per line, blank lines and lines starting with # ignored:
+ *   insert KEY
+ *   find KEY
+ *   delete KEY
+ *   range LO HI      counts the elements in [LO, HI]
+ *
+ * Run with: java edu.unca.csci202.TraceReplay [options] [trace-file]
+ *   --impls=AVLTree,ConcurrentAVLTree,PersistentAVLTree,BPlusTree  one CSV row each
+ *   --threads=1      operation i is replayed by thread i % threads. Implementations that
+ *                    are not thread-safe are wrapped in a lock.
+ *   --keys=long      key type, long or string.
+ *   --generate=N     write a random trace of N operations to stdout instead of replaying.
+ * The trace is read from standard input when no file (or "-") is given.
+ */
+public class TraceReplay {
+
+	private static final String HEADER = "impl,threads,ops,seconds,ops_per_sec,"
+			+ "p50_ns,p90_ns,p99_ns,p999_ns,max_ns,size,height,min_height";
+
+	/**
+	 * Trace operation kinds.
+	 */
+	private enum Kind {
+		INSERT, FIND, DELETE, RANGE
+	}
+
+	/**
+	 * One parsed trace line.
+	 */
+	private static class Op<K> {
+		private final Kind kind;
+		private final K key;
+		private final K hi; // upper bound of a range, null otherwise.
+
+		/* constructors */
+		public Op(Kind kind, K key, K hi) {
+			this.kind = kind;
+			this.key = key;
+			this.hi = hi;
+		}
+	}
+
+	/**
+	 * The operations the replay calls on a tree.
+	 */
+	private interface Target<K> {
+		int insert(K element);
+
+		K find(K element);
+
+		void delete(K element);
+
+		int countInRange(K lo, K hi);
+
+		int size();
+
+		int height();
+	}
+
+	/**
+	 * Calls straight through to the tree, for one thread or a thread-safe tree.
+	 */
+	private static class DirectTree<K extends Comparable<K>> implements Target<K> {
+		private final BinarySearchTreeADT<K> tree;
+
+		/* constructors */
+		public DirectTree(BinarySearchTreeADT<K> tree) {
+			this.tree = tree;
+		}
+
+		public int insert(K element) {
+			return this.tree.insert(element);
+		}
+
+		public K find(K element) {
+			return this.tree.find(element);
+		}
+
+		public void delete(K element) {
+			this.tree.delete(element);
+		}
+
+		public int countInRange(K lo, K hi) {
+			return TraceReplay.countInRange(this.tree, lo, hi);
+		}
+
+		public int size() {
+			return this.tree.size();
+		}
+
+		public int height() {
+			return this.tree.height();
+		}
+	}
+
+	/**
+	 * Lock-wrapped view of a tree that is not thread-safe, every call holds this monitor.
+	 */
+	private static class LockedTree<K extends Comparable<K>> extends DirectTree<K> {
+
+		/* constructors */
+		public LockedTree(BinarySearchTreeADT<K> tree) {
+			super(tree);
+		}
+
+		public synchronized int insert(K element) {
+			return super.insert(element);
+		}
+
+		public synchronized K find(K element) {
+			return super.find(element);
+		}
+
+		public synchronized void delete(K element) {
+			super.delete(element);
+		}
+
+		public synchronized int countInRange(K lo, K hi) {
+			return super.countInRange(lo, hi);
+		}
+
+		public synchronized int size() {
+			return super.size();
+		}
+
+		public synchronized int height() {
+			return super.height();
+		}
+	}
+
+	/**
+	 * Create an empty tree by implementation name.
+	 * @param impl implementation name.
+	 * @return a supplier of empty trees.
+	 */
+	private static <K extends Comparable<K>> Supplier<BinarySearchTreeADT<K>> factory(String impl) {
+		switch(impl) {
+			case "AVLTree":
+				return AVLTree::new;
+			case "LinkedBST":
+				throw new IllegalArgumentException("LinkedBST has no find, contains or delete to replay");
+			case "ConcurrentAVLTree":
+				return ConcurrentAVLTree::new;
+			case "PersistentAVLTree":
+				return PersistentAVLTree::new;
+			case "BPlusTree":
+				return BPlusTree::new;
+			default:
+				throw new IllegalArgumentException("unknown implementation: " + impl);
+		}
+	}
+
+	/**
+	 * Return whether impl may be called from several threads without a lock.
+	 * @param impl implementation name.
+	 * @return true if it is thread-safe.
+	 */
+	private static boolean threadSafe(String impl) {
+		return impl.equals("ConcurrentAVLTree") || impl.equals("PersistentAVLTree");
+	}
+
+	/**
+	 * Count the elements in [lo, hi] with the tree's own countInRange, or by an ordered scan
+	 * that stops past hi for trees without one.
+	 * @param tree tree to count in.
+	 * @param lo low endpoint, inclusive.
+	 * @param hi high endpoint, inclusive.
+	 * @return the number of elements in range.
+	 */
+	private static <K extends Comparable<K>> int countInRange(BinarySearchTreeADT<K> tree, K lo, K hi) {
+		if(tree instanceof AVLTree) {
+			return ((AVLTree<K>) tree).countInRange(lo, hi);
+		}
+		if(tree instanceof ConcurrentAVLTree) {
+			return ((ConcurrentAVLTree<K>) tree).countInRange(lo, hi);
+		}
+		if(tree instanceof PersistentAVLTree) {
+			return ((PersistentAVLTree<K>) tree).countInRange(lo, hi);
+		}
+		if(tree instanceof BPlusTree) {
+			return ((BPlusTree<K>) tree).countInRange(lo, hi);
+		}
+		int count = 0;
+		Iterator<K> itr = tree.iteratorInOrder();
+		while(itr.hasNext()) {
+			K element = itr.next();
+			if(element.compareTo(hi) > 0) {
+				break;
+			}
+			if(element.compareTo(lo) >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Parse a trace.
+	 * @param reader trace source.
+	 * @param parseKey key parser.
+	 * @return the operations in order.
+	 * @throws IOException if the trace can't be read or has a malformed line.
+	 */
+	private static <K> List<Op<K>> parse(Reader reader, Function<String, K> parseKey) throws IOException {
+		List<Op<K>> ops = new ArrayList<Op<K>>();
+		BufferedReader in = new BufferedReader(reader);
+		String line;
+		int lineNumber = 0;
+		while((line = in.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if(line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\\s+");
+			try {
+				Kind kind = Kind.valueOf(fields[0].toUpperCase(Locale.ROOT));
+				int arity = (kind == Kind.RANGE) ? 3 : 2;
+				if(fields.length != arity) {
+					throw new IllegalArgumentException("expected " + (arity - 1) + " key(s)");
+				}
+				K hi = (kind == Kind.RANGE) ? parseKey.apply(fields[2]) : null;
+				ops.add(new Op<K>(kind, parseKey.apply(fields[1]), hi));
+			} catch(IllegalArgumentException e) {
+				throw new IOException("line " + lineNumber + ": " + e.getMessage() + ": " + line, e);
+			}
+		}
+		return ops;
+	}
+
+	/**
+	 * Replay ops against a fresh tree and return one CSV row.
+	 * @param impl implementation name.
+	 * @param ops operations to replay.
+	 * @param threads number of replay threads.
+	 * @return the CSV row.
+	 * @throws InterruptedException if interrupted while waiting for the replay threads.
+	 */
+	private static <K extends Comparable<K>> String replay(String impl, List<Op<K>> ops, int threads)
+			throws InterruptedException {
+		Supplier<BinarySearchTreeADT<K>> factory = factory(impl);
+		BinarySearchTreeADT<K> tree = factory.get();
+		Target<K> target = (threads > 1 && !threadSafe(impl)) ? new LockedTree<K>(tree) : new DirectTree<K>(tree);
+		boolean checkDelete = (tree instanceof AVLTree); // AVLTree prints a warning on a missing element, keep it off the CSV.
+		long[][] latencies = new long[threads][];
+		Throwable[] failure = new Throwable[1];
+		CountDownLatch ready = new CountDownLatch(threads);
+		CountDownLatch go = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		long[] sink = new long[threads]; // consumes results.
+		for(int t = 0; t < threads; t++) {
+			final int id = t;
+			latencies[id] = new long[(ops.size() - id + threads - 1) / threads];
+			workers[t] = new Thread(() -> {
+				ready.countDown();
+				try {
+					go.await();
+					int n = 0;
+					for(int i = id; i < ops.size(); i += threads) {
+						Op<K> op = ops.get(i);
+						// checked before timing so every tree pays one descent per delete.
+						boolean present = !checkDelete || op.kind != Kind.DELETE || target.find(op.key) != null;
+						long start = System.nanoTime();
+						switch(op.kind) {
+							case INSERT:
+								sink[id] += target.insert(op.key);
+								break;
+							case FIND:
+								if(target.find(op.key) != null) {
+									sink[id]++;
+								}
+								break;
+							case DELETE:
+								if(present) {
+									target.delete(op.key);
+								} else {
+									target.find(op.key); // the descent a missing delete costs elsewhere.
+								}
+								break;
+							case RANGE:
+								sink[id] += target.countInRange(op.key, op.hi);
+								break;
+						}
+						latencies[id][n++] = System.nanoTime() - start;
+					}
+				} catch(Throwable e) {
+					synchronized(failure) {
+						failure[0] = e;
+					}
+				}
+			}, "replay-" + t);
+			workers[t].start();
+		}
+		ready.await();
+		long start = System.nanoTime();
+		go.countDown();
+		for(Thread worker : workers) {
+			worker.join();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		if(failure[0] != null) {
+			throw new IllegalStateException(impl + " failed during replay", failure[0]);
+		}
+
+		long[] all = new long[ops.size()];
+		int at = 0;
+		for(long[] part : latencies) {
+			System.arraycopy(part, 0, all, at, part.length);
+			at += part.length;
+		}
+		Arrays.sort(all);
+		int size = target.size();
+		int minHeight = 32 - Integer.numberOfLeadingZeros(size); // ceil(log2(size + 1)).
+		return String.format(Locale.ROOT, "%s,%d,%d,%.6f,%.1f,%d,%d,%d,%d,%d,%d,%d,%d",
+				impl, threads, ops.size(), seconds, ops.size() / seconds,
+				percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 0.999),
+				(all.length == 0) ? 0 : all[all.length - 1], size, target.height(), minHeight);
+	}
+
+	/**
+	 * Return the p-th percentile of sorted values, nearest rank.
+	 * @param sorted values in ascending order.
+	 * @param p percentile in [0, 1].
+	 * @return the percentile, 0 if there are no values.
+	 */
+	private static long percentile(long[] sorted, double p) {
+		if(sorted.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(p * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	/**
+	 * Write a random trace: 50% inserts, 30% finds, 15% deletes of earlier keys, 5% ranges.
+	 * @param n number of operations.
+	 * @param out where to write the trace.
+	 */
+	private static void generate(int n, PrintStream out) {
+		Random rnd = new Random(42);
+		long keySpace = Math.max(16, n);
+		List<Long> live = new ArrayList<Long>();
+		out.println("# " + n + " random operations over keys [0, " + keySpace + ")");
+		for(int i = 0; i < n; i++) {
+			int dice = rnd.nextInt(100);
+			if(dice < 50 || live.isEmpty()) {
+				long key = (long) (rnd.nextDouble() * keySpace);
+				live.add(key);
+				out.println("insert " + key);
+			} else if(dice < 80) {
+				out.println("find " + (long) (rnd.nextDouble() * keySpace));
+			} else if(dice < 95) {
+				int j = rnd.nextInt(live.size());
+				long key = live.get(j);
+				live.set(j, live.get(live.size() - 1)); // swap-remove.
+				live.remove(live.size() - 1);
+				out.println("delete " + key);
+			} else {
+				long lo = (long) (rnd.nextDouble() * keySpace);
+				out.println("range " + lo + " " + (lo + keySpace / 100));
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Return the value of --name=value, or the default.
+	 * @param args command line arguments.
+	 * @param name option name without leading dashes.
+	 * @param def default value.
+	 * @return the option's value.
+	 */
+	private static String option(String[] args, String name, String def) {
+		String prefix = "--" + name + "=";
+		for(String arg : args) {
+			if(arg.startsWith(prefix)) {
+				return arg.substring(prefix.length());
+			}
+		}
+		return def;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String generate = option(args, "generate", null);
+		if(generate != null) {
+			generate(Integer.parseInt(generate), System.out);
+			return;
+		}
+		String[] impls = option(args, "impls", "AVLTree").split(",");
+		int threads = Integer.parseInt(option(args, "threads", "1"));
+		String keys = option(args, "keys", "long");
+		String file = "-";
+		for(String arg : args) {
+			if(!arg.startsWith("--")) {
+				file = arg;
+			}
+		}
+		if(threads < 1) {
+			throw new IllegalArgumentException("--threads must be at least 1");
+		}
+
+		Reader reader = file.equals("-")
+				? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+				: Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8);
+		System.out.println(HEADER);
+		try(Reader in = reader) {
+			if(keys.equals("long")) {
+				List<Op<Long>> ops = parse(in, Long::valueOf);
+				for(String impl : impls) {
+					System.out.println(replay(impl, ops, threads));
+				}
+			} else if(keys.equals("string")) {
+				List<Op<String>> ops = parse(in, key -> key);
+				for(String impl : impls) {
+					System.out.println(replay(impl, ops, threads));
+				}
+			} else {
+				throw new IllegalArgumentException("unknown key type: " + keys);
+			}
+		}
+	}
+}
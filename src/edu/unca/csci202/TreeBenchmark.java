@@ -0,0 +1,441 @@
+package edu.unca.csci202;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Benchmark suite for the tree implementations against java.util.TreeMap and TreeSet.
+ *
+ * Each case is one operation on one implementation at one size and key distribution. It
+ * runs a few warmup iterations, then measured iterations, each on a freshly built tree where
+ * the operation needs one. Results are consumed into a sink so the JIT can't drop the loops,
+ * and are written as JSON in the same shape JMH uses (benchmark, params, primaryMetric with
+ * score, scoreError and rawData) so existing tooling can diff runs.
+ *
+ * Run with: java edu.unca.csci202.TreeBenchmark [options]
+ *   --impls=AVLTree,LinkedBST,TreeMap,TreeSet  (also ConcurrentAVLTree, PersistentAVLTree,
+ *                                              BPlusTree)
+ *   --ops=insert,find,contains,delete,minmax,iterate
+ *   --sizes=1000,10000,100000,1000000          (10000000 needs a large -Xmx)
+ *   --dists=sequential,random,zipfian,adversarial
+ *   --warmup=2 --iterations=5 --seed=42 --out=benchmark.json
+ *   --bst-limit=10000   largest size LinkedBST runs for sequential and adversarial keys,
+ *                       which degenerate it into a list and cost O(n^2) to build.
+ */
+public class TreeBenchmark {
+
+	private static final int MIN_PROBES = 10000; // lookups per find/contains/minmax iteration,
+	private static final int MAX_PROBES = 1000000; // scaled with the tree size between these.
+	private static final double ZIPF_THETA = 0.99;
+
+	private static volatile long sink; // consumes results.
+
+	/**
+	 * Uniform view of a tree or a java.util baseline, keyed by Integer.
+	 */
+	private interface Subject {
+		void insert(Integer key);
+		boolean contains(Integer key);
+		Integer find(Integer key);
+		void delete(Integer key);
+		Integer minimum();
+		Integer maximum();
+		Iterator<Integer> iterator();
+	}
+
+	/**
+	 * Subject for any BinarySearchTreeADT.
+	 */
+	private static class TreeSubject implements Subject {
+		private final BinarySearchTreeADT<Integer> tree;
+
+		/* constructors */
+		public TreeSubject(BinarySearchTreeADT<Integer> tree) {
+			this.tree = tree;
+		}
+
+		public void insert(Integer key) {
+			this.tree.insert(key);
+		}
+
+		public boolean contains(Integer key) {
+			return this.tree.contains(key);
+		}
+
+		public Integer find(Integer key) {
+			return this.tree.find(key);
+		}
+
+		public void delete(Integer key) {
+			this.tree.delete(key);
+		}
+
+		public Integer minimum() {
+			return this.tree.minimum();
+		}
+
+		public Integer maximum() {
+			return this.tree.maximum();
+		}
+
+		public Iterator<Integer> iterator() {
+			return this.tree.iterator();
+		}
+	}
+
+	/**
+	 * TreeMap baseline keeping a count per key, the same multiset behaviour as the trees.
+	 */
+	private static class MapSubject implements Subject {
+		private final TreeMap<Integer, Integer> map = new TreeMap<Integer, Integer>();
+
+		public void insert(Integer key) {
+			this.map.merge(key, 1, Integer::sum);
+		}
+
+		public boolean contains(Integer key) {
+			return this.map.containsKey(key);
+		}
+
+		public Integer find(Integer key) {
+			Map.Entry<Integer, Integer> entry = this.map.ceilingEntry(key);
+			return (entry != null && entry.getKey().equals(key)) ? entry.getKey() : null;
+		}
+
+		public void delete(Integer key) {
+			this.map.computeIfPresent(key, (k, count) -> (count == 1) ? null : count - 1);
+		}
+
+		public Integer minimum() {
+			return this.map.firstKey();
+		}
+
+		public Integer maximum() {
+			return this.map.lastKey();
+		}
+
+		public Iterator<Integer> iterator() {
+			return this.map.keySet().iterator();
+		}
+	}
+
+	/**
+	 * TreeSet baseline, duplicates collapse so it holds fewer elements for zipfian keys.
+	 */
+	private static class SetSubject implements Subject {
+		private final TreeSet<Integer> set = new TreeSet<Integer>();
+
+		public void insert(Integer key) {
+			this.set.add(key);
+		}
+
+		public boolean contains(Integer key) {
+			return this.set.contains(key);
+		}
+
+		public Integer find(Integer key) {
+			Integer found = this.set.ceiling(key);
+			return (found != null && found.equals(key)) ? found : null;
+		}
+
+		public void delete(Integer key) {
+			this.set.remove(key);
+		}
+
+		public Integer minimum() {
+			return this.set.first();
+		}
+
+		public Integer maximum() {
+			return this.set.last();
+		}
+
+		public Iterator<Integer> iterator() {
+			return this.set.iterator();
+		}
+	}
+
+	/**
+	 * Create an empty subject by implementation name.
+	 * @param impl implementation name.
+	 * @return a new empty subject.
+	 */
+	private static Subject create(String impl) {
+		switch(impl) {
+			case "AVLTree":
+				return new TreeSubject(new AVLTree<Integer>());
+			case "LinkedBST":
+				return new TreeSubject(new LinkedBST<Integer>());
+			case "ConcurrentAVLTree":
+				return new TreeSubject(new ConcurrentAVLTree<Integer>());
+			case "PersistentAVLTree":
+				return new TreeSubject(new PersistentAVLTree<Integer>());
+			case "BPlusTree":
+				return new TreeSubject(new BPlusTree<Integer>());
+			case "TreeMap":
+				return new MapSubject();
+			case "TreeSet":
+				return new SetSubject();
+			default:
+				throw new IllegalArgumentException("unknown implementation: " + impl);
+		}
+	}
+
+	/**
+	 * Return whether impl can run op. LinkedBST's find, contains and delete are unimplemented.
+	 * @param impl implementation name.
+	 * @param op operation name.
+	 * @return true if the case should run.
+	 */
+	private static boolean supports(String impl, String op) {
+		return !(impl.equals("LinkedBST") && (op.equals("find") || op.equals("contains") || op.equals("delete")));
+	}
+
+	/**
+	 * Generate n keys in the given distribution.
+	 *   sequential   0..n-1 ascending.
+	 *   random       a shuffled permutation of 0..n-1.
+	 *   zipfian      n draws from a Zipf(0.99) distribution over n keys, hot keys scattered.
+	 *   adversarial  0, n-1, 1, n-2, ..., a zig-zag that degenerates an unbalanced BST into
+	 *                a path and makes an AVL tree do double rotations.
+	 * @param dist distribution name.
+	 * @param n number of keys.
+	 * @param rnd random source.
+	 * @return the keys, boxed up front so the timed loops don't allocate.
+	 */
+	private static Integer[] keys(String dist, int n, Random rnd) {
+		Integer[] keys = new Integer[n];
+		switch(dist) {
+			case "sequential":
+				for(int i = 0; i < n; i++) {
+					keys[i] = i;
+				}
+				break;
+			case "random":
+				for(int i = 0; i < n; i++) {
+					keys[i] = i;
+				}
+				shuffle(keys, rnd);
+				break;
+			case "zipfian":
+				double zeta = 0;
+				for(int i = 1; i <= n; i++) {
+					zeta += 1 / Math.pow(i, ZIPF_THETA);
+				}
+				double zeta2 = 1 + 1 / Math.pow(2, ZIPF_THETA);
+				double alpha = 1 / (1 - ZIPF_THETA);
+				double eta = (1 - Math.pow(2.0 / n, 1 - ZIPF_THETA)) / (1 - zeta2 / zeta);
+				for(int i = 0; i < n; i++) { // Gray et al.'s generator, as used by YCSB.
+					double u = rnd.nextDouble();
+					double uz = u * zeta;
+					long rank;
+					if(uz < 1) {
+						rank = 0;
+					} else if(uz < zeta2) {
+						rank = 1;
+					} else {
+						rank = Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+					}
+					keys[i] = (int) ((rank * 2654435761L) % n); // scatter hot ranks, a bijection since the multiplier is prime.
+				}
+				break;
+			case "adversarial":
+				for(int i = 0, lo = 0, hi = n - 1; i < n; i++) {
+					keys[i] = (i % 2 == 0) ? lo++ : hi--;
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("unknown distribution: " + dist);
+		}
+		return keys;
+	}
+
+	private static void shuffle(Integer[] keys, Random rnd) {
+		for(int i = keys.length - 1; i > 0; i--) {
+			int j = rnd.nextInt(i + 1);
+			Integer tmp = keys[i];
+			keys[i] = keys[j];
+			keys[j] = tmp;
+		}
+	}
+
+	/**
+	 * Run one iteration of op and return its time per operation.
+	 * @param impl implementation name.
+	 * @param op operation name.
+	 * @param keys keys to insert.
+	 * @param probes lookup keys for find and contains, its length sets the minmax count.
+	 * @return nanoseconds per operation.
+	 */
+	private static double iteration(String impl, String op, Integer[] keys, Integer[] probes) {
+		Subject subject = create(impl);
+		long start;
+		long ops;
+		long acc = 0;
+		if(op.equals("insert")) {
+			start = System.nanoTime();
+			for(Integer key : keys) {
+				subject.insert(key);
+			}
+			ops = keys.length;
+		} else {
+			for(Integer key : keys) { // untimed setup.
+				subject.insert(key);
+			}
+			start = System.nanoTime();
+			switch(op) {
+				case "find":
+					for(Integer probe : probes) {
+						if(subject.find(probe) != null) {
+							acc++;
+						}
+					}
+					ops = probes.length;
+					break;
+				case "contains":
+					for(Integer probe : probes) {
+						if(subject.contains(probe)) {
+							acc++;
+						}
+					}
+					ops = probes.length;
+					break;
+				case "delete":
+					for(Integer key : keys) {
+						subject.delete(key);
+					}
+					ops = keys.length;
+					break;
+				case "minmax":
+					for(int i = 0; i < probes.length; i++) {
+						acc += subject.minimum() + subject.maximum();
+					}
+					ops = probes.length;
+					break;
+				case "iterate":
+					ops = 0;
+					for(Iterator<Integer> itr = subject.iterator(); itr.hasNext(); ops++) {
+						acc += itr.next();
+					}
+					break;
+				default:
+					throw new IllegalArgumentException("unknown operation: " + op);
+			}
+		}
+		double nsPerOp = (System.nanoTime() - start) / (double) Math.max(1, ops);
+		sink += acc;
+		return nsPerOp;
+	}
+
+	/**
+	 * Parse a comma separated option, or return the default.
+	 * @param args command line arguments.
+	 * @param name option name without leading dashes.
+	 * @param def default value.
+	 * @return the option's values.
+	 */
+	private static String[] option(String[] args, String name, String def) {
+		String prefix = "--" + name + "=";
+		for(String arg : args) {
+			if(arg.startsWith(prefix)) {
+				return arg.substring(prefix.length()).split(",");
+			}
+		}
+		return def.split(",");
+	}
+
+	public static void main(String[] args) throws IOException {
+		String[] impls = option(args, "impls", "AVLTree,LinkedBST,TreeMap,TreeSet");
+		String[] ops = option(args, "ops", "insert,find,contains,delete,minmax,iterate");
+		String[] sizes = option(args, "sizes", "1000,10000,100000,1000000");
+		String[] dists = option(args, "dists", "sequential,random,zipfian,adversarial");
+		int warmup = Integer.parseInt(option(args, "warmup", "2")[0]);
+		int iterations = Integer.parseInt(option(args, "iterations", "5")[0]);
+		long seed = Long.parseLong(option(args, "seed", "42")[0]);
+		int bstLimit = Integer.parseInt(option(args, "bst-limit", "10000")[0]);
+		String out = option(args, "out", "benchmark.json")[0];
+
+		List<String> results = new ArrayList<String>();
+		for(String dist : dists) {
+			for(String sizeText : sizes) {
+				int n = Integer.parseInt(sizeText);
+				Random rnd = new Random(seed);
+				Integer[] keys = keys(dist, n, rnd);
+				Integer[] probes = new Integer[Math.min(MAX_PROBES, Math.max(MIN_PROBES, n))];
+				for(int i = 0; i < probes.length; i++) { // half hits, half misses.
+					probes[i] = (i % 2 == 0) ? keys[rnd.nextInt(n)] : n + rnd.nextInt(n);
+				}
+				for(String impl : impls) {
+					boolean degenerate = dist.equals("sequential") || dist.equals("adversarial");
+					if(impl.equals("LinkedBST") && degenerate && n > bstLimit) {
+						continue;
+					}
+					for(String op : ops) {
+						if(!supports(impl, op)) {
+							continue;
+						}
+						for(int i = 0; i < warmup; i++) {
+							iteration(impl, op, keys, probes);
+						}
+						double[] raw = new double[iterations];
+						for(int i = 0; i < iterations; i++) {
+							raw[i] = iteration(impl, op, keys, probes);
+						}
+						String json = result(impl, op, dist, n, raw);
+						results.add(json);
+						System.out.printf(Locale.ROOT, "%-18s %-9s %-11s %9d %12.1f ns/op%n",
+								impl, op, dist, n, mean(raw));
+					}
+				}
+			}
+		}
+
+		try(PrintStream ps = new PrintStream(Files.newOutputStream(Paths.get(out)), false, StandardCharsets.UTF_8)) {
+			ps.println("[");
+			for(int i = 0; i < results.size(); i++) {
+				ps.print(results.get(i));
+				ps.println((i + 1 < results.size()) ? "," : "");
+			}
+			ps.println("]");
+		}
+		System.out.println("wrote " + results.size() + " results to " + out + " (sink " + sink + ")");
+	}
+
+	/**
+	 * Format one case as a JMH-style JSON object. scoreError is the half-width of a 99.9%
+	 * confidence interval, approximated with the normal quantile.
+	 * @return the JSON object.
+	 */
+	private static String result(String impl, String op, String dist, int n, double[] raw) {
+		double mean = mean(raw);
+		double var = 0;
+		for(double x : raw) {
+			var += (x - mean) * (x - mean);
+		}
+		double error = (raw.length > 1) ? 3.291 * Math.sqrt(var / (raw.length - 1)) / Math.sqrt(raw.length) : Double.NaN;
+		StringBuilder data = new StringBuilder();
+		for(int i = 0; i < raw.length; i++) {
+			data.append((i == 0) ? "" : ", ").append(String.format(Locale.ROOT, "%.3f", raw[i]));
+		}
+		return String.format(Locale.ROOT,
+				"  {\"benchmark\": \"%s.%s\", \"mode\": \"avgt\", \"params\": {\"size\": \"%d\", \"distribution\": \"%s\"},"
+				+ " \"primaryMetric\": {\"score\": %.3f, \"scoreError\": %s, \"scoreUnit\": \"ns/op\", \"rawData\": [[%s]]}}",
+				impl, op, n, dist, mean, Double.isNaN(error) ? "\"NaN\"" : String.format(Locale.ROOT, "%.3f", error), data);
+	}
+
+	private static double mean(double[] raw) {
+		return Arrays.stream(raw).average().orElse(Double.NaN);
+	}
+}
@@ -0,0 +1,285 @@
+package edu.unca.csci202;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Optional instrumentation for AVLTree: comparisons, rotations by case, rebalance climb
+ * length, and log2 histograms of search path length and operation latency. Sorting
+ * algorithms record their comparisons, swaps and edges followed here too.
+ *
+ * Every counter is a LongAdder, so threads recording into one TreeMetrics (for example
+ * several trees sharing it) update separate cells instead of contending on one word.
+ * A tree with no TreeMetrics attached pays only a null check per operation.
+ *
+ * Usage:
+ *   TreeMetrics metrics = new TreeMetrics();
+ *   tree.setMetrics(metrics);
+ *   metrics.register("orders"); // shows up as edu.unca.csci202:type=TreeMetrics,name=orders
+ */
+public class TreeMetrics implements TreeMetricsMBean {
+
+	/**
+	 * Rotation cases, named by where the extra height is.
+	 */
+	public enum Rotation {
+		LL, LR, RR, RL
+	}
+
+	private static final int BUCKETS = 64;
+
+	/* instance variables */
+	private final LongAdder comparisons = new LongAdder();
+	private final LongAdder[] rotations = newAdders(Rotation.values().length);
+	private final LongAdder rebalances = new LongAdder();
+	private final LongAdder climbed = new LongAdder();
+	private final LongAdder searches = new LongAdder();
+	private final LongAdder pathTotal = new LongAdder();
+	private final LongAdder[] pathLengths = newAdders(BUCKETS);
+	private final LongAdder[] latencies = newAdders(BUCKETS);
+	private final LongAdder sortComparisons = new LongAdder();
+	private final LongAdder sortSwaps = new LongAdder();
+	private final LongAdder sortEdgesFollowed = new LongAdder();
+	private ObjectName objectName;
+
+	/**
+	 * Record one search path.
+	 * @param pathLength edges followed.
+	 * @param comparisons key comparisons made.
+	 */
+	public void recordSearch(int pathLength, int comparisons) {
+		this.searches.increment();
+		this.pathTotal.add(pathLength);
+		this.comparisons.add(comparisons);
+		this.pathLengths[bucket(pathLength)].increment();
+	}
+
+	/**
+	 * Record one rotation.
+	 * @param rotation rotation case.
+	 */
+	public void recordRotation(Rotation rotation) {
+		this.rotations[rotation.ordinal()].increment();
+	}
+
+	/**
+	 * Record one rebalance climb.
+	 * @param nodesVisited nodes the climb checked before it stopped.
+	 */
+	public void recordRebalance(int nodesVisited) {
+		this.rebalances.increment();
+		this.climbed.add(nodesVisited);
+	}
+
+	/**
+	 * Record the latency of one operation.
+	 * @param nanos elapsed nanoseconds.
+	 */
+	public void recordLatency(long nanos) {
+		this.latencies[bucket(nanos)].increment();
+	}
+
+	/**
+	 * Record counts made by a sorting algorithm.
+	 * @param comparisons comparisons made by the algorithm itself, outside any tree.
+	 * @param swaps swaps made.
+	 * @param edgesFollowed edges followed by tree inserts.
+	 */
+	public void recordSort(long comparisons, long swaps, long edgesFollowed) {
+		this.sortComparisons.add(comparisons);
+		this.sortSwaps.add(swaps);
+		this.sortEdgesFollowed.add(edgesFollowed);
+	}
+
+	/**
+	 * Register this object with the platform MBean server.
+	 * @param name value of the name key in the ObjectName.
+	 * @throws JMException if the name is invalid or already registered.
+	 */
+	public synchronized void register(String name) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName("edu.unca.csci202:type=TreeMetrics,name=" + ObjectName.quote(name));
+		server.registerMBean(this, objectName);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Unregister this object from the platform MBean server, if it was registered.
+	 * @throws JMException if the MBean server refuses.
+	 */
+	public synchronized void unregister() throws JMException {
+		if(this.objectName != null) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+			this.objectName = null;
+		}
+	}
+
+	@Override
+	public long getComparisons() {
+		return this.comparisons.sum();
+	}
+
+	@Override
+	public long getRotationsLL() {
+		return this.rotations[Rotation.LL.ordinal()].sum();
+	}
+
+	@Override
+	public long getRotationsLR() {
+		return this.rotations[Rotation.LR.ordinal()].sum();
+	}
+
+	@Override
+	public long getRotationsRR() {
+		return this.rotations[Rotation.RR.ordinal()].sum();
+	}
+
+	@Override
+	public long getRotationsRL() {
+		return this.rotations[Rotation.RL.ordinal()].sum();
+	}
+
+	@Override
+	public long getRebalances() {
+		return this.rebalances.sum();
+	}
+
+	@Override
+	public double getMeanClimbLength() {
+		long rebalances = this.rebalances.sum();
+		return (rebalances == 0) ? 0 : this.climbed.sum() / (double) rebalances;
+	}
+
+	@Override
+	public long getSearches() {
+		return this.searches.sum();
+	}
+
+	@Override
+	public double getMeanPathLength() {
+		long searches = this.searches.sum();
+		return (searches == 0) ? 0 : this.pathTotal.sum() / (double) searches;
+	}
+
+	@Override
+	public long getSortComparisons() {
+		return this.sortComparisons.sum();
+	}
+
+	@Override
+	public long getSortSwaps() {
+		return this.sortSwaps.sum();
+	}
+
+	@Override
+	public long getSortEdgesFollowed() {
+		return this.sortEdgesFollowed.sum();
+	}
+
+	@Override
+	public long[] getPathLengthHistogram() {
+		return sums(this.pathLengths);
+	}
+
+	@Override
+	public long[] getLatencyHistogram() {
+		return sums(this.latencies);
+	}
+
+	@Override
+	public long getLatencyP50Nanos() {
+		return this.latencyPercentile(0.50);
+	}
+
+	@Override
+	public long getLatencyP99Nanos() {
+		return this.latencyPercentile(0.99);
+	}
+
+	@Override
+	public long getLatencyP999Nanos() {
+		return this.latencyPercentile(0.999);
+	}
+
+	/**
+	 * Return a latency percentile, as the upper bound of the bucket it falls in.
+	 * @param p percentile in [0, 1].
+	 * @return the percentile in nanoseconds, 0 if nothing was recorded.
+	 */
+	public long latencyPercentile(double p) {
+		long[] counts = sums(this.latencies);
+		long total = 0;
+		for(long count : counts) {
+			total += count;
+		}
+		long rank = (long) Math.ceil(p * total);
+		long seen = 0;
+		for(int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if(seen >= rank && seen > 0) {
+				return (i == 0) ? 0 : (i >= 63) ? Long.MAX_VALUE : (1L << i) - 1;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public void reset() {
+		this.comparisons.reset();
+		for(LongAdder adder : this.rotations) {
+			adder.reset();
+		}
+		this.rebalances.reset();
+		this.climbed.reset();
+		this.searches.reset();
+		this.pathTotal.reset();
+		this.sortComparisons.reset();
+		this.sortSwaps.reset();
+		this.sortEdgesFollowed.reset();
+		for(int i = 0; i < BUCKETS; i++) {
+			this.pathLengths[i].reset();
+			this.latencies[i].reset();
+		}
+	}
+
+	public String toString() {
+		return "comparisons=" + this.getComparisons()
+				+ " rotations(LL/LR/RR/RL)=" + this.getRotationsLL() + "/" + this.getRotationsLR()
+				+ "/" + this.getRotationsRR() + "/" + this.getRotationsRL()
+				+ " meanClimb=" + String.format("%.2f", this.getMeanClimbLength())
+				+ " meanPath=" + String.format("%.2f", this.getMeanPathLength())
+				+ " p50/p99/p999(ns)=" + this.getLatencyP50Nanos() + "/" + this.getLatencyP99Nanos()
+				+ "/" + this.getLatencyP999Nanos()
+				+ " sort(comparisons/swaps/edges)=" + this.getSortComparisons() + "/" + this.getSortSwaps()
+				+ "/" + this.getSortEdgesFollowed();
+	}
+
+	/**
+	 * Return the log2 bucket of a non-negative value: 0 for 0, otherwise its bit length.
+	 * @param value value to bucket.
+	 * @return the bucket index.
+	 */
+	private static int bucket(long value) {
+		return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, value)));
+	}
+
+	private static LongAdder[] newAdders(int n) {
+		LongAdder[] adders = new LongAdder[n];
+		for(int i = 0; i < n; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+	private static long[] sums(LongAdder[] adders) {
+		long[] sums = new long[adders.length];
+		for(int i = 0; i < adders.length; i++) {
+			sums[i] = adders[i].sum();
+		}
+		return sums;
+	}
+}
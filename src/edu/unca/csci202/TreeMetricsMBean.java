@@ -0,0 +1,114 @@
+package edu.unca.csci202;
+
+/**
+ * Management interface of TreeMetrics, the attributes a JMX console shows.
+ */
+public interface TreeMetricsMBean {
+
+	/**
+	 * Return the number of key comparisons made by searches and inserts.
+	 * @return the number of comparisons.
+	 */
+	public long getComparisons();
+
+	/**
+	 * Return the number of single right rotations (left-left case).
+	 * @return the number of LL rotations.
+	 */
+	public long getRotationsLL();
+
+	/**
+	 * Return the number of left-right double rotations.
+	 * @return the number of LR rotations.
+	 */
+	public long getRotationsLR();
+
+	/**
+	 * Return the number of single left rotations (right-right case).
+	 * @return the number of RR rotations.
+	 */
+	public long getRotationsRR();
+
+	/**
+	 * Return the number of right-left double rotations.
+	 * @return the number of RL rotations.
+	 */
+	public long getRotationsRL();
+
+	/**
+	 * Return the number of rebalance climbs, one per insert or delete.
+	 * @return the number of rebalances.
+	 */
+	public long getRebalances();
+
+	/**
+	 * Return the mean number of nodes a rebalance climb visited.
+	 * @return the mean climb length.
+	 */
+	public double getMeanClimbLength();
+
+	/**
+	 * Return the number of search paths recorded.
+	 * @return the number of searches.
+	 */
+	public long getSearches();
+
+	/**
+	 * Return the mean number of edges followed per search.
+	 * @return the mean search path length.
+	 */
+	public double getMeanPathLength();
+
+	/**
+	 * Return the number of comparisons made by sorting algorithms outside their trees.
+	 * @return the number of sort comparisons.
+	 */
+	public long getSortComparisons();
+
+	/**
+	 * Return the number of swaps made by sorting algorithms.
+	 * @return the number of sort swaps.
+	 */
+	public long getSortSwaps();
+
+	/**
+	 * Return the number of edges followed by the tree inserts of tree sorts.
+	 * @return the number of edges followed.
+	 */
+	public long getSortEdgesFollowed();
+
+	/**
+	 * Return the search path length histogram, bucket i counts lengths in [2^(i-1), 2^i).
+	 * @return the histogram counts.
+	 */
+	public long[] getPathLengthHistogram();
+
+	/**
+	 * Return the operation latency histogram, bucket i counts nanoseconds in [2^(i-1), 2^i).
+	 * @return the histogram counts.
+	 */
+	public long[] getLatencyHistogram();
+
+	/**
+	 * Return the median operation latency, as the upper bound of its bucket.
+	 * @return the 50th percentile in nanoseconds.
+	 */
+	public long getLatencyP50Nanos();
+
+	/**
+	 * Return the 99th percentile operation latency, as the upper bound of its bucket.
+	 * @return the 99th percentile in nanoseconds.
+	 */
+	public long getLatencyP99Nanos();
+
+	/**
+	 * Return the 99.9th percentile operation latency, as the upper bound of its bucket.
+	 * @return the 99.9th percentile in nanoseconds.
+	 */
+	public long getLatencyP999Nanos();
+
+	/**
+	 * Zero every counter and histogram.
+	 */
+	public void reset();
+}
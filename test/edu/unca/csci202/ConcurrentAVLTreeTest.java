@@ -0,0 +1,211 @@
+package edu.unca.csci202;
+
+import java.lang.reflect.Field;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Structural checks for ConcurrentAVLTree. After each quiescent run the tree is walked
+ * through its private fields and every node must have a correct height, balance in
+ * [-1, 1], a parent link back to its parent, and, if it is a routing node, two children.
+ * Throws AssertionError on the first failure.
+ * Run with: java edu.unca.csci202.ConcurrentAVLTreeTest
+ */
+public class ConcurrentAVLTreeTest {
+
+	private static final Field HOLDER;
+	private static final Field KEY;
+	private static final Field HEIGHT;
+	private static final Field COUNT;
+	private static final Field PARENT;
+	private static final Field LEFT;
+	private static final Field RIGHT;
+
+	static {
+		try {
+			Class<?> node = Class.forName(ConcurrentAVLTree.class.getName() + "$Node");
+			HOLDER = accessible(ConcurrentAVLTree.class.getDeclaredField("holder"));
+			KEY = accessible(node.getDeclaredField("key"));
+			HEIGHT = accessible(node.getDeclaredField("height"));
+			COUNT = accessible(node.getDeclaredField("count"));
+			PARENT = accessible(node.getDeclaredField("parent"));
+			LEFT = accessible(node.getDeclaredField("left"));
+			RIGHT = accessible(node.getDeclaredField("right"));
+		} catch(ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		singleThreadedEveryOperation();
+		singleThreadedRanges();
+		multiThreadedQuiescent();
+		duplicateInsertReturnsEdges();
+		System.out.println("ConcurrentAVLTreeTest: ok");
+	}
+
+	/**
+	 * The sequence that left a stale height above a double rotation, checked after every
+	 * operation.
+	 * @throws Exception if the tree can't be inspected.
+	 */
+	private static void singleThreadedEveryOperation() throws Exception {
+		Random rnd = new Random(2);
+		ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<Integer>();
+		TreeMap<Integer, Integer> reference = new TreeMap<Integer, Integer>();
+		for(int i = 0; i < 100000; i++) {
+			int key = 5 + rnd.nextInt(300);
+			apply(tree, reference, key, rnd.nextBoolean());
+			checkStructure(tree, "op " + i);
+		}
+		checkContents(tree, reference);
+	}
+
+	/**
+	 * Random single-threaded runs over several key ranges, checked at the end of each.
+	 * @throws Exception if the tree can't be inspected.
+	 */
+	private static void singleThreadedRanges() throws Exception {
+		for(int seed = 0; seed < 20; seed++) {
+			for(int range : new int[] {16, 300, 100000}) {
+				Random rnd = new Random(seed);
+				ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<Integer>();
+				TreeMap<Integer, Integer> reference = new TreeMap<Integer, Integer>();
+				for(int i = 0; i < 50000; i++) {
+					apply(tree, reference, rnd.nextInt(range), rnd.nextInt(100) < 55);
+				}
+				checkStructure(tree, "seed " + seed + " range " + range);
+				checkContents(tree, reference);
+			}
+		}
+	}
+
+	/**
+	 * Threads insert and delete over a shared key range. Each thread owns the keys equal to
+	 * its id modulo the thread count, so the final contents are known, and the structure
+	 * is checked once every thread has finished.
+	 * @throws Exception if a worker fails or the tree can't be inspected.
+	 */
+	private static void multiThreadedQuiescent() throws Exception {
+		int threads = 4;
+		for(int round = 0; round < 10; round++) {
+			ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<Integer>();
+			@SuppressWarnings({"unchecked", "rawtypes"})
+			TreeMap<Integer, Integer>[] references = new TreeMap[threads];
+			Thread[] workers = new Thread[threads];
+			Throwable[] failure = new Throwable[1];
+			for(int t = 0; t < threads; t++) {
+				final int id = t;
+				final int seed = round * threads + t;
+				references[id] = new TreeMap<Integer, Integer>();
+				workers[t] = new Thread(() -> {
+					try {
+						Random rnd = new Random(seed);
+						for(int i = 0; i < 100000; i++) {
+							int key = rnd.nextInt(500) * threads + id;
+							apply(tree, references[id], key, rnd.nextBoolean());
+						}
+					} catch(Throwable e) {
+						synchronized(failure) {
+							failure[0] = e;
+						}
+					}
+				});
+				workers[t].start();
+			}
+			for(Thread worker : workers) {
+				worker.join();
+			}
+			if(failure[0] != null) {
+				throw new AssertionError("worker failed", failure[0]);
+			}
+			TreeMap<Integer, Integer> reference = new TreeMap<Integer, Integer>();
+			for(TreeMap<Integer, Integer> part : references) {
+				reference.putAll(part);
+			}
+			checkStructure(tree, "round " + round);
+			checkContents(tree, reference);
+		}
+	}
+
+	/**
+	 * A duplicate insert reports the edges followed to the existing node, like a new one.
+	 */
+	private static void duplicateInsertReturnsEdges() {
+		ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<Integer>();
+		check(tree.insert(2) == 0, "first insert followed edges");
+		check(tree.insert(2) == 0, "duplicate at the root should follow 0 edges");
+		check(tree.insert(1) == 1, "insert below the root should follow 1 edge");
+		check(tree.insert(1) == 1, "duplicate below the root should follow 1 edge");
+	}
+
+	/**
+	 * Insert or delete key in both tree and reference, a multiset of counts.
+	 */
+	private static void apply(ConcurrentAVLTree<Integer> tree, TreeMap<Integer, Integer> reference,
+			int key, boolean insert) {
+		if(insert) {
+			tree.insert(key);
+			reference.merge(key, 1, Integer::sum);
+		} else {
+			tree.delete(key);
+			reference.computeIfPresent(key, (k, count) -> (count == 1) ? null : count - 1);
+		}
+	}
+
+	private static void checkContents(ConcurrentAVLTree<Integer> tree, TreeMap<Integer, Integer> reference) {
+		int size = 0;
+		for(int count : reference.values()) {
+			size += count;
+		}
+		check(tree.size() == size, "size " + tree.size() + ", expected " + size);
+		for(Integer key : reference.keySet()) {
+			check(tree.contains(key), "missing " + key);
+		}
+	}
+
+	/**
+	 * Walk the tree below the holder and check every node.
+	 * @param tree quiescent tree.
+	 * @param when description of the run, for the failure message.
+	 * @throws IllegalAccessException if a field can't be read.
+	 */
+	private static void checkStructure(ConcurrentAVLTree<?> tree, String when) throws IllegalAccessException {
+		Object holder = HOLDER.get(tree);
+		checkNode(RIGHT.get(holder), holder, when);
+	}
+
+	/**
+	 * Check node's subtree and return its true height.
+	 */
+	private static int checkNode(Object node, Object parent, String when) throws IllegalAccessException {
+		if(node == null) {
+			return 0;
+		}
+		Object key = KEY.get(node);
+		check(PARENT.get(node) == parent, when + ": bad parent link at " + key);
+		Object left = LEFT.get(node);
+		Object right = RIGHT.get(node);
+		int leftHeight = checkNode(left, node, when);
+		int rightHeight = checkNode(right, node, when);
+		int height = 1 + Math.max(leftHeight, rightHeight);
+		check((int) HEIGHT.get(node) == height,
+				when + ": " + key + " has height " + HEIGHT.get(node) + " over " + leftHeight + "/" + rightHeight);
+		check(Math.abs(leftHeight - rightHeight) <= 1,
+				when + ": " + key + " is unbalanced, " + leftHeight + "/" + rightHeight);
+		check((int) COUNT.get(node) > 0 || (left != null && right != null),
+				when + ": routing node " + key + " has fewer than two children");
+		return height;
+	}
+
+	private static void check(boolean condition, String message) {
+		if(!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+	private static Field accessible(Field field) {
+		field.setAccessible(true);
+		return field;
+	}
+}
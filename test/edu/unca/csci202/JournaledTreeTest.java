@@ -0,0 +1,104 @@
+package edu.unca.csci202;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Recovery checks for JournaledTree. Throws AssertionError on the first failure.
+ * Run with: java edu.unca.csci202.JournaledTreeTest
+ */
+public class JournaledTreeTest {
+
+	public static void main(String[] args) throws IOException {
+		failedAppendLeavesNoRecord();
+		failedEncodeLeavesNoRecord();
+		System.out.println("JournaledTreeTest: ok");
+	}
+
+	/**
+	 * A mutation whose element can't be encoded must not leave a record behind that stops
+	 * recovery before the mutations journaled after it.
+	 * @throws IOException if the journal can't be written.
+	 */
+	private static void failedAppendLeavesNoRecord() throws IOException {
+		Path directory = Files.createTempDirectory("journaled");
+		try {
+			try(JournaledTree<Integer> tree = JournaledTree.open(directory, KeyCodec.INTEGER, AVLTree::new)) {
+				tree.insert(1);
+				try {
+					tree.insert(null);
+					throw new AssertionError("insert(null) was accepted");
+				} catch(NullPointerException expected) {
+					// rejected before anything was buffered.
+				}
+				tree.insert(2);
+				tree.insert(3);
+			}
+			try(JournaledTree<Integer> tree = JournaledTree.open(directory, KeyCodec.INTEGER, AVLTree::new)) {
+				check(tree.size() == 3, "recovered size " + tree.size() + ", expected 3");
+				for(int i = 1; i <= 3; i++) {
+					check(tree.contains(i), "recovered tree is missing " + i);
+				}
+			}
+		} finally {
+			deleteRecursively(directory);
+		}
+	}
+
+	/**
+	 * A codec that throws part way through writing an element must not leave a zeroed
+	 * record header in the journal.
+	 * @throws IOException if the journal can't be written.
+	 */
+	private static void failedEncodeLeavesNoRecord() throws IOException {
+		KeyCodec<Integer> negativeFails = new KeyCodec<Integer>() {
+			public String name() { return "int32"; }
+			public int size(Integer key) { return Integer.BYTES; }
+			public void write(Integer key, ByteBuffer out) {
+				if(key < 0) {
+					throw new IllegalArgumentException("negative key " + key);
+				}
+				out.putInt(key);
+			}
+			public Integer read(ByteBuffer in) { return in.getInt(); }
+		};
+		Path directory = Files.createTempDirectory("journaled");
+		try {
+			try(JournaledTree<Integer> tree = JournaledTree.open(directory, negativeFails, AVLTree::new)) {
+				tree.insert(1);
+				try {
+					tree.insert(-1);
+					throw new AssertionError("insert(-1) was accepted");
+				} catch(IllegalArgumentException expected) {
+					// the codec refused it after the op byte was buffered.
+				}
+				tree.insert(2);
+				tree.insert(3);
+			}
+			try(JournaledTree<Integer> tree = JournaledTree.open(directory, KeyCodec.INTEGER, AVLTree::new)) {
+				check(tree.size() == 3, "recovered size " + tree.size() + ", expected 3");
+				check(!tree.contains(-1), "recovered the element that failed to encode");
+			}
+		} finally {
+			deleteRecursively(directory);
+		}
+	}
+
+	private static void check(boolean condition, String message) {
+		if(!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+	private static void deleteRecursively(Path directory) throws IOException {
+		try(Stream<Path> files = Files.walk(directory)) {
+			for(Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+}